@@ -11,10 +11,21 @@ import java.util.*;
  * color),
  * redibujando el lienzo completo en cada actualización.
  *
+ * Cada figura registra su descripción una sola vez y la reutiliza: dibujar de
+ * nuevo solo actualiza sus campos y la pasa al frente de la lista (enlazada
+ * dentro de las propias descripciones), así una animación no crea objetos por
+ * cuadro.
+ *
  * Uso típico desde figuras como Rectangle, Circle, etc.
+ *
+ * Sin pantalla (java.awt.headless) el canvas funciona fuera de pantalla: no
+ * crea ventana ni buffer, solo mantiene el registro de formas, y las imágenes
+ * se generan bajo demanda con {@link OffscreenRenderer}.
  */
 public class Canvas {
     private static Canvas canvasSingleton;
+    private static int offscreenWidth = 1280;
+    private static int offscreenHeight = 800;
 
     /**
      * Obtiene (o crea) la instancia única de Canvas y garantiza su visibilidad.
@@ -22,6 +33,9 @@ public class Canvas {
      * @return instancia singleton de Canvas
      */
     public static Canvas getCanvas() {
+        if (canvasSingleton == null && GraphicsEnvironment.isHeadless()) {
+            canvasSingleton = new Canvas(offscreenWidth, offscreenHeight, Color.white);
+        }
         if (canvasSingleton == null) {
             Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
             int screenWidth = screenSize.width;
@@ -37,14 +51,37 @@ public class Canvas {
         return canvasSingleton;
     }
 
+    /**
+     * Define el tamaño lógico del canvas fuera de pantalla (el área sobre la
+     * que la ruta distribuye su espiral). Debe llamarse antes de crear la
+     * primera figura; no afecta al canvas con ventana.
+     *
+     * @param width  ancho lógico en px
+     * @param height alto lógico en px
+     */
+    public static void setOffscreenSize(int width, int height) {
+        offscreenWidth = Math.max(1, width);
+        offscreenHeight = Math.max(1, height);
+        if (canvasSingleton != null && canvasSingleton.frame == null) {
+            canvasSingleton.width = offscreenWidth;
+            canvasSingleton.height = offscreenHeight;
+        }
+    }
+
     // ----- Atributos de instancia -----
     private JFrame frame;
     private CanvasPane canvas;
     private Graphics2D graphic;
     private Color backgroundColour;
     private Image canvasImage;
-    private List<Object> objects;
-    private HashMap<Object, ShapeDescription> shapes;
+    private ShapeDescription first; // orden de dibujo: first es el de más abajo
+    private ShapeDescription last;
+    private HashMap<Object, ShapeDescription> shapes; // solo referencias que no son Shape
+    private int batchDepth; // > 0 mientras se agrupan cambios en un solo cuadro
+    private int width; // tamaño lógico en modo fuera de pantalla
+    private int height;
+    private long version; // cambia con cada draw/erase
+    private FrameRecorder recorder; // != null mientras se graba
 
     /**
      * Constructor privado (patrón singleton).
@@ -62,10 +99,30 @@ public class Canvas {
         canvas.setPreferredSize(new Dimension(width, height));
         backgroundColour = bgColour;
         frame.pack();
-        objects = new ArrayList<Object>();
         shapes = new HashMap<Object, ShapeDescription>();
     }
 
+    /**
+     * Constructor del canvas fuera de pantalla: sin ventana ni buffer.
+     *
+     * @param width    ancho lógico
+     * @param height   alto lógico
+     * @param bgColour color de fondo
+     */
+    private Canvas(int width, int height, Color bgColour) {
+        this.width = width;
+        this.height = height;
+        backgroundColour = bgColour;
+        shapes = new HashMap<Object, ShapeDescription>();
+    }
+
+    /**
+     * @return true si el canvas no tiene ventana (modo headless)
+     */
+    public boolean isOffscreen() {
+        return frame == null;
+    }
+
     /**
      * Establece visibilidad de la ventana y/o inicializa el buffer gráfico la
      * primera vez.
@@ -73,6 +130,8 @@ public class Canvas {
      * @param visible true para mostrar
      */
     public void setVisible(boolean visible) {
+        if (frame == null)
+            return; // Fuera de pantalla no hay ventana que mostrar
         if (graphic == null) {
             // Inicialización perezosa del buffer
             Dimension size = canvas.getSize();
@@ -94,10 +153,39 @@ public class Canvas {
      * @param shape           la forma a dibujar
      */
     public void draw(Object referenceObject, String color, java.awt.Shape shape) {
-        objects.remove(referenceObject);
-        objects.add(referenceObject);
-        shapes.put(referenceObject, new ShapeDescription(shape, color));
-        redraw();
+        draw(referenceObject, Palette.idOf(color), shape);
+    }
+
+    /**
+     * Dibuja una forma con un color ya resuelto en la {@link Palette}.
+     * 
+     * @param referenceObject objeto que actúa como clave
+     * @param colorId         id del color en la paleta
+     * @param shape           la forma a dibujar
+     */
+    public void draw(Object referenceObject, int colorId, java.awt.Shape shape) {
+        ShapeDescription description = describe(referenceObject);
+        description.set(shape, colorId);
+        bringToFront(description);
+        version++;
+        if (batchDepth == 0)
+            redraw();
+    }
+
+    /**
+     * Dibuja un grupo de figuras como una sola entrada del canvas. Las hijas se
+     * pintan trasladadas al origen del grupo en una sola pasada.
+     *
+     * @param referenceObject objeto que actúa como clave
+     * @param group           grupo a dibujar
+     */
+    public void draw(Object referenceObject, Group group) {
+        ShapeDescription description = describe(referenceObject);
+        description.set(group);
+        bringToFront(description);
+        version++;
+        if (batchDepth == 0)
+            redraw();
     }
 
     /**
@@ -106,9 +194,91 @@ public class Canvas {
      * @param referenceObject referencia usada al dibujar
      */
     public void erase(Object referenceObject) {
-        objects.remove(referenceObject);
-        shapes.remove(referenceObject);
-        redraw();
+        ShapeDescription description;
+        if (referenceObject instanceof Shape) {
+            description = ((Shape) referenceObject).description;
+            if (description != null && description.owner != this)
+                description = null;
+        } else {
+            description = shapes.remove(referenceObject);
+        }
+        if (description != null)
+            unlink(description);
+        version++;
+        if (batchDepth == 0)
+            redraw();
+    }
+
+    /**
+     * Descripción de una referencia, creada la primera vez que se dibuja. Las
+     * figuras la guardan en sí mismas; otras referencias, en un mapa.
+     */
+    private ShapeDescription describe(Object referenceObject) {
+        if (referenceObject instanceof Shape) {
+            Shape figure = (Shape) referenceObject;
+            if (figure.description == null || figure.description.owner != this)
+                figure.description = new ShapeDescription(this);
+            return figure.description;
+        }
+        ShapeDescription description = shapes.get(referenceObject);
+        if (description == null) {
+            description = new ShapeDescription(this);
+            shapes.put(referenceObject, description);
+        }
+        return description;
+    }
+
+    /**
+     * Pone la descripción al final de la lista (se dibuja encima de todas).
+     */
+    private void bringToFront(ShapeDescription description) {
+        if (last == description)
+            return;
+        unlink(description);
+        description.previous = last;
+        if (last == null)
+            first = description;
+        else
+            last.next = description;
+        last = description;
+        description.linked = true;
+    }
+
+    private void unlink(ShapeDescription description) {
+        if (!description.linked)
+            return;
+        if (description.previous == null)
+            first = description.next;
+        else
+            description.previous.next = description.next;
+        if (description.next == null)
+            last = description.previous;
+        else
+            description.next.previous = description.previous;
+        description.previous = null;
+        description.next = null;
+        description.linked = false;
+    }
+
+    /**
+     * Inicia un cuadro agrupado: los draw/erase siguientes solo actualizan el
+     * registro de formas y las pausas de las figuras se ignoran, hasta que se
+     * llame a {@link #endBatch()}. Las llamadas pueden anidarse.
+     */
+    public void startBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Cierra un cuadro agrupado; al cerrar el más externo se redibuja el
+     * lienzo una sola vez con todos los cambios acumulados.
+     */
+    public void endBatch() {
+        if (batchDepth > 0) {
+            batchDepth--;
+            if (batchDepth == 0)
+                redraw();
+        }
     }
 
     /**
@@ -117,90 +287,36 @@ public class Canvas {
      * @param colorString nombre de color
      */
     public void setForegroundColor(String colorString) {
-        switch (colorString.toLowerCase()) {
-            case "red":
-                graphic.setColor(Color.red);
-                break;
-            case "black":
-                graphic.setColor(Color.black);
-                break;
-            case "blue":
-                graphic.setColor(Color.blue);
-                break;
-            case "yellow":
-                graphic.setColor(Color.yellow);
-                break;
-            case "green":
-                graphic.setColor(Color.green);
-                break;
-            case "magenta":
-                graphic.setColor(Color.magenta);
-                break;
-            case "white":
-                graphic.setColor(Color.white);
-                break;
-            case "purple":
-                graphic.setColor(new Color(128, 0, 128));
-                break;
-            case "orange":
-                graphic.setColor(Color.orange);
-                break;
-            case "pink":
-                graphic.setColor(Color.pink);
-                break;
-            case "cyan":
-                graphic.setColor(Color.cyan);
-                break;
-            case "brown":
-                graphic.setColor(new Color(139, 69, 19));
-                break;
-            case "lightgray":
-                graphic.setColor(Color.lightGray);
-                break;
-            case "indigo":
-                graphic.setColor(new Color(75, 0, 130));
-                break;
-            case "gold":
-                graphic.setColor(new Color(255, 215, 0));
-                break;
-            case "salmon":
-                graphic.setColor(new Color(250, 128, 114));
-                break;
-            case "beige":
-                graphic.setColor(new Color(245, 245, 220));
-                break;
-            case "ivory":
-                graphic.setColor(new Color(255, 255, 240));
-                break;
-            case "sunsetorange":
-                graphic.setColor(new Color(255, 97, 56));
-                break;
-            case "desertsand":
-                graphic.setColor(new Color(237, 201, 175));
-                break;
-            case "reddirt":
-                graphic.setColor(new Color(233, 91, 33));
-                break;
-            case "sage":
-                graphic.setColor(new Color(188, 184, 137));
-                break;
-            case "terracottared":
-                graphic.setColor(new Color(226, 114, 91));
-                break;
-            case "amber":
-                graphic.setColor(new Color(255, 191, 0));
-                break;
-            default:
-                graphic.setColor(Color.black);
-        }
+        if (graphic != null)
+            graphic.setColor(Palette.colorOf(Palette.idOf(colorString)));
     }
 
     /**
-     * Pausa de utilidad (animaciones lentas).
+     * Configura el color de dibujo a partir de un id de la {@link Palette}
+     * (sin trabajo con cadenas).
+     *
+     * @param colorId id de la paleta
+     */
+    public void setForegroundColor(int colorId) {
+        if (graphic != null)
+            graphic.setColor(Palette.colorOf(colorId));
+    }
+
+    /**
+     * Pausa de utilidad (animaciones lentas). Mientras hay un
+     * {@link FrameRecorder} activo no duerme: avanza su reloj lógico.
      * 
      * @param milliseconds milisegundos a esperar
      */
     public void wait(int milliseconds) {
+        if (batchDepth > 0)
+            return; // Dentro de un cuadro agrupado no se duerme por figura
+        if (recorder != null) {
+            recorder.advance(milliseconds);
+            return;
+        }
+        if (frame == null)
+            return; // Sin ventana nadie ve la pausa
         try {
             Thread.sleep(milliseconds);
         } catch (Exception e) {
@@ -212,9 +328,11 @@ public class Canvas {
      * Redibuja todos los objetos registrados en el canvas.
      */
     private void redraw() {
+        if (frame == null)
+            return; // Fuera de pantalla se pinta solo bajo demanda
         erase();
-        for (Iterator i = objects.iterator(); i.hasNext();) {
-            shapes.get(i.next()).draw(graphic);
+        for (ShapeDescription d = first; d != null; d = d.next) {
+            d.draw(graphic);
         }
         canvas.repaint();
     }
@@ -225,8 +343,7 @@ public class Canvas {
     private void erase() {
         Color original = graphic.getColor();
         graphic.setColor(backgroundColour);
-        Dimension size = canvas.getSize();
-        graphic.fill(new java.awt.Rectangle(0, 0, size.width, size.height));
+        graphic.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
         graphic.setColor(original);
     }
 
@@ -234,14 +351,81 @@ public class Canvas {
      * @return ancho actual del panel
      */
     public int getSizeCanvasW() {
-        return canvas.getWidth();
+        return frame == null ? width : canvas.getWidth();
     }
 
     /**
      * @return alto actual del panel
      */
     public int getSizeCanvasH() {
-        return canvas.getHeight();
+        return frame == null ? height : canvas.getHeight();
+    }
+
+    /**
+     * @return contador que cambia cada vez que se dibuja o borra una forma
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Engancha (o con null desengancha) el grabador de cuadros.
+     *
+     * @param recorder grabador activo o null
+     */
+    void setRecorder(FrameRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Copia el contenido visible del lienzo en el contexto dado: el buffer de
+     * la ventana si existe o, fuera de pantalla, la escena pintada al vuelo.
+     *
+     * @param g      contexto destino
+     * @param width  ancho del área a copiar
+     * @param height alto del área a copiar
+     */
+    void copyFrame(Graphics2D g, int width, int height) {
+        if (canvasImage != null) {
+            g.drawImage(canvasImage, 0, 0, null);
+        } else {
+            paintScene(g, new java.awt.Rectangle(0, 0, width, height));
+        }
+    }
+
+    /**
+     * Calcula el rectángulo que envuelve todas las formas registradas.
+     *
+     * @return límites de la escena en coordenadas del lienzo (vacío si no hay
+     *         formas)
+     */
+    public java.awt.Rectangle getSceneBounds() {
+        java.awt.Rectangle scene = null;
+        for (ShapeDescription d = first; d != null; d = d.next) {
+            java.awt.Rectangle b = d.bounds();
+            if (scene == null)
+                scene = new java.awt.Rectangle(b); // bounds() se reutiliza
+            else
+                scene.add(b);
+        }
+        return scene == null ? new java.awt.Rectangle() : scene;
+    }
+
+    /**
+     * Pinta la escena (fondo y formas en orden) sobre un contexto gráfico
+     * cualquiera, limitándose al área indicada: las formas que no la tocan se
+     * omiten. Lo usa el render fuera de pantalla para pintar por mosaicos.
+     *
+     * @param g    contexto gráfico destino, ya trasladado si hace falta
+     * @param area área del lienzo a pintar
+     */
+    public void paintScene(Graphics2D g, java.awt.Rectangle area) {
+        g.setColor(backgroundColour);
+        g.fill(area);
+        for (ShapeDescription d = first; d != null; d = d.next) {
+            if (d.bounds().intersects(area))
+                d.draw(g);
+        }
     }
 
     /**
@@ -256,27 +440,94 @@ public class Canvas {
 
     /**
      * Descripción interna (forma y color) asociada a un objeto de referencia.
+     * Se crea una vez por referencia y se actualiza en el lugar; también es el
+     * nodo de la lista de dibujo.
      */
-    private class ShapeDescription {
+    static final class ShapeDescription {
+        private final Canvas owner;
         private java.awt.Shape shape;
-        private String colorString;
+        private Color color;
+        private Group group;
+        private ShapeDescription previous;
+        private ShapeDescription next;
+        private boolean linked;
+        private final java.awt.Rectangle bounds = new java.awt.Rectangle();
 
         /**
-         * @param shape forma a dibujar
-         * @param color color textual
+         * @param owner canvas donde se registra
          */
-        public ShapeDescription(java.awt.Shape shape, String color) {
+        ShapeDescription(Canvas owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * @param shape   forma a dibujar
+         * @param colorId id del color en la paleta
+         */
+        void set(java.awt.Shape shape, int colorId) {
             this.shape = shape;
-            colorString = color;
+            this.color = Palette.colorOf(colorId);
+            this.group = null;
+        }
+
+        /**
+         * @param group grupo cuyas hijas se dibujan juntas
+         */
+        void set(Group group) {
+            this.group = group;
+            this.shape = null;
+        }
+
+        /**
+         * @return rectángulo que ocupa la forma en el lienzo (incluye el
+         *         píxel extra del contorno). Es el mismo objeto en cada
+         *         llamada: se sobrescribe en la siguiente
+         */
+        public java.awt.Rectangle bounds() {
+            java.awt.Rectangle b = bounds;
+            if (group == null) {
+                b.setBounds(shape.getBounds());
+            } else if (group.getSpriteKey() != null) {
+                SpriteCache.Sprite sprite = SpriteCache.get(group.getSpriteKey(), group);
+                b.setBounds(group.getXPosition() + sprite.offsetX,
+                        group.getYPosition() + sprite.offsetY,
+                        sprite.image.getWidth(), sprite.image.getHeight());
+            } else {
+                b.setBounds(group.getGeometry().getBounds());
+            }
+            b.width++;
+            b.height++;
+            return b;
         }
 
         /**
-         * Dibuja la forma usando el color registrado.
+         * Dibuja la forma usando el color registrado; si es un grupo, dibuja
+         * cada hija con su color aplicando una sola traslación.
          * 
          * @param graphic contexto gráfico (Graphics2D)
          */
         public void draw(Graphics2D graphic) {
-            setForegroundColor(colorString);
+            if (group != null) {
+                int dx = group.getXPosition();
+                int dy = group.getYPosition();
+                if (group.getSpriteKey() != null) {
+                    // Apariencia pre-renderizada: un solo drawImage
+                    SpriteCache.Sprite sprite = SpriteCache.get(group.getSpriteKey(), group);
+                    graphic.drawImage(sprite.image, dx + sprite.offsetX, dy + sprite.offsetY, null);
+                    return;
+                }
+                graphic.translate(dx, dy);
+                for (int i = 0, n = group.childCount(); i < n; i++) {
+                    Shape child = group.childAt(i);
+                    java.awt.Shape geometry = child.getGeometry();
+                    graphic.setColor(Palette.colorOf(child.colorId()));
+                    graphic.draw(geometry);
+                    graphic.fill(geometry);
+                }
+                graphic.translate(-dx, -dy);
+                return;
+            }
+            graphic.setColor(color);
             graphic.draw(shape);
             graphic.fill(shape);
         }
@@ -11,6 +11,7 @@ public class Circle extends Shape {
     public static final double PI = 3.1416;
 
     private int diameter;
+    private final Ellipse2D.Double geometry = new Ellipse2D.Double(); // se reutiliza
 
     /**
      * Crea un círculo por defecto (diámetro 30, color azul, invisible).
@@ -48,12 +49,20 @@ public class Circle extends Shape {
     protected void draw() {
         if (isVisible) {
             Canvas canvas = Canvas.getCanvas();
-            canvas.draw(this, color,
-                    new Ellipse2D.Double(xPosition, yPosition, diameter, diameter));
+            canvas.draw(this, colorId(), getGeometry());
             canvas.wait(10);
         }
     }
 
+    /**
+     * @return elipse AWT en la posición actual (la misma instancia en cada llamada)
+     */
+    @Override
+    protected java.awt.Shape getGeometry() {
+        geometry.setFrame(xPosition, yPosition, diameter, diameter);
+        return geometry;
+    }
+
     /**
      * Borra si isVisible es true.
      */
@@ -159,6 +168,7 @@ public class Circle extends Shape {
      */
     public void changeColor(String newColor) {
         color = newColor;
+        resolveColor();
         draw();
     }
 
@@ -275,6 +285,7 @@ public class Circle extends Shape {
      */
     public void setColor(String color) {
         this.color = color;
+        resolveColor();
     }
 
     /**
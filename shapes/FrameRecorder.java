@@ -0,0 +1,274 @@
+package shapes;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.imageio.*;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * FrameRecorder graba lo que muestra el {@link Canvas} como una secuencia de
+ * PNG (frame_00000.png, frame_00001.png, ...) a una tasa fija de cuadros.
+ *
+ * Mientras graba, las pausas del canvas ({@link Canvas#wait(int)}) no duermen:
+ * avanzan un reloj lógico y, cada vez que este cruza el instante de un cuadro,
+ * se copia el lienzo. Así una animación de minutos se exporta en segundos.
+ * Los cuadros pasan por una cola acotada a un hilo codificador en segundo
+ * plano (varios codificadores en paralelo, con compresión rápida); las
+ * imágenes salen de un pool fijo, de modo que si los codificadores se atrasan
+ * la simulación espera (contrapresión) y la memoria queda acotada.
+ * Los cuadros sin cambios respecto al anterior no se codifican: al terminar se
+ * copian como archivo desde el último cuadro distinto.
+ */
+public class FrameRecorder {
+
+    private final File directory;
+    private final int frameMillis;
+    private final BlockingQueue<Frame> pending;
+    private final BlockingQueue<BufferedImage> pool;
+    private final Canvas canvas;
+    private final Thread[] encoders;
+    private final List<int[]> repeats; // {cuadro, cuadro del que es copia}
+    private volatile IOException failure;
+
+    private long clock; // tiempo lógico acumulado en ms
+    private long nextFrameAt;
+    private int frameCount;
+    private long capturedVersion = -1;
+    private int lastUniqueFrame;
+
+    /**
+     * Crea un grabador sobre el canvas actual.
+     *
+     * @param directory     carpeta destino de los PNG (se crea si no existe)
+     * @param fps           cuadros por segundo lógicos (mínimo 1)
+     * @param queueCapacity cuadros que pueden esperar al codificador (mínimo 1)
+     */
+    public FrameRecorder(File directory, int fps, int queueCapacity) {
+        this(directory, fps, queueCapacity, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * Crea un grabador sobre el canvas actual con un número dado de hilos
+     * codificadores.
+     *
+     * @param directory     carpeta destino de los PNG (se crea si no existe)
+     * @param fps           cuadros por segundo lógicos (mínimo 1)
+     * @param queueCapacity cuadros que pueden esperar al codificador (mínimo 1)
+     * @param encoderCount  hilos que codifican en paralelo (mínimo 1)
+     */
+    public FrameRecorder(File directory, int fps, int queueCapacity, int encoderCount) {
+        this.directory = directory;
+        this.frameMillis = Math.max(1, 1000 / Math.max(1, fps));
+        int capacity = Math.max(1, queueCapacity);
+        this.pending = new ArrayBlockingQueue<>(capacity + 1);
+        this.pool = new ArrayBlockingQueue<>(capacity);
+        this.canvas = Canvas.getCanvas();
+        this.encoders = new Thread[Math.max(1, encoderCount)];
+        this.repeats = new ArrayList<>();
+    }
+
+    /**
+     * Empieza a grabar: captura el primer cuadro y engancha el grabador al
+     * canvas.
+     *
+     * @throws IOException si no se puede crear la carpeta destino
+     */
+    public void start() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("No se pudo crear la carpeta " + directory);
+
+        int width = Math.max(1, canvas.getSizeCanvasW());
+        int height = Math.max(1, canvas.getSizeCanvasH());
+        while (pool.remainingCapacity() > 0) {
+            pool.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+        }
+
+        for (int i = 0; i < encoders.length; i++) {
+            encoders[i] = new Thread(this::encode, "frame-encoder-" + i);
+            encoders[i].setDaemon(true);
+            encoders[i].start();
+        }
+
+        clock = 0;
+        nextFrameAt = 0;
+        canvas.setRecorder(this);
+        capture();
+    }
+
+    /**
+     * Deja de grabar, espera a que se escriban todos los cuadros pendientes y
+     * desengancha el grabador del canvas.
+     *
+     * @return número de cuadros escritos
+     * @throws IOException si el codificador falló al escribir algún cuadro
+     */
+    public int stop() throws IOException {
+        canvas.setRecorder(null);
+        boolean interrupted = false;
+        for (int i = 0; i < encoders.length; i++) {
+            if (encoders[i] != null)
+                putUninterruptibly(Frame.END);
+        }
+        for (int i = 0; i < encoders.length; i++) {
+            while (encoders[i] != null && encoders[i].isAlive()) {
+                try {
+                    encoders[i].join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            encoders[i] = null;
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        if (failure != null)
+            throw failure;
+
+        for (int[] repeat : repeats) {
+            Files.copy(frameFile(repeat[1]).toPath(), frameFile(repeat[0]).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        repeats.clear();
+        return frameCount;
+    }
+
+    /**
+     * @return tiempo lógico grabado hasta ahora, en ms
+     */
+    public long getClock() {
+        return clock;
+    }
+
+    /**
+     * Avanza el reloj lógico (lo llama el canvas en lugar de dormir) y captura
+     * los cuadros cuyo instante quedó atrás.
+     *
+     * @param milliseconds tiempo lógico transcurrido
+     */
+    void advance(int milliseconds) {
+        clock += Math.max(0, milliseconds);
+        while (nextFrameAt <= clock && failure == null) {
+            capture();
+        }
+    }
+
+    /**
+     * Copia el lienzo actual a un cuadro del pool (esperando si el
+     * codificador va atrasado) y lo encola; si nada cambió desde el último
+     * cuadro solo anota que debe copiarse de él.
+     */
+    private void capture() {
+        int index = frameCount++;
+        nextFrameAt += frameMillis;
+        long version = canvas.getVersion();
+        if (version == capturedVersion && index > 0) {
+            repeats.add(new int[] { index, lastUniqueFrame });
+            return;
+        }
+        capturedVersion = version;
+        lastUniqueFrame = index;
+
+        BufferedImage image = takeUninterruptibly();
+        Graphics2D g = image.createGraphics();
+        canvas.copyFrame(g, image.getWidth(), image.getHeight());
+        g.dispose();
+        putUninterruptibly(new Frame(index, image));
+    }
+
+    /**
+     * Bucle de cada hilo codificador: escribe cada cuadro como PNG y devuelve
+     * su imagen al pool.
+     */
+    private void encode() {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (param.canWriteCompressed()) {
+            // Compresión rápida: priorizamos velocidad sobre tamaño del archivo
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.9f);
+        }
+        try {
+            while (true) {
+                Frame frame;
+                try {
+                    frame = pending.take();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (frame == Frame.END)
+                    return;
+
+                if (failure == null) {
+                    File file = frameFile(frame.index);
+                    file.delete(); // el stream no trunca un archivo existente
+                    try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+                        writer.setOutput(out);
+                        writer.write(null, new IIOImage(frame.image, null, null), param);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                pool.offer(frame.image);
+            }
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * @param index número de cuadro
+     * @return archivo PNG del cuadro
+     */
+    private File frameFile(int index) {
+        return new File(directory, String.format("frame_%05d.png", index));
+    }
+
+    /**
+     * @return imagen libre del pool (bloquea mientras no haya)
+     */
+    private BufferedImage takeUninterruptibly() {
+        while (true) {
+            try {
+                return pool.take();
+            } catch (InterruptedException e) {
+                // se reintenta: el cuadro no puede perderse
+            }
+        }
+    }
+
+    /**
+     * @param frame cuadro a encolar (bloquea mientras la cola esté llena)
+     */
+    private void putUninterruptibly(Frame frame) {
+        while (true) {
+            try {
+                pending.put(frame);
+                return;
+            } catch (InterruptedException e) {
+                // se reintenta: el cuadro no puede perderse
+            }
+        }
+    }
+
+    /**
+     * Cuadro encolado: índice e imagen capturada.
+     */
+    private static class Frame {
+        static final Frame END = new Frame(-1, null);
+
+        final int index;
+        final BufferedImage image;
+
+        Frame(int index, BufferedImage image) {
+            this.index = index;
+            this.image = image;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package shapes;
+
+import java.util.*;
+
+/**
+ * Group es un nodo compuesto: agrupa varias figuras (hijas) que se dibujan
+ * como una sola entrada del {@link Canvas}.
+ * La posición de cada hija se interpreta como un offset relativo al origen
+ * del grupo, así que mover el grupo es una sola actualización de posición y
+ * un solo redibujo, sin tocar las hijas.
+ *
+ * Las hijas deben permanecer invisibles por sí mismas (no se registran en el
+ * canvas); es el grupo quien las dibuja.
+ */
+public class Group extends Shape {
+
+    private final List<Shape> children;
+    private String spriteKey; // null => se dibujan las hijas una a una
+
+    /**
+     * Crea un grupo vacío en (0,0), invisible.
+     */
+    public Group() {
+        super(0, 0, "black");
+        this.children = new ArrayList<>();
+    }
+
+    /**
+     * Agrega una figura al grupo. Su posición actual pasa a ser su offset
+     * respecto al origen del grupo.
+     *
+     * @param child figura hija (invisible)
+     */
+    public void add(Shape child) {
+        children.add(child);
+        draw();
+    }
+
+    /**
+     * @return figuras hijas en orden de dibujo (solo lectura)
+     */
+    public List<Shape> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * @return cantidad de hijas
+     */
+    int childCount() {
+        return children.size();
+    }
+
+    /**
+     * Acceso por índice para recorrer las hijas al dibujar sin crear vistas ni
+     * iteradores.
+     *
+     * @param index posición en el orden de dibujo
+     * @return hija en esa posición
+     */
+    Shape childAt(int index) {
+        return children.get(index);
+    }
+
+    /**
+     * Asigna la clave de apariencia con la que el grupo se pre-renderiza en
+     * {@link SpriteCache}. Debe cambiar cada vez que cambie el aspecto de las
+     * hijas (por ejemplo, el color). Con null el grupo se dibuja figura a
+     * figura.
+     *
+     * @param spriteKey clave (tipo, color, tamaño) o null
+     */
+    public void setSpriteKey(String spriteKey) {
+        this.spriteKey = spriteKey;
+    }
+
+    /**
+     * @return clave de apariencia actual (puede ser null)
+     */
+    public String getSpriteKey() {
+        return spriteKey;
+    }
+
+    /**
+     * Reposiciona el grupo completo (una sola actualización y un solo dibujo).
+     *
+     * @param x nueva X del origen
+     * @param y nueva Y del origen
+     */
+    public void setPosition(int x, int y) {
+        xPosition = x;
+        yPosition = y;
+        draw();
+    }
+
+    /**
+     * Vuelve a dibujar el grupo; útil tras cambiar el color o el tamaño de una
+     * hija.
+     */
+    public void redraw() {
+        draw();
+    }
+
+    /**
+     * Dibuja el grupo completo si está visible.
+     */
+    @Override
+    protected void draw() {
+        if (isVisible) {
+            Canvas canvas = Canvas.getCanvas();
+            canvas.draw(this, this);
+            canvas.wait(10);
+        }
+    }
+
+    /**
+     * Borra el grupo completo si está visible.
+     */
+    @Override
+    protected void erase() {
+        if (isVisible) {
+            Canvas canvas = Canvas.getCanvas();
+            canvas.erase(this);
+        }
+    }
+
+    /**
+     * @return rectángulo que envuelve a todas las hijas, en coordenadas del
+     *         lienzo
+     */
+    @Override
+    protected java.awt.Shape getGeometry() {
+        java.awt.Rectangle bounds = null;
+        for (Shape child : children) {
+            java.awt.Rectangle b = child.getGeometry().getBounds();
+            bounds = bounds == null ? b : bounds.union(b);
+        }
+        if (bounds == null)
+            bounds = new java.awt.Rectangle();
+        bounds.translate(xPosition, yPosition);
+        return bounds;
+    }
+}
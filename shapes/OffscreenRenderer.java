@@ -0,0 +1,122 @@
+package shapes;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * OffscreenRenderer pinta el contenido actual del {@link Canvas} en imágenes
+ * en memoria, sin ventana, y las guarda como PNG.
+ * La imagen se ajusta al tamaño de la escena (el rectángulo que envuelve las
+ * formas registradas). Para escenas grandes se pinta por mosaicos de tamaño
+ * fijo reutilizando una sola imagen, de modo que la memoria no crece con la
+ * longitud de la ruta.
+ */
+public class OffscreenRenderer {
+
+    /** Lado por defecto (en px) de cada mosaico. */
+    public static final int DEFAULT_TILE_SIZE = 1024;
+
+    private final Canvas canvas;
+    private final int tileSize;
+    private BufferedImage tile; // se reutiliza entre mosaicos
+
+    /**
+     * Crea un renderizador sobre el canvas actual con mosaicos por defecto.
+     */
+    public OffscreenRenderer() {
+        this(DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Crea un renderizador sobre el canvas actual.
+     *
+     * @param tileSize lado de cada mosaico en px (mínimo 1)
+     */
+    public OffscreenRenderer(int tileSize) {
+        this.canvas = Canvas.getCanvas();
+        this.tileSize = Math.max(1, tileSize);
+    }
+
+    /**
+     * Pinta la escena completa en una sola imagen del tamaño de la escena.
+     *
+     * @return imagen con la escena (1x1 si no hay formas)
+     */
+    public BufferedImage render() {
+        java.awt.Rectangle scene = canvas.getSceneBounds();
+        BufferedImage image = new BufferedImage(Math.max(1, scene.width), Math.max(1, scene.height),
+                BufferedImage.TYPE_INT_RGB);
+        paint(image, scene.x, scene.y);
+        return image;
+    }
+
+    /**
+     * Guarda la escena completa en un único PNG.
+     *
+     * @param file archivo destino
+     * @throws IOException si no se puede escribir
+     */
+    public void writePng(File file) throws IOException {
+        ImageIO.write(render(), "png", file);
+    }
+
+    /**
+     * Guarda la escena como una rejilla de PNG llamados
+     * prefix_fila_columna.png. Solo se mantiene en memoria un mosaico a la
+     * vez.
+     *
+     * @param directory carpeta destino (se crea si no existe)
+     * @param prefix    prefijo de los archivos
+     * @return número de mosaicos escritos
+     * @throws IOException si no se puede escribir algún mosaico
+     */
+    public int writeTiles(File directory, String prefix) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("No se pudo crear la carpeta " + directory);
+
+        java.awt.Rectangle scene = canvas.getSceneBounds();
+        int columns = Math.max(1, (scene.width + tileSize - 1) / tileSize);
+        int rows = Math.max(1, (scene.height + tileSize - 1) / tileSize);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int x = scene.x + column * tileSize;
+                int y = scene.y + row * tileSize;
+                int w = Math.max(1, Math.min(tileSize, scene.x + scene.width - x));
+                int h = Math.max(1, Math.min(tileSize, scene.y + scene.height - y));
+                BufferedImage image = tileImage();
+                paint(image, x, y);
+                // Los mosaicos del borde se recortan a su tamaño real
+                BufferedImage out = w == tileSize && h == tileSize ? image : image.getSubimage(0, 0, w, h);
+                ImageIO.write(out, "png", new File(directory, prefix + "_" + row + "_" + column + ".png"));
+            }
+        }
+        return rows * columns;
+    }
+
+    /**
+     * @return imagen reutilizable del tamaño de un mosaico
+     */
+    private BufferedImage tileImage() {
+        if (tile == null)
+            tile = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+        return tile;
+    }
+
+    /**
+     * Pinta en la imagen el área del lienzo que empieza en (x,y) y mide lo
+     * mismo que la imagen.
+     *
+     * @param image imagen destino
+     * @param x     X del área en el lienzo
+     * @param y     Y del área en el lienzo
+     */
+    private void paint(BufferedImage image, int x, int y) {
+        Graphics2D g = image.createGraphics();
+        g.translate(-x, -y);
+        canvas.paintScene(g, new java.awt.Rectangle(x, y, image.getWidth(), image.getHeight()));
+        g.dispose();
+    }
+}
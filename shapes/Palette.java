@@ -0,0 +1,73 @@
+package shapes;
+
+import java.awt.Color;
+import java.util.*;
+
+/**
+ * Palette es la tabla precalculada de colores con nombre que entiende el
+ * {@link Canvas}. Cada nombre se traduce una sola vez a un id entero y el
+ * render solo indexa el arreglo de colores: sin comparar cadenas ni crear
+ * objetos {@link Color} en cada cuadro.
+ */
+public final class Palette {
+
+    /** Id usado para nombres desconocidos (se dibujan en negro). */
+    public static final int UNKNOWN = 0;
+
+    private static final String[] NAMES = {
+            "black", "red", "blue", "yellow", "green", "magenta", "white", "purple",
+            "orange", "pink", "cyan", "brown", "lightgray", "indigo", "gold", "salmon",
+            "beige", "ivory", "sunsetorange", "desertsand", "reddirt", "sage",
+            "terracottared", "amber" };
+
+    private static final Color[] COLORS = {
+            Color.black, Color.red, Color.blue, Color.yellow, Color.green, Color.magenta,
+            Color.white, new Color(128, 0, 128), Color.orange, Color.pink, Color.cyan,
+            new Color(139, 69, 19), Color.lightGray, new Color(75, 0, 130),
+            new Color(255, 215, 0), new Color(250, 128, 114), new Color(245, 245, 220),
+            new Color(255, 255, 240), new Color(255, 97, 56), new Color(237, 201, 175),
+            new Color(233, 91, 33), new Color(188, 184, 137), new Color(226, 114, 91),
+            new Color(255, 191, 0) };
+
+    private static final Map<String, Integer> IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < NAMES.length; i++) {
+            IDS.put(NAMES[i], i);
+        }
+    }
+
+    private Palette() {
+    }
+
+    /**
+     * Traduce un nombre de color a su id en la paleta (sin distinguir
+     * mayúsculas). Pensado para llamarse al cambiar el color, no al dibujar.
+     *
+     * @param colorString nombre de color
+     * @return id del color, o {@link #UNKNOWN} si no existe
+     */
+    public static int idOf(String colorString) {
+        if (colorString == null)
+            return UNKNOWN;
+        Integer id = IDS.get(colorString);
+        if (id == null)
+            id = IDS.get(colorString.toLowerCase());
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * @param id id de la paleta
+     * @return color AWT precalculado (negro si el id no es válido)
+     */
+    public static Color colorOf(int id) {
+        return id >= 0 && id < COLORS.length ? COLORS[id] : COLORS[UNKNOWN];
+    }
+
+    /**
+     * @return número de colores de la paleta
+     */
+    public static int size() {
+        return COLORS.length;
+    }
+}
@@ -11,6 +11,7 @@ public class Rectangle extends Shape {
 
     private int height;
     private int width;
+    private final java.awt.Rectangle geometry = new java.awt.Rectangle(); // se reutiliza
 
     /**
      * Crea un rectángulo con valores por defecto (posición 0,0; color magenta).
@@ -151,6 +152,7 @@ public class Rectangle extends Shape {
     @Override
     public void changeColor(String newColor) {
         color = newColor;
+        resolveColor();
         draw();
     }
 
@@ -161,12 +163,21 @@ public class Rectangle extends Shape {
     protected void draw() {
         if (isVisible) {
             Canvas canvas = Canvas.getCanvas();
-            canvas.draw(this, color,
-                    new java.awt.Rectangle(xPosition, yPosition, width, height));
+            canvas.draw(this, colorId(), getGeometry());
             canvas.wait(10);
         }
     }
 
+    /**
+     * @return rectángulo AWT en la posición actual (la misma instancia en cada
+     *         llamada)
+     */
+    @Override
+    protected java.awt.Shape getGeometry() {
+        geometry.setBounds(xPosition, yPosition, width, height);
+        return geometry;
+    }
+
     /**
      * Borra la figura si está visible.
      */
@@ -231,6 +242,7 @@ public class Rectangle extends Shape {
      */
     public void setColor(String color) {
         this.color = color;
+        resolveColor();
     }
 
     /**
@@ -11,6 +11,9 @@ public abstract class Shape {
     protected int yPosition;
     protected String color;
     protected boolean isVisible;
+    private int colorId; // id en la Palette del color actual
+    private String resolvedColor; // cadena con la que se calculó colorId
+    Canvas.ShapeDescription description; // registro en el Canvas (se crea una sola vez)
 
     /**
      * Constructor por defecto que inicializa la figura como invisible.
@@ -56,9 +59,33 @@ public abstract class Shape {
      */
     public void changeColor(String newColor) {
         color = newColor;
+        resolveColor();
         draw();
     }
 
+    /**
+     * Traduce el color actual a su id de la {@link Palette}. Se llama al
+     * cambiar el color para que el render no tenga que trabajar con cadenas.
+     */
+    protected final void resolveColor() {
+        colorId = Palette.idOf(color);
+        resolvedColor = color;
+    }
+
+    /**
+     * Devuelve el id de paleta del color actual. Si el campo color se asignó
+     * directamente (sin changeColor) se resuelve aquí una única vez; después
+     * solo se compara la referencia.
+     *
+     * @return id del color en la paleta
+     */
+    protected final int colorId() {
+        if (color != resolvedColor) {
+            resolveColor();
+        }
+        return colorId;
+    }
+
     /**
      * Mueve la figura horizontalmente.
      * 
@@ -168,4 +195,14 @@ public abstract class Shape {
      * para borrarse del canvas.
      */
     protected abstract void erase();
+
+    /**
+     * Geometría AWT de la figura en su posición actual. Dentro de un
+     * {@link Group} la posición se interpreta relativa al origen del grupo.
+     * Las figuras devuelven siempre el mismo objeto, actualizado en el lugar;
+     * quien necesite conservarlo debe copiarlo.
+     *
+     * @return forma AWT a rellenar
+     */
+    protected abstract java.awt.Shape getGeometry();
 }
@@ -0,0 +1,124 @@
+package shapes;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+
+/**
+ * SpriteCache guarda la imagen pre-renderizada de cada apariencia de
+ * {@link Group} (por ejemplo "Robot:red:15"). Cada apariencia se rasteriza una
+ * sola vez en una {@link BufferedImage} compatible con la configuración
+ * gráfica de la pantalla; luego el canvas solo hace un drawImage por objeto.
+ *
+ * La clave debe describir completamente la apariencia del grupo (tipo, color y
+ * tamaño): si las hijas cambian sin cambiar la clave se seguirá usando la
+ * imagen anterior.
+ */
+public final class SpriteCache {
+
+    private static final Map<String, Sprite> sprites = new HashMap<>();
+
+    private SpriteCache() {
+    }
+
+    /**
+     * Devuelve la imagen de la apariencia dada, rasterizándola a partir del
+     * grupo la primera vez.
+     *
+     * @param key   clave de apariencia (tipo, color, tamaño)
+     * @param group grupo que se usa como modelo si aún no hay imagen
+     * @return sprite con la imagen y su offset respecto al origen del grupo
+     */
+    static Sprite get(String key, Group group) {
+        Sprite sprite = sprites.get(key);
+        if (sprite == null) {
+            sprite = rasterize(group);
+            sprites.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    /**
+     * @return número de apariencias en caché
+     */
+    public static int size() {
+        return sprites.size();
+    }
+
+    /**
+     * Olvida todas las imágenes (se volverán a rasterizar al dibujar).
+     */
+    public static void clear() {
+        sprites.clear();
+    }
+
+    /**
+     * Dibuja las hijas del grupo, relativas a su origen, en una imagen
+     * transparente del tamaño justo.
+     *
+     * @param group grupo modelo
+     * @return sprite resultante
+     */
+    private static Sprite rasterize(Group group) {
+        java.awt.Rectangle bounds = null;
+        for (Shape child : group.getChildren()) {
+            java.awt.Rectangle b = child.getGeometry().getBounds();
+            bounds = bounds == null ? b : bounds.union(b);
+        }
+        if (bounds == null)
+            bounds = new java.awt.Rectangle(0, 0, 1, 1);
+
+        // +1 porque el contorno (draw) pinta un píxel más a la derecha y abajo
+        int width = Math.max(1, bounds.width + 1);
+        int height = Math.max(1, bounds.height + 1);
+        BufferedImage image = createCompatibleImage(width, height);
+
+        Graphics2D g = image.createGraphics();
+        g.translate(-bounds.x, -bounds.y);
+        for (Shape child : group.getChildren()) {
+            java.awt.Shape geometry = child.getGeometry();
+            g.setColor(Palette.colorOf(child.colorId()));
+            g.draw(geometry);
+            g.fill(geometry);
+        }
+        g.dispose();
+        return new Sprite(image, bounds.x, bounds.y);
+    }
+
+    /**
+     * Crea una imagen translúcida compatible con la pantalla (evita
+     * conversiones al copiarla); sin pantalla usa ARGB estándar.
+     *
+     * @param width  ancho en px
+     * @param height alto en px
+     * @return imagen vacía y transparente
+     */
+    private static BufferedImage createCompatibleImage(int width, int height) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            return config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Imagen pre-renderizada y su offset respecto al origen del grupo.
+     */
+    static class Sprite {
+        final BufferedImage image;
+        final int offsetX;
+        final int offsetY;
+
+        /**
+         * @param image   imagen rasterizada
+         * @param offsetX X de la esquina de la imagen relativa al grupo
+         * @param offsetY Y de la esquina de la imagen relativa al grupo
+         */
+        Sprite(BufferedImage image, int offsetX, int offsetY) {
+            this.image = image;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+        }
+    }
+}
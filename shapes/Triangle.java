@@ -13,6 +13,7 @@ public class Triangle extends Shape {
 
     private int height;
     private int width;
+    private final Polygon geometry = new Polygon(new int[3], new int[3], 3); // se reutiliza
 
     /**
      * Crea un triángulo con dimensiones y posición por defecto.
@@ -141,6 +142,7 @@ public class Triangle extends Shape {
     @Override
     public void changeColor(String newColor) {
         color = newColor;
+        resolveColor();
         draw();
     }
 
@@ -151,13 +153,27 @@ public class Triangle extends Shape {
     protected void draw() {
         if (isVisible) {
             Canvas canvas = Canvas.getCanvas();
-            int[] xpoints = { xPosition, xPosition + (width / 2), xPosition - (width / 2) };
-            int[] ypoints = { yPosition, yPosition + height, yPosition + height };
-            canvas.draw(this, color, new Polygon(xpoints, ypoints, 3));
+            canvas.draw(this, colorId(), getGeometry());
             canvas.wait(10);
         }
     }
 
+    /**
+     * @return polígono AWT (vértice superior y base) en la posición actual (la
+     *         misma instancia en cada llamada)
+     */
+    @Override
+    protected java.awt.Shape getGeometry() {
+        geometry.xpoints[0] = xPosition;
+        geometry.xpoints[1] = xPosition + (width / 2);
+        geometry.xpoints[2] = xPosition - (width / 2);
+        geometry.ypoints[0] = yPosition;
+        geometry.ypoints[1] = yPosition + height;
+        geometry.ypoints[2] = yPosition + height;
+        geometry.invalidate(); // descarta los límites calculados antes
+        return geometry;
+    }
+
     /**
      * Borra del lienzo si está visible.
      */
@@ -0,0 +1,187 @@
+package silkroad;
+
+import shapes.*;
+import java.util.*;
+
+/**
+ * Línea de tiempo que anima a la vez todos los movimientos pendientes de los
+ * robots.
+ * Cada robot tiene una pista con las casillas que debe recorrer (puede tener
+ * varios tramos seguidos). Un único reloj de render avanza todas las pistas en
+ * cada cuadro, interpolando entre casillas, y el canvas se redibuja una sola
+ * vez por cuadro. Así el tiempo total queda acotado por el recorrido más largo
+ * y no por la suma de todos los recorridos.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class AnimationTimeline {
+    private static final int SUBSTEPS_PER_CELL = 4; // cuadros por casilla
+    private static final int FRAME_MILLIS = 15; // duración de un cuadro
+
+    private final Map<RobotAbstracto, Track> tracks;
+
+    /**
+     * Crea una línea de tiempo vacía.
+     */
+    public AnimationTimeline() {
+        this.tracks = new LinkedHashMap<>();
+    }
+
+    /**
+     * Agrega un tramo a la pista del robot: desde la casilla from avanza
+     * meters casillas siguiendo la espiral. Si el robot ya tenía tramos, este
+     * se encadena al final.
+     *
+     * @param robot  robot a animar
+     * @param from   casilla de partida del tramo
+     * @param meters desplazamiento (positivo o negativo)
+     */
+    public void addLeg(RobotAbstracto robot, int from, int meters) {
+        if (robot == null || meters == 0)
+            return;
+
+        Track track = tracks.get(robot);
+        if (track == null) {
+            track = new Track(robot, from);
+            tracks.put(robot, track);
+        }
+        int step = meters > 0 ? 1 : -1;
+        for (int i = 1; i <= Math.abs(meters); i++) {
+            track.add(from + i * step);
+        }
+    }
+
+    /**
+     * @return true si no hay movimientos pendientes
+     */
+    public boolean isEmpty() {
+        return tracks.isEmpty();
+    }
+
+    /**
+     * Reproduce todos los tramos pendientes a la vez, cuadro a cuadro, y vacía
+     * la línea de tiempo.
+     *
+     * @param positions matriz de posiciones (x,y) por índice de celda
+     */
+    public void play(int[][] positions) {
+        render(positions, true);
+    }
+
+    /**
+     * Lleva todos los robots directamente al final de su pista en un solo
+     * cuadro (modo rápido) y vacía la línea de tiempo.
+     *
+     * @param positions matriz de posiciones (x,y) por índice de celda
+     */
+    public void jumpToEnd(int[][] positions) {
+        render(positions, false);
+    }
+
+    /**
+     * Recorre el reloj de render desde el primer cuadro (o directamente el
+     * último) hasta que todas las pistas terminan.
+     *
+     * @param positions matriz de posiciones (x,y) por índice de celda
+     * @param animated  false para dibujar solo el cuadro final
+     */
+    private void render(int[][] positions, boolean animated) {
+        if (tracks.isEmpty())
+            return;
+
+        for (Track track : tracks.values()) {
+            track.computeOffset(positions);
+        }
+
+        int totalFrames = 0;
+        for (Track track : tracks.values()) {
+            totalFrames = Math.max(totalFrames, track.size() * SUBSTEPS_PER_CELL);
+        }
+
+        Canvas canvas = Canvas.getCanvas();
+        for (int frame = animated ? 1 : totalFrames; frame <= totalFrames; frame++) {
+            canvas.startBatch();
+            for (Track track : tracks.values()) {
+                int last = track.size() * SUBSTEPS_PER_CELL;
+                if (!animated)
+                    track.placeAt(last, positions);
+                else if (frame <= last)
+                    track.placeAt(frame, positions); // Las pistas cortas ya terminaron
+            }
+            canvas.endBatch();
+            if (animated)
+                canvas.wait(FRAME_MILLIS);
+        }
+        tracks.clear();
+    }
+
+    /**
+     * Pista de un robot: casilla inicial, casillas a recorrer y offset del
+     * robot dentro de la celda.
+     */
+    private static class Track {
+        private final RobotAbstracto robot;
+        private final int start;
+        private int[] cells;
+        private int size;
+        private int offsetX;
+        private int offsetY;
+
+        /**
+         * @param robot robot dueño de la pista
+         * @param start casilla de partida
+         */
+        Track(RobotAbstracto robot, int start) {
+            this.robot = robot;
+            this.start = start;
+            this.cells = new int[8];
+            this.size = 0;
+        }
+
+        /**
+         * @param cell siguiente casilla del recorrido
+         */
+        void add(int cell) {
+            if (size == cells.length)
+                cells = Arrays.copyOf(cells, size * 2);
+            cells[size++] = cell;
+        }
+
+        /**
+         * @return número de casillas a recorrer
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Calcula el offset actual del robot respecto a su casilla inicial
+         * (se conserva durante todo el recorrido).
+         *
+         * @param positions matriz de posiciones por celda
+         */
+        void computeOffset(int[][] positions) {
+            offsetX = robot.getX() - positions[start][0];
+            offsetY = robot.getY() - positions[start][1];
+        }
+
+        /**
+         * Coloca al robot en el punto interpolado que corresponde al cuadro.
+         *
+         * @param frame     cuadro actual (de 1 a size * SUBSTEPS_PER_CELL)
+         * @param positions matriz de posiciones por celda
+         */
+        void placeAt(int frame, int[][] positions) {
+            int index = (frame - 1) / SUBSTEPS_PER_CELL; // casilla destino del tramo actual
+            int sub = (frame - 1) % SUBSTEPS_PER_CELL + 1;
+            int fromCell = index == 0 ? start : cells[index - 1];
+            int toCell = cells[index];
+
+            int x = positions[fromCell][0]
+                    + (positions[toCell][0] - positions[fromCell][0]) * sub / SUBSTEPS_PER_CELL;
+            int y = positions[fromCell][1]
+                    + (positions[toCell][1] - positions[fromCell][1]) * sub / SUBSTEPS_PER_CELL;
+            robot.placeTo(x + offsetX, y + offsetY);
+        }
+    }
+}
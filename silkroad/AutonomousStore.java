@@ -29,15 +29,7 @@ public class AutonomousStore extends StoreAbstracto {
         this.sizeTriangle = 20;
         this.color = getRandomColor();
 
-        base = new Rectangle();
-        base.changeColor(color);
-        base.changeSize(sizeRectangle / 2, sizeRectangle);
-        base.setPosition(positionX, positionY);
-
-        roof = new Triangle();
-        roof.changeColor("brown");
-        roof.changeSize(sizeTriangle / 2, sizeTriangle);
-        roof.setPosition(positionX + 10, positionY - sizeTriangle / 2);
+        initializeVisualParts(); // Construye base y techo agrupados
         if (visible) {
             makeVisible();
         }
@@ -54,6 +46,7 @@ public class AutonomousStore extends StoreAbstracto {
     public void changeColor(String newColor) {
         this.color = newColor;
         base.changeColor(newColor);
+        refreshBody();
     }
 
     /**
@@ -63,8 +56,7 @@ public class AutonomousStore extends StoreAbstracto {
     @Override
     public void makeVisible() {
         if (!isVisible) {
-            base.makeVisible();
-            roof.makeVisible();
+            body.makeVisible();
             isVisible = true;
         }
     }
@@ -76,8 +68,7 @@ public class AutonomousStore extends StoreAbstracto {
     @Override
     public void makeInvisible() {
         if (isVisible) {
-            base.makeInvisible();
-            roof.makeInvisible();
+            body.makeInvisible();
             isVisible = false;
         }
     }
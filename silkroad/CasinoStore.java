@@ -38,15 +38,7 @@ public class CasinoStore extends StoreAbstracto {
         this.color = "magenta"; // Color especial para distinguirla (magenta = casino/suerte)
         this.random = new Random();
 
-        base = new Rectangle();
-        base.changeColor(color);
-        base.changeSize(sizeRectangle / 2, sizeRectangle);
-        base.setPosition(positionX, positionY);
-
-        roof = new Triangle();
-        roof.changeColor("brown");
-        roof.changeSize(sizeTriangle / 2, sizeTriangle);
-        roof.setPosition(positionX + 10, positionY - sizeTriangle / 2);
+        initializeVisualParts(); // Construye base y techo agrupados
         if (visible) {
             makeVisible();
         }
@@ -63,6 +55,7 @@ public class CasinoStore extends StoreAbstracto {
     public void changeColor(String newColor) {
         this.color = newColor;
         base.changeColor(newColor);
+        refreshBody();
     }
 
     /**
@@ -72,8 +65,7 @@ public class CasinoStore extends StoreAbstracto {
     @Override
     public void makeVisible() {
         if (!isVisible) {
-            base.makeVisible();
-            roof.makeVisible();
+            body.makeVisible();
             isVisible = true;
         }
     }
@@ -85,8 +77,7 @@ public class CasinoStore extends StoreAbstracto {
     @Override
     public void makeInvisible() {
         if (isVisible) {
-            base.makeInvisible();
-            roof.makeInvisible();
+            body.makeInvisible();
             isVisible = false;
         }
     }
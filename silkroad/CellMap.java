@@ -0,0 +1,164 @@
+package silkroad;
+
+/**
+ * Mapa casilla → valor con tipos primitivos (direccionamiento abierto con
+ * sondeo lineal). Sirve para guardar solo las casillas ocupadas de rutas muy
+ * largas sin crear un objeto por entrada. Las casillas son enteros &gt;= 0.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+final class CellMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Crea un mapa vacío.
+     */
+    CellMap() {
+        this(8);
+    }
+
+    /**
+     * @param expected número de entradas esperadas (evita redimensionar)
+     */
+    CellMap(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * @return número de entradas
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param cell casilla
+     * @return true si la casilla tiene valor
+     */
+    boolean containsKey(int cell) {
+        return keys[find(cell)] != EMPTY;
+    }
+
+    /**
+     * @param cell    casilla
+     * @param missing valor a devolver si la casilla no está
+     * @return valor de la casilla o missing
+     */
+    int get(int cell, int missing) {
+        int slot = find(cell);
+        return keys[slot] == EMPTY ? missing : values[slot];
+    }
+
+    /**
+     * Guarda (o reemplaza) el valor de una casilla.
+     *
+     * @param cell  casilla (&gt;= 0)
+     * @param value valor
+     */
+    void put(int cell, int value) {
+        int slot = find(cell);
+        if (keys[slot] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+                slot = find(cell);
+            }
+            keys[slot] = cell;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Elimina una casilla. Las entradas siguientes del mismo grupo se corren
+     * hacia atrás para no dejar huecos en el sondeo.
+     *
+     * @param cell    casilla
+     * @param missing valor a devolver si la casilla no está
+     * @return valor que tenía la casilla o missing
+     */
+    int remove(int cell, int missing) {
+        int slot = find(cell);
+        if (keys[slot] == EMPTY)
+            return missing;
+        int old = values[slot];
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]);
+            // La entrada puede ocupar el hueco si su posición ideal no está
+            // entre el hueco y su posición actual
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return old;
+    }
+
+    /**
+     * @return casillas guardadas, sin orden
+     */
+    int[] keys() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int key : keys) {
+            if (key != EMPTY)
+                result[n++] = key;
+        }
+        return result;
+    }
+
+    /**
+     * Vacía el mapa.
+     */
+    void clear() {
+        java.util.Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private int find(int cell) {
+        int slot = hash(cell);
+        while (keys[slot] != EMPTY && keys[slot] != cell) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int hash(int cell) {
+        int h = cell * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        java.util.Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
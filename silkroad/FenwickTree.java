@@ -0,0 +1,52 @@
+package silkroad;
+
+/**
+ * Árbol de Fenwick (árbol binario indexado) sobre las casillas: suma un
+ * valor en una casilla y responde sumas por rango, ambas en O(log n).
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+final class FenwickTree {
+    private final long[] tree; // índice 1..n
+
+    /**
+     * @param cells número de casillas
+     */
+    FenwickTree(int cells) {
+        tree = new long[cells + 1];
+    }
+
+    /**
+     * @param cell  casilla
+     * @param delta valor a sumar
+     */
+    void add(int cell, long delta) {
+        for (int i = cell + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @param a primera casilla (incluida)
+     * @param b última casilla (incluida)
+     * @return suma de [a, b] (0 si el rango es vacío)
+     */
+    long sum(int a, int b) {
+        a = Math.max(a, 0);
+        b = Math.min(b, tree.length - 2);
+        if (a > b)
+            return 0;
+        return prefix(b + 1) - prefix(a);
+    }
+
+    /**
+     * @return suma de las primeras count casillas
+     */
+    private long prefix(int count) {
+        long total = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            total += tree[i];
+        }
+        return total;
+    }
+}
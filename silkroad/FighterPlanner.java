@@ -0,0 +1,341 @@
+package silkroad;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Busca el mejor orden en que un robot visita las tiendas cuando algunas solo
+ * lo admiten si trae suficientes tenges (FighterStore exige más tenges que
+ * los de la tienda). Los tenges del robot son los iniciales más la ganancia
+ * acumulada (lo recolectado menos la distancia), así que visitar primero
+ * tiendas fáciles le permite entrar después a las difíciles.
+ *
+ * La búsqueda es de ramificación y poda:
+ * - Cota superior de una rama: ganancia actual más lo que queda por
+ * recolectar en las tiendas no visitadas, menos la distancia a la más cercana.
+ * - Dominancia: dos ramas que visitaron las mismas tiendas y están en la misma
+ * casilla solo difieren en los tenges del robot; la que tiene menos no puede
+ * terminar mejor, así que se descarta (se supone que la admisión de una tienda
+ * no empeora con más tenges, como en FighterStore).
+ * - Los primeros niveles del árbol se reparten como tareas de un ForkJoinPool,
+ * que roba trabajo entre núcleos; por debajo la búsqueda es secuencial.
+ * - Con un presupuesto de tiempo, al vencer se devuelve el mejor plan hallado.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class FighterPlanner {
+    /** Máximo de tiendas que se planifican (las visitadas se guardan en un long). */
+    public static final int MAX_STORES = 57;
+    private static final int SPLIT_DEPTH = 3; // niveles que se reparten en tareas
+    private static final int MEMO_CAPACITY = 1 << 20; // estados recordados como máximo
+    private static final int CLOCK_MASK = 1023; // se mira el reloj cada 1024 nodos
+
+    /**
+     * Regla de admisión de una tienda.
+     */
+    @FunctionalInterface
+    public interface Admission {
+        /**
+         * @param robotTenges tenges del robot al llegar
+         * @param storeTenges tenges de la tienda
+         * @return true si la tienda deja recolectar al robot
+         */
+        boolean admits(int robotTenges, int storeTenges);
+    }
+
+    /**
+     * Resultado de la búsqueda.
+     */
+    public static final class Plan {
+        private final int[] order;
+        private final long profit;
+        private final boolean complete;
+
+        private Plan(int[] order, long profit, boolean complete) {
+            this.order = order;
+            this.profit = profit;
+            this.complete = complete;
+        }
+
+        /**
+         * @return casillas de las tiendas en orden de visita
+         */
+        public int[] order() {
+            return order.clone();
+        }
+
+        /**
+         * @return ganancia del plan (recolectado menos distancia)
+         */
+        public long profit() {
+            return profit;
+        }
+
+        /**
+         * @return true si la búsqueda terminó (el plan es óptimo); false si
+         *         se agotó el tiempo
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    private final int start;
+    private final int initialTenges;
+    private final IntUnaryOperator collect;
+    private final int[] positions = new int[MAX_STORES];
+    private final int[] tenges = new int[MAX_STORES];
+    private final int[] value = new int[MAX_STORES]; // lo que el robot recolecta
+    private final Admission[] admission = new Admission[MAX_STORES];
+    private int size;
+
+    // Estado compartido de la búsqueda
+    private volatile long bestProfit;
+    private int[] bestOrder;
+    private ConcurrentHashMap<Long, Integer> memo;
+    private final AtomicInteger memoSize = new AtomicInteger();
+    private volatile long deadline;
+    private volatile boolean timedOut;
+
+    /**
+     * @param start         casilla del robot
+     * @param initialTenges tenges que ya tiene el robot
+     * @param collect       tenges que el robot toma de una tienda con t tenges
+     */
+    public FighterPlanner(int start, int initialTenges, IntUnaryOperator collect) {
+        this.start = start;
+        this.initialTenges = initialTenges;
+        this.collect = collect;
+    }
+
+    /**
+     * Agrega una tienda al plan.
+     *
+     * @param position  casilla de la tienda
+     * @param storeTenges tenges de la tienda
+     * @param admits    regla de admisión (p. ej. FighterStore::puedeRecibirRobot)
+     * @return false si ya hay MAX_STORES tiendas (la tienda se ignora)
+     */
+    public boolean addStore(int position, int storeTenges, Admission admits) {
+        if (size == MAX_STORES)
+            return false;
+        positions[size] = position;
+        tenges[size] = storeTenges;
+        value[size] = Math.max(0, collect.applyAsInt(storeTenges));
+        admission[size] = admits;
+        size++;
+        return true;
+    }
+
+    /**
+     * Busca el mejor orden de visita en el pool común.
+     *
+     * @param budgetMillis tiempo máximo (0 o negativo: sin límite)
+     * @return mejor plan hallado
+     */
+    public Plan plan(long budgetMillis) {
+        return plan(budgetMillis, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Busca el mejor orden de visita.
+     *
+     * @param budgetMillis tiempo máximo (0 o negativo: sin límite)
+     * @param pool         pool donde se reparten las ramas
+     * @return mejor plan hallado
+     */
+    public Plan plan(long budgetMillis, ForkJoinPool pool) {
+        deadline = budgetMillis > 0 ? System.nanoTime() + budgetMillis * 1_000_000L : Long.MAX_VALUE;
+        timedOut = false;
+        memo = new ConcurrentHashMap<>();
+        memoSize.set(0);
+        bestProfit = 0; // quedarse quieto
+        bestOrder = new int[0];
+        seedWithGreedy();
+
+        long remaining = 0;
+        for (int i = 0; i < size; i++) {
+            remaining += value[i];
+        }
+        pool.invoke(new Branch(0L, -1, initialTenges, 0, remaining, new int[0]));
+
+        int[] order = new int[bestOrder.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = positions[bestOrder[i]];
+        }
+        return new Plan(order, bestProfit, !timedOut);
+    }
+
+    /**
+     * Primera solución: ir siempre a la tienda admisible de mayor ganancia
+     * inmediata. Da una cota inicial para podar desde el principio.
+     */
+    private void seedWithGreedy() {
+        long visited = 0;
+        int at = start;
+        int held = initialTenges;
+        long profit = 0;
+        List<Integer> order = new ArrayList<>();
+        while (true) {
+            int best = -1;
+            long bestGain = 0;
+            for (int i = 0; i < size; i++) {
+                if ((visited & (1L << i)) != 0 || !admission[i].admits(held, tenges[i]))
+                    continue;
+                long gain = value[i] - (long) Math.abs(positions[i] - at);
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    best = i;
+                }
+            }
+            if (best == -1)
+                break;
+            visited |= 1L << best;
+            held = (int) (held + bestGain);
+            profit += bestGain;
+            at = positions[best];
+            order.add(best);
+        }
+        offer(profit, order.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private synchronized void offer(long profit, int[] order) {
+        if (profit > bestProfit) {
+            bestOrder = order;
+            bestProfit = profit;
+        }
+    }
+
+    /**
+     * @return true si otra rama ya llegó al mismo estado con al menos los
+     *         mismos tenges (si no, este estado queda registrado)
+     */
+    private boolean dominated(long visited, int at, int held) {
+        long key = (visited << 6) | (at + 1);
+        Integer seen = memo.get(key);
+        if (seen != null && seen >= held)
+            return true;
+        if (seen == null && memoSize.get() >= MEMO_CAPACITY)
+            return false; // memoria llena: se sigue sin recordar
+        while (true) {
+            seen = memo.putIfAbsent(key, held);
+            if (seen == null) {
+                memoSize.incrementAndGet();
+                return false;
+            }
+            if (seen >= held)
+                return true;
+            if (memo.replace(key, seen, held))
+                return false;
+        }
+    }
+
+    /**
+     * Rama de la búsqueda: tiendas visitadas, última tienda (-1 = inicio),
+     * tenges del robot, ganancia y valor aún disponible.
+     */
+    private final class Branch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long visited;
+        private final int at;
+        private final int held;
+        private final long profit;
+        private final long remaining;
+        private final int[] path;
+        private int nodes;
+
+        Branch(long visited, int at, int held, long profit, long remaining, int[] path) {
+            this.visited = visited;
+            this.at = at;
+            this.held = held;
+            this.profit = profit;
+            this.remaining = remaining;
+            this.path = path;
+        }
+
+        @Override
+        protected void compute() {
+            if (path.length >= SPLIT_DEPTH) {
+                int[] stack = Arrays.copyOf(path, size);
+                search(visited, at, held, profit, remaining, stack, path.length);
+                return;
+            }
+            if (!expandable(visited, at, held, profit, remaining, path, path.length))
+                return;
+            List<Branch> children = new ArrayList<>();
+            for (int i : candidates(visited, at, held)) {
+                int distance = Math.abs(positions[i] - position(at));
+                int[] next = Arrays.copyOf(path, path.length + 1);
+                next[path.length] = i;
+                long gain = value[i] - (long) distance;
+                children.add(new Branch(visited | (1L << i), i, (int) (held + gain), profit + gain,
+                        remaining - value[i], next));
+            }
+            invokeAll(children);
+        }
+
+        /**
+         * Búsqueda en profundidad secuencial bajo esta rama.
+         */
+        private void search(long visited, int at, int held, long profit, long remaining, int[] stack, int depth) {
+            if ((++nodes & CLOCK_MASK) == 0 && System.nanoTime() > deadline)
+                timedOut = true;
+            if (timedOut || !expandable(visited, at, held, profit, remaining, stack, depth))
+                return;
+            for (int i : candidates(visited, at, held)) {
+                long gain = value[i] - (long) Math.abs(positions[i] - position(at));
+                stack[depth] = i;
+                search(visited | (1L << i), i, (int) (held + gain), profit + gain, remaining - value[i], stack,
+                        depth + 1);
+            }
+        }
+
+        /**
+         * Registra la rama como solución y decide si vale la pena seguirla.
+         */
+        private boolean expandable(long visited, int at, int held, long profit, long remaining, int[] route,
+                int depth) {
+            if (profit > bestProfit)
+                offer(profit, Arrays.copyOf(route, depth));
+            if (timedOut || remaining == 0)
+                return false;
+            // Cota: todo lo que queda menos lo que cuesta llegar a la tienda más cercana
+            int nearest = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                if ((visited & (1L << i)) == 0)
+                    nearest = Math.min(nearest, Math.abs(positions[i] - position(at)));
+            }
+            if (profit + remaining - nearest <= bestProfit)
+                return false;
+            return depth == 0 || !dominated(visited, at, held);
+        }
+
+        /**
+         * Tiendas admisibles no visitadas, de mayor a menor ganancia inmediata.
+         */
+        private int[] candidates(long visited, int at, int held) {
+            int from = position(at);
+            Integer[] list = new Integer[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if ((visited & (1L << i)) == 0 && value[i] > 0 && admission[i].admits(held, tenges[i]))
+                    list[n++] = i;
+            }
+            Arrays.sort(list, 0, n, Comparator.comparingLong(i -> Math.abs(positions[i] - from) - (long) value[i]));
+            int[] result = new int[n];
+            for (int k = 0; k < n; k++) {
+                result[k] = list[k];
+            }
+            return result;
+        }
+    }
+
+    private int position(int store) {
+        return store == -1 ? start : positions[store];
+    }
+}
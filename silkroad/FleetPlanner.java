@@ -0,0 +1,265 @@
+package silkroad;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Planificador óptimo para flotas mixtas de robots. Cada robot tiene su propia
+ * regla de recolección (cuántos tenges toma de una tienda, p. ej. la mitad en
+ * un TenderRobot) y puede estar obligado a avanzar siempre en la misma
+ * dirección (NeverbackRobot). La ganancia de un robot es lo recolectado menos
+ * la distancia recorrida.
+ *
+ * Con robots y tiendas ordenados por posición, cada robot recorre un bloque
+ * contiguo de tiendas: va primero a un extremo del bloque y lo barre hasta el
+ * otro (un robot monótono solo puede barrer alejándose de su casilla). Una
+ * programación dinámica sobre (robots usados, tiendas cubiertas) elige los
+ * bloques en O(robots · tiendas), manteniendo en cada fila el mejor inicio de
+ * bloque para cada forma de recorrerlo. Los bloques se asignan en el mismo
+ * orden que los robots, lo que es exacto cuando todos comparten regla y una
+ * muy buena aproximación en flotas mixtas. Cada tienda se visita una vez.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class FleetPlanner {
+    // Forma de recorrer el bloque elegido
+    private static final int SKIP_STORE = 0; // la tienda queda sin visitar
+    private static final int IDLE = 1; // el robot no se mueve
+    private static final int LEFT_FIRST = 2; // al extremo izquierdo y barrer a la derecha
+    private static final int RIGHT_FIRST = 3; // al extremo derecho y barrer a la izquierda
+
+    private final int[] storePositions; // ordenadas
+    private final int[] storeTenges;
+    private final List<int[]> robots = new ArrayList<>(); // {posición, índice de regla, monótono}
+    private final List<IntUnaryOperator> rules = new ArrayList<>();
+    private final Map<IntUnaryOperator, Integer> ruleIds = new IdentityHashMap<>();
+
+    private long profit;
+    private int[][] routes; // por robot (orden de addRobot): casillas en orden de visita
+
+    /**
+     * @param storePositions casillas de las tiendas (distintas)
+     * @param storeTenges    tenges de cada tienda
+     */
+    public FleetPlanner(int[] storePositions, int[] storeTenges) {
+        Integer[] order = new Integer[storePositions.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> storePositions[i]));
+        this.storePositions = new int[order.length];
+        this.storeTenges = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            this.storePositions[i] = storePositions[order[i]];
+            this.storeTenges[i] = storeTenges[order[i]];
+        }
+    }
+
+    /**
+     * Agrega un robot. Los robots que comparten el mismo objeto de regla
+     * comparten también sus sumas de prefijos.
+     *
+     * @param position casilla del robot
+     * @param collect  tenges que toma de una tienda con t tenges
+     * @param monotone true si solo puede avanzar en una dirección
+     * @return índice del robot en el plan
+     */
+    public int addRobot(int position, IntUnaryOperator collect, boolean monotone) {
+        Integer rule = ruleIds.get(collect);
+        if (rule == null) {
+            rule = rules.size();
+            rules.add(collect);
+            ruleIds.put(collect, rule);
+        }
+        robots.add(new int[] { position, rule, monotone ? 1 : 0 });
+        routes = null;
+        return robots.size() - 1;
+    }
+
+    /**
+     * Calcula el mejor plan.
+     *
+     * @return ganancia total del plan
+     */
+    public long plan() {
+        int m = robots.size();
+        int n = storePositions.length;
+        Integer[] order = new Integer[m];
+        for (int i = 0; i < m; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> robots.get(i)[0]));
+
+        // Sumas de prefijos de lo recolectado, una por regla
+        long[][] prefix = new long[rules.size()][n + 1];
+        for (int r = 0; r < rules.size(); r++) {
+            for (int j = 0; j < n; j++) {
+                prefix[r][j + 1] = prefix[r][j] + Math.max(0, rules.get(r).applyAsInt(storeTenges[j]));
+            }
+        }
+
+        long[] previous = new long[n + 1];
+        long[] current = new long[n + 1];
+        int[][] how = new int[m + 1][n + 1]; // forma elegida
+        int[][] from = new int[m + 1][n + 1]; // inicio del bloque
+
+        for (int i = 1; i <= m; i++) {
+            int[] robot = robots.get(order[i - 1]);
+            long p = robot[0];
+            long[] pre = prefix[robot[1]];
+            boolean monotone = robot[2] == 1;
+            int firstRight = lowerBound(storePositions, robot[0]); // primera tienda >= p
+
+            // Mejores inicios k < j para cada forma (parte que depende de k)
+            long bestLeft = Long.MIN_VALUE, bestRight = Long.MIN_VALUE;
+            int argLeft = -1, argRight = -1;
+
+            current[0] = previous[0];
+            how[i][0] = IDLE;
+            for (int j = 1; j <= n; j++) {
+                int k = j - 1; // se incorpora el inicio k = j-1
+                long s = storePositions[k];
+                if (!monotone) {
+                    long left = previous[k] - pre[k] + s - Math.abs(p - s);
+                    if (left > bestLeft) {
+                        bestLeft = left;
+                        argLeft = k;
+                    }
+                    long right = previous[k] - pre[k] + s;
+                    if (right > bestRight) {
+                        bestRight = right;
+                        argRight = k;
+                    }
+                } else {
+                    // Barrer a la derecha: el bloque empieza en una tienda >= p
+                    long toRight = previous[k] - pre[k];
+                    if (k >= firstRight && toRight > bestLeft) {
+                        bestLeft = toRight;
+                        argLeft = k;
+                    }
+                    // Barrer a la izquierda: el bloque termina en una tienda <= p
+                    long toLeft = previous[k] - pre[k] + s;
+                    if (toLeft > bestRight) {
+                        bestRight = toLeft;
+                        argRight = k;
+                    }
+                }
+
+                long end = storePositions[j - 1];
+                long value = previous[j];
+                int choice = IDLE;
+                int start = -1;
+                if (current[j - 1] > value) {
+                    value = current[j - 1];
+                    choice = SKIP_STORE;
+                }
+                long coverLeft = Long.MIN_VALUE, coverRight = Long.MIN_VALUE;
+                if (!monotone) {
+                    if (argLeft != -1)
+                        coverLeft = bestLeft + pre[j] - end;
+                    if (argRight != -1)
+                        coverRight = bestRight + pre[j] - end - Math.abs(p - end);
+                } else {
+                    if (argLeft != -1)
+                        coverLeft = bestLeft + pre[j] - end + p;
+                    if (argRight != -1 && end <= p)
+                        coverRight = bestRight + pre[j] - p;
+                }
+                if (coverLeft > value) {
+                    value = coverLeft;
+                    choice = LEFT_FIRST;
+                    start = argLeft;
+                }
+                if (coverRight > value) {
+                    value = coverRight;
+                    choice = RIGHT_FIRST;
+                    start = argRight;
+                }
+                current[j] = value;
+                how[i][j] = choice;
+                from[i][j] = start;
+            }
+            long[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        profit = previous[n];
+
+        // Reconstrucción de los bloques
+        routes = new int[m][];
+        int j = n;
+        for (int i = m; i >= 1; i--) {
+            while (j > 0 && how[i][j] == SKIP_STORE) {
+                j--;
+            }
+            int robot = order[i - 1];
+            if (j == 0 || how[i][j] == IDLE) {
+                routes[robot] = new int[0];
+                continue;
+            }
+            int k = from[i][j];
+            int[] route = new int[j - k];
+            for (int x = 0; x < route.length; x++) {
+                // LEFT_FIRST: de k a j-1; RIGHT_FIRST: de j-1 a k
+                route[x] = how[i][j] == LEFT_FIRST ? storePositions[k + x] : storePositions[j - 1 - x];
+            }
+            routes[robot] = route;
+            j = k;
+        }
+        return profit;
+    }
+
+    /**
+     * @return ganancia del último plan calculado
+     */
+    public long profit() {
+        ensurePlanned();
+        return profit;
+    }
+
+    /**
+     * @param robot índice devuelto por addRobot
+     * @return casillas de las tiendas que visita, en orden
+     */
+    public int[] route(int robot) {
+        ensurePlanned();
+        return routes[robot].clone();
+    }
+
+    /**
+     * @return movimientos {casilla actual, desplazamiento} que ejecutan el
+     *         plan, robot por robot y en orden de visita
+     */
+    public int[][] moves() {
+        ensurePlanned();
+        List<int[]> result = new ArrayList<>();
+        for (int r = 0; r < routes.length; r++) {
+            int at = robots.get(r)[0];
+            for (int stop : routes[r]) {
+                result.add(new int[] { at, stop - at });
+                at = stop;
+            }
+        }
+        return result.toArray(new int[0][]);
+    }
+
+    private void ensurePlanned() {
+        if (routes == null)
+            plan();
+    }
+
+    /**
+     * @return primer índice con valor >= x (o el largo si no hay)
+     */
+    private static int lowerBound(int[] sorted, int x) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < x)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,154 @@
+package silkroad;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Montículo de máximos indexado por casilla: cada casilla está a lo sumo una
+ * vez y su valor se puede cambiar o quitar en O(log n). Los k mayores se
+ * obtienen recorriendo el montículo con una cola de candidatos, en
+ * O(k log k) sin importar cuántas casillas haya. En empate va primero la
+ * casilla menor.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+final class IndexedHeap {
+    private final int[] heap; // casillas en orden de montículo
+    private final int[] slot; // posición de cada casilla en heap (-1 = ausente)
+    private final long[] value;
+    private int size;
+
+    /**
+     * @param cells número de casillas
+     */
+    IndexedHeap(int cells) {
+        heap = new int[cells];
+        slot = new int[cells];
+        value = new long[cells];
+        Arrays.fill(slot, -1);
+    }
+
+    /**
+     * @return casillas guardadas
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Agrega la casilla o cambia su valor.
+     *
+     * @param cell casilla
+     * @param v    nuevo valor
+     */
+    void set(int cell, long v) {
+        int i = slot[cell];
+        if (i == -1) {
+            i = size++;
+            heap[i] = cell;
+            slot[cell] = i;
+            value[cell] = v;
+            up(i);
+            return;
+        }
+        long old = value[cell];
+        value[cell] = v;
+        if (v < old)
+            down(i);
+        else
+            up(i);
+    }
+
+    /**
+     * @param cell casilla a quitar (no hace nada si no está)
+     */
+    void remove(int cell) {
+        int i = slot[cell];
+        if (i == -1)
+            return;
+        int last = heap[--size];
+        slot[cell] = -1;
+        if (i == size)
+            return;
+        heap[i] = last;
+        slot[last] = i;
+        down(i);
+        up(slot[last]);
+    }
+
+    /**
+     * Quita todas las casillas.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            slot[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * @param k cantidad pedida
+     * @return hasta k filas {casilla, valor} de mayor a menor valor
+     */
+    long[][] top(int k) {
+        k = Math.max(0, Math.min(k, size));
+        long[][] result = new long[k][];
+        if (k == 0)
+            return result;
+        // Candidatos: posiciones del montículo cuyo padre ya salió
+        PriorityQueue<Integer> frontier = new PriorityQueue<>(
+                (a, b) -> higher(heap[a], heap[b]) ? -1 : higher(heap[b], heap[a]) ? 1 : 0);
+        frontier.add(0);
+        for (int n = 0; n < k; n++) {
+            int i = frontier.poll();
+            result[n] = new long[] { heap[i], value[heap[i]] };
+            if (2 * i + 1 < size)
+                frontier.add(2 * i + 1);
+            if (2 * i + 2 < size)
+                frontier.add(2 * i + 2);
+        }
+        return result;
+    }
+
+    /**
+     * @return true si la casilla a va antes que b (mayor valor o, en empate,
+     *         menor casilla)
+     */
+    private boolean higher(int a, int b) {
+        return value[a] > value[b] || (value[a] == value[b] && a < b);
+    }
+
+    private void up(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!higher(heap[i], heap[parent]))
+                break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void down(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size)
+                break;
+            int best = left;
+            if (left + 1 < size && higher(heap[left + 1], heap[left]))
+                best = left + 1;
+            if (!higher(heap[best], heap[i]))
+                break;
+            swap(i, best);
+            i = best;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int a = heap[i];
+        int b = heap[j];
+        heap[i] = b;
+        heap[j] = a;
+        slot[b] = i;
+        slot[a] = j;
+    }
+}
@@ -0,0 +1,54 @@
+package silkroad;
+
+import java.awt.GraphicsEnvironment;
+import javax.swing.JOptionPane;
+
+/**
+ * Punto único por el que la SilkRoad muestra sus mensajes al usuario.
+ * En un entorno sin pantalla (headless) JOptionPane lanza excepción, así que
+ * allí los mensajes simplemente se omiten; el resultado de cada operación
+ * sigue disponible con ok(). Las operaciones masivas (por ejemplo avanzar
+ * muchos días) pueden silenciar los mensajes del hilo actual mientras
+ * trabajan.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+final class Mensajes {
+
+    // Profundidad de silencio por hilo (> 0 => no se muestra nada)
+    private static final ThreadLocal<int[]> silencio = ThreadLocal.withInitial(() -> new int[1]);
+
+    private Mensajes() {
+    }
+
+    /**
+     * Silencia los mensajes del hilo actual hasta el reanudar() que le
+     * corresponde. Las llamadas pueden anidarse.
+     */
+    static void silenciar() {
+        silencio.get()[0]++;
+    }
+
+    /**
+     * Deshace un silenciar() anterior.
+     */
+    static void reanudar() {
+        int[] depth = silencio.get();
+        if (depth[0] > 0)
+            depth[0]--;
+    }
+
+    /**
+     * Muestra un cuadro de diálogo informativo, salvo en modo headless o
+     * silenciado.
+     *
+     * @param mensaje texto del mensaje
+     * @param titulo  título de la ventana
+     * @param tipo    tipo de mensaje de JOptionPane
+     */
+    static void mostrar(Object mensaje, String titulo, int tipo) {
+        if (GraphicsEnvironment.isHeadless() || silencio.get()[0] > 0)
+            return;
+        JOptionPane.showMessageDialog(null, mensaje, titulo, tipo);
+    }
+}
@@ -97,6 +97,16 @@ public class NeverbackRobot extends RobotAbstracto {
         return allowed;
     }
 
+    /**
+     * Un NeverbackRobot nunca se devuelve: su recorrido es monótono.
+     *
+     * @return siempre true
+     */
+    @Override
+    protected boolean recorridoMonotono() {
+        return true;
+    }
+
     /**
      * Bloquea la dirección del robot según el signo del movimiento.
      * Si el robot nunca se ha movido (directionLocked == 0), establece la dirección
@@ -129,15 +139,7 @@ public class NeverbackRobot extends RobotAbstracto {
      */
     @Override
     protected void updateParts() {
-        robotHead.setPosition(positionX, positionY);
-        leftEye.setPosition(positionX + size - 14, positionY + size / 4);
-        rightEye.setPosition(positionX + size - 4, positionY + size / 4);
-        mouth.setPosition(positionX + size / 6, positionY + size - (size / 10) - 1);
-
-        robotHead.makeVisible();
-        leftEye.makeVisible();
-        rightEye.makeVisible();
-        mouth.makeVisible();
+        updateBody();
     }
 
     /**
@@ -146,10 +148,7 @@ public class NeverbackRobot extends RobotAbstracto {
     @Override
     public void makeVisible() {
         if (!isVisible) {
-            robotHead.makeVisible();
-            leftEye.makeVisible();
-            rightEye.makeVisible();
-            mouth.makeVisible();
+            body.makeVisible();
             isVisible = true;
         }
     }
@@ -160,10 +159,7 @@ public class NeverbackRobot extends RobotAbstracto {
     @Override
     public void makeInvisible() {
         if (isVisible) {
-            robotHead.makeInvisible();
-            leftEye.makeInvisible();
-            rightEye.makeInvisible();
-            mouth.makeInvisible();
+            body.makeInvisible();
             isVisible = false;
         }
     }
@@ -116,8 +116,7 @@ public class Road {
         int cellX = positions[location][0];
         int cellY = positions[location][1];
 
-        JOptionPane.showMessageDialog(
-                null,
+        Mensajes.mostrar(
                 "Asignando objeto: " + objectType +
                         " a la ubicación " + location +
                         " → (x: " + cellX + ", y: " + cellY + ")",
@@ -173,8 +172,7 @@ public class Road {
         // Índice destino calculado como desplazamiento
         int newLocation = oldLocation + meters;
         if (newLocation < 0 || newLocation >= positions.length) {
-            JOptionPane.showMessageDialog(
-                    null,
+            Mensajes.mostrar(
                     "Movimiento inválido: fuera de límites.",
                     "Advertencia",
                     JOptionPane.WARNING_MESSAGE);
@@ -210,6 +208,39 @@ public class Road {
         }
     }
 
+    /**
+     * Mueve visualmente varios robots a la vez, compartiendo los mismos cuadros
+     * de animación (ver {@link AnimationTimeline}). Cada robot conserva su
+     * offset relativo dentro de la celda durante todo el recorrido.
+     *
+     * @param oldLocations índices actuales de los robots
+     * @param meters       desplazamiento de cada robot (positivo o negativo)
+     * @param robots       instancias de los robots a mover
+     * @param animated     true para avanzar casilla a casilla, false para saltar
+     *                     directamente al destino
+     */
+    public void moveRobotsVisual(int[] oldLocations, int[] meters, RobotAbstracto[] robots, boolean animated) {
+        AnimationTimeline timeline = new AnimationTimeline();
+        for (int k = 0; k < robots.length; k++) {
+            timeline.addLeg(robots[k], oldLocations[k], meters[k]);
+        }
+        playTimeline(timeline, animated);
+    }
+
+    /**
+     * Reproduce una línea de tiempo de movimientos sobre las celdas de esta
+     * espiral.
+     *
+     * @param timeline movimientos pendientes
+     * @param animated true para animar, false para saltar al estado final
+     */
+    public void playTimeline(AnimationTimeline timeline, boolean animated) {
+        if (animated)
+            timeline.play(positions);
+        else
+            timeline.jumpToEnd(positions);
+    }
+
     /**
      * Reposiciona instantáneamente el robot a una celda específica.
      * Mantiene el mismo offset relativo dentro de la celda.
@@ -225,8 +256,7 @@ public class Road {
 
         int newLocation = oldLocation + meters;
         if (newLocation < 0 || newLocation >= positions.length) {
-            JOptionPane.showMessageDialog(
-                    null,
+            Mensajes.mostrar(
                     "Reposición inválida: fuera de límites.",
                     "Advertencia",
                     JOptionPane.WARNING_MESSAGE);
@@ -243,8 +273,7 @@ public class Road {
 
         robot.placeTo(targetX, targetY); // sin animación
 
-        JOptionPane.showMessageDialog(
-                null,
+        Mensajes.mostrar(
                 "Robot reposicionado de " + oldLocation +
                         " a " + newLocation +
                         " → (" + (positions[newLocation][0]) + ", " + (positions[newLocation][1]) + ")",
@@ -0,0 +1,306 @@
+package silkroad;
+
+import java.util.BitSet;
+import shapes.Canvas;
+import shapes.Circle;
+import shapes.Rectangle;
+
+/**
+ * Ventana con zoom y desplazamiento sobre una SilkRoad de cualquier longitud.
+ * La espiral de {@link Road} solo cabe en la pantalla para rutas cortas; esta
+ * vista muestra siempre una cuadrícula fija de columnas × filas mosaicos y
+ * cambia cuántas casillas representa cada uno:
+ * - Con una casilla por mosaico se dibuja cada casilla: tienda con tenges
+ * (azul), tienda vacía (negro) o sin tienda, y un círculo si hay robot.
+ * - Con más casillas por mosaico cada uno es un cubo del mapa de calor,
+ * coloreado según los tenges del rango (consulta por rango del árbol de
+ * tiendas, O(log n)) relativos al cubo más rico visible, y marcado si hay
+ * robots en el rango.
+ * Un cuadro cuesta O(mosaicos · log n) y reutiliza siempre las mismas
+ * figuras, sin importar la longitud de la ruta.
+ *
+ * Los robots y la existencia de tiendas se siguen con los eventos del modelo
+ * ({@link SilkRoadListener}).
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class RoadViewport implements SilkRoadListener, AutoCloseable {
+    /** Colores del mapa de calor, de frío a caliente. */
+    private static final String[] HEAT = { "beige", "desertsand", "gold", "amber", "orange", "sunsetorange",
+            "terracottared", "red" };
+    private static final int ORIGIN_X = 100; // a la derecha de la barra de progreso
+    private static final int ORIGIN_Y = 40;
+
+    private final SilkRoad model;
+    private final int columns;
+    private final int rows;
+    private final int tileSize;
+    private final int cells;
+    private final int[] robotCount; // robots por casilla
+    private final StoreSegmentTree robotCells; // robots por casilla, para contar por rango
+    private final BitSet storeCells = new BitSet(); // casillas con tienda
+
+    private final Rectangle[] tiles;
+    private final Circle[] robotMarks;
+    private final long[] tileTenges;
+    private final int[] tileRobots;
+
+    private int firstCell;
+    private int cellsPerTile = 1;
+    private boolean visible;
+
+    /**
+     * Crea la vista con mosaicos de 12 px, invisible hasta llamar a
+     * {@link #makeVisible()}. Llamar desde el hilo del modelo.
+     *
+     * @param model   ruta a mostrar
+     * @param columns mosaicos por fila
+     * @param rows    filas de mosaicos
+     */
+    public RoadViewport(SilkRoad model, int columns, int rows) {
+        this(model, columns, rows, 12);
+    }
+
+    /**
+     * @param model    ruta a mostrar
+     * @param columns  mosaicos por fila
+     * @param rows     filas de mosaicos
+     * @param tileSize lado de cada mosaico en px
+     */
+    public RoadViewport(SilkRoad model, int columns, int rows, int tileSize) {
+        this.model = model;
+        this.columns = Math.max(1, columns);
+        this.rows = Math.max(1, rows);
+        this.tileSize = Math.max(2, tileSize);
+        this.cells = model.getLength() + 1;
+        this.robotCount = new int[cells];
+        this.robotCells = new StoreSegmentTree(cells);
+        int count = this.columns * this.rows;
+        tiles = new Rectangle[count];
+        robotMarks = new Circle[count];
+        tileTenges = new long[count];
+        tileRobots = new int[count];
+        model.addListener(this);
+    }
+
+    @Override
+    public void robotMoved(int from, int to) {
+        // Se cuentan robots por casilla: en un intercambio (2>6, 6>2) el
+        // orden de los eventos no importa
+        if (from >= 0 && from < cells)
+            robotCells.set(from, --robotCount[from]);
+        if (to >= 0 && to < cells)
+            robotCells.set(to, ++robotCount[to]);
+    }
+
+    @Override
+    public void storeChanged(int location, int tenges) {
+        if (location < cells)
+            storeCells.set(location, tenges >= 0);
+    }
+
+    /**
+     * @return número de mosaicos (columnas × filas)
+     */
+    public int tiles() {
+        return tiles.length;
+    }
+
+    /**
+     * @return primera casilla que muestra el primer mosaico
+     */
+    public int getFirstCell() {
+        return firstCell;
+    }
+
+    /**
+     * @return casillas que representa cada mosaico (1 = detalle)
+     */
+    public int getCellsPerTile() {
+        return cellsPerTile;
+    }
+
+    /**
+     * Cambia el zoom manteniendo en el centro la misma casilla.
+     *
+     * @param cellsPerTile casillas por mosaico (se ajusta a [1, longitud])
+     */
+    public void setCellsPerTile(int cellsPerTile) {
+        int center = centerCell();
+        this.cellsPerTile = Math.max(1, Math.min(cells, cellsPerTile));
+        centerOn(center);
+    }
+
+    /**
+     * Acerca: la mitad de casillas por mosaico.
+     */
+    public void zoomIn() {
+        setCellsPerTile(cellsPerTile / 2);
+    }
+
+    /**
+     * Aleja: el doble de casillas por mosaico.
+     */
+    public void zoomOut() {
+        setCellsPerTile((int) Math.min(Integer.MAX_VALUE, cellsPerTile * 2L));
+    }
+
+    /**
+     * Desplaza la vista.
+     *
+     * @param tileCount mosaicos a desplazar (negativo: hacia el inicio)
+     */
+    public void pan(int tileCount) {
+        moveTo(firstCell + (long) tileCount * cellsPerTile);
+    }
+
+    /**
+     * Centra la vista en una casilla.
+     *
+     * @param cell casilla a centrar
+     */
+    public void centerOn(int cell) {
+        moveTo(cell - (long) tiles.length * cellsPerTile / 2);
+    }
+
+    /**
+     * @param tile índice del mosaico (fila por fila)
+     * @return tenges de las tiendas del rango del mosaico en el último cuadro
+     *         (-1 si el mosaico queda después del final de la ruta)
+     */
+    public long tileTenges(int tile) {
+        return tileTenges[tile];
+    }
+
+    /**
+     * @param tile índice del mosaico (fila por fila)
+     * @return robots en el rango del mosaico en el último cuadro
+     */
+    public int tileRobots(int tile) {
+        return tileRobots[tile];
+    }
+
+    /**
+     * Calcula los valores de cada mosaico y, si la vista es visible, los
+     * dibuja en un solo cuadro del canvas.
+     */
+    public void render() {
+        long richest = 0;
+        for (int t = 0; t < tiles.length; t++) {
+            long from = firstCell + (long) t * cellsPerTile;
+            if (from >= cells) {
+                tileTenges[t] = -1; // fuera de la ruta
+                tileRobots[t] = 0;
+                continue;
+            }
+            int a = (int) from;
+            int b = (int) Math.min(cells - 1, from + cellsPerTile - 1);
+            tileTenges[t] = model.tengesBetween(a, b);
+            tileRobots[t] = robotCells.countNonEmpty(a, b);
+            richest = Math.max(richest, tileTenges[t]);
+        }
+        if (!visible)
+            return;
+
+        Canvas canvas = Canvas.getCanvas();
+        canvas.startBatch();
+        try {
+            for (int t = 0; t < tiles.length; t++) {
+                drawTile(t, richest);
+            }
+        } finally {
+            canvas.endBatch();
+        }
+    }
+
+    /**
+     * Muestra la vista y dibuja el cuadro actual.
+     */
+    public void makeVisible() {
+        visible = true;
+        render();
+    }
+
+    /**
+     * Oculta todas las figuras de la vista.
+     */
+    public void makeInvisible() {
+        visible = false;
+        Canvas canvas = Canvas.getCanvas();
+        canvas.startBatch();
+        try {
+            for (int t = 0; t < tiles.length; t++) {
+                if (tiles[t] != null)
+                    tiles[t].makeInvisible();
+                if (robotMarks[t] != null)
+                    robotMarks[t].makeInvisible();
+            }
+        } finally {
+            canvas.endBatch();
+        }
+    }
+
+    /**
+     * Deja de escuchar al modelo y oculta la vista.
+     */
+    @Override
+    public void close() {
+        model.removeListener(this);
+        makeInvisible();
+    }
+
+    private void drawTile(int t, long richest) {
+        Rectangle tile = tiles[t];
+        if (tile == null) {
+            tile = new Rectangle();
+            tile.changeSize(tileSize - 1, tileSize - 1);
+            tile.setPosition(ORIGIN_X + (t % columns) * tileSize, ORIGIN_Y + (t / columns) * tileSize);
+            tiles[t] = tile;
+        }
+        if (tileTenges[t] < 0) {
+            tile.makeInvisible();
+            setRobotMark(t, false);
+            return;
+        }
+        String color;
+        if (cellsPerTile == 1) {
+            int cell = firstCell + t;
+            color = !storeCells.get(cell) ? "lightgray" : tileTenges[t] > 0 ? "blue" : "black";
+        } else if (tileTenges[t] == 0) {
+            color = "white";
+        } else {
+            color = HEAT[(int) Math.min(HEAT.length - 1, tileTenges[t] * HEAT.length / Math.max(1, richest))];
+        }
+        if (!color.equals(tile.getColor()))
+            tile.changeColor(color);
+        tile.makeVisible();
+        setRobotMark(t, tileRobots[t] > 0);
+    }
+
+    private void setRobotMark(int t, boolean present) {
+        Circle mark = robotMarks[t];
+        if (!present) {
+            if (mark != null)
+                mark.makeInvisible();
+            return;
+        }
+        if (mark == null) {
+            mark = new Circle(Math.max(2, tileSize / 2));
+            mark.setPosition(ORIGIN_X + (t % columns) * tileSize + tileSize / 4,
+                    ORIGIN_Y + (t / columns) * tileSize + tileSize / 4);
+            mark.changeColor("red");
+            robotMarks[t] = mark;
+        }
+        mark.makeVisible();
+    }
+
+    private int centerCell() {
+        return (int) Math.min(cells - 1, firstCell + (long) tiles.length * cellsPerTile / 2);
+    }
+
+    private void moveTo(long cell) {
+        long span = (long) tiles.length * cellsPerTile;
+        long last = Math.max(0, cells - span);
+        firstCell = (int) Math.max(0, Math.min(last, cell));
+    }
+}
@@ -28,6 +28,10 @@ public abstract class RobotAbstracto {
     protected Circle leftEye;
     protected Circle rightEye;
     protected Rectangle mouth;
+    protected Group body; // Nodo compuesto: una sola entrada en el canvas
+    int typeId = -1; // tipo en TypeRegistry (-1 = creado fuera del registro)
+    private int initialX; // posición de fábrica, para reutilizar el robot
+    private int initialY;
 
     /**
      * Constructor base para todos los robots.
@@ -117,26 +121,60 @@ public abstract class RobotAbstracto {
     protected final void initializeVisualParts() {
         String eyeAndMouthColor = (color.equals("black") || color.equals("brown")) ? "white" : "black";
 
+        // Las partes se ubican con offsets relativos al origen del cuerpo
         robotHead = new Rectangle();
         robotHead.changeColor(color);
         robotHead.changeSize(size, size);
-        robotHead.setPosition(positionX, positionY);
+        robotHead.setPosition(0, 0);
 
         int eyeSize = size / 6;
         leftEye = new Circle();
         leftEye.changeColor(eyeAndMouthColor);
         leftEye.changeSize(eyeSize);
-        leftEye.setPosition(positionX + size - 14, positionY + size / 4);
+        leftEye.setPosition(size - 14, size / 4);
 
         rightEye = new Circle();
         rightEye.changeColor(eyeAndMouthColor);
         rightEye.changeSize(eyeSize);
-        rightEye.setPosition(positionX + size - 4, positionY + size / 4);
+        rightEye.setPosition(size - 4, size / 4);
 
         mouth = new Rectangle();
         mouth.changeColor(eyeAndMouthColor);
         mouth.changeSize(1, 10);
-        mouth.setPosition(positionX + size / 6, positionY + size - (size / 10) - 1);
+        mouth.setPosition(size / 6, size - (size / 10) - 1);
+
+        body = new Group();
+        body.add(robotHead);
+        body.add(leftEye);
+        body.add(rightEye);
+        body.add(mouth);
+        body.setSpriteKey(getTipo() + ":" + color + ":" + size); // Apariencia cacheable
+        body.setPosition(positionX, positionY);
+        initialX = positionX;
+        initialY = positionY;
+    }
+
+    /**
+     * Deja el robot como recién construido (posición por defecto y sin
+     * dirección bloqueada) para reutilizarlo desde la reserva de
+     * {@link TypeRegistry}. El robot debe estar invisible.
+     */
+    protected void prepararReuso() {
+        positionX = initialX;
+        positionY = initialY;
+        body.setPosition(positionX, positionY);
+        resetDirection();
+    }
+
+    /**
+     * Lleva el cuerpo del robot a positionX/Y y lo deja visible con un solo
+     * redibujo (las partes se mueven junto con el grupo).
+     */
+    protected final void updateBody() {
+        body.setPosition(positionX, positionY);
+        if (!body.isVisible()) {
+            body.makeVisible();
+        }
     }
 
     /**
@@ -281,6 +319,17 @@ public abstract class RobotAbstracto {
         return true; // Por defecto, permite cualquier movimiento
     }
 
+    /**
+     * Indica si el robot solo puede recorrer la ruta en una dirección (sin
+     * devolverse). Los planificadores lo usan para no proponerle rutas de ida y
+     * vuelta. Por defecto, false.
+     *
+     * @return true si el recorrido del robot debe ser monótono
+     */
+    protected boolean recorridoMonotono() {
+        return false;
+    }
+
     /**
      * Reinicia el estado especial del robot después de completar una acción.
      * Por defecto, no hace nada.
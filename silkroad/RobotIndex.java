@@ -0,0 +1,175 @@
+package silkroad;
+
+/**
+ * Índice ordenado de las posiciones de un conjunto de robots sobre la ruta.
+ * Responde "¿cuál es el robot más cercano a x?" en O(log n) usando un árbol de
+ * Fenwick con la cantidad de robots por casilla; los robots que comparten
+ * casilla se guardan en una lista enlazada ordenada por id.
+ * Todo se guarda en arreglos primitivos para escalar a millones de robots.
+ *
+ * En empate de distancia gana el robot de menor id, igual que el recorrido
+ * lineal del greedy (que se queda con el primero que encuentra).
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class RobotIndex {
+    private final int[] tree; // Fenwick (1-based) con robots por casilla
+    private final int[] head; // menor id de robot en cada casilla (-1 = vacía)
+    private final int[] next; // siguiente robot en la misma casilla
+    private final int[] position; // casilla actual de cada robot (-1 = fuera)
+    private final int highBit;
+    private int size;
+
+    /**
+     * Crea un índice con los robots 0..positions.length-1 en las casillas
+     * dadas.
+     *
+     * @param maxPosition mayor casilla posible
+     * @param positions   casilla inicial de cada robot
+     */
+    public RobotIndex(int maxPosition, int[] positions) {
+        int cells = maxPosition + 1;
+        this.tree = new int[cells + 1];
+        this.head = new int[cells];
+        this.next = new int[positions.length];
+        this.position = new int[positions.length];
+        java.util.Arrays.fill(head, -1);
+        java.util.Arrays.fill(position, -1);
+        this.highBit = Integer.highestOneBit(Math.max(1, cells));
+        // Se insertan de mayor a menor id: así cada lista queda ordenada sin recorrerla
+        for (int robot = positions.length - 1; robot >= 0; robot--) {
+            add(robot, positions[robot]);
+        }
+    }
+
+    /**
+     * @return número de robots en el índice
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param robot id del robot
+     * @return casilla actual del robot (-1 si no está)
+     */
+    public int positionOf(int robot) {
+        return position[robot];
+    }
+
+    /**
+     * Mueve (virtualmente) un robot a otra casilla.
+     *
+     * @param robot id del robot
+     * @param to    casilla destino
+     */
+    public void move(int robot, int to) {
+        remove(robot);
+        add(robot, to);
+    }
+
+    /**
+     * Busca el robot más cercano a la casilla x.
+     *
+     * @param x casilla de referencia
+     * @return id del robot más cercano (menor id en empate) o -1 si no hay
+     */
+    public int nearest(int x) {
+        if (size == 0)
+            return -1;
+        int before = x >= 0 ? select(prefix(Math.min(x, head.length - 1))) : -1;
+        int after = x < head.length ? select(prefix(x - 1) + 1) : -1;
+        if (before == -1)
+            return head[after];
+        if (after == -1)
+            return head[before];
+
+        int distBefore = x - before;
+        int distAfter = after - x;
+        if (distBefore < distAfter)
+            return head[before];
+        if (distAfter < distBefore)
+            return head[after];
+        return Math.min(head[before], head[after]);
+    }
+
+    /**
+     * Inserta un robot en una casilla manteniendo la lista ordenada por id.
+     */
+    private void add(int robot, int cell) {
+        if (head[cell] == -1 || robot < head[cell]) {
+            next[robot] = head[cell];
+            head[cell] = robot;
+        } else {
+            int prev = head[cell];
+            while (next[prev] != -1 && next[prev] < robot) {
+                prev = next[prev];
+            }
+            next[robot] = next[prev];
+            next[prev] = robot;
+        }
+        position[robot] = cell;
+        update(cell, 1);
+        size++;
+    }
+
+    /**
+     * Saca un robot de su casilla actual.
+     */
+    private void remove(int robot) {
+        int cell = position[robot];
+        if (cell < 0)
+            return;
+        if (head[cell] == robot) {
+            head[cell] = next[robot];
+        } else {
+            int prev = head[cell];
+            while (next[prev] != robot) {
+                prev = next[prev];
+            }
+            next[prev] = next[robot];
+        }
+        position[robot] = -1;
+        update(cell, -1);
+        size--;
+    }
+
+    /**
+     * Suma delta a la cantidad de robots de la casilla.
+     */
+    private void update(int cell, int delta) {
+        for (int i = cell + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return cantidad de robots en las casillas 0..cell
+     */
+    private int prefix(int cell) {
+        int sum = 0;
+        for (int i = cell + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Casilla del k-ésimo robot en orden de posición (k desde 1).
+     *
+     * @return casilla, o -1 si k está fuera de rango
+     */
+    private int select(int k) {
+        if (k <= 0 || k > size)
+            return -1;
+        int index = 0;
+        for (int step = highBit; step > 0; step >>= 1) {
+            int candidate = index + step;
+            if (candidate < tree.length && tree[candidate] < k) {
+                index = candidate;
+                k -= tree[candidate];
+            }
+        }
+        return index; // el nodo index+1 (1-based) corresponde a la casilla index
+    }
+}
@@ -0,0 +1,746 @@
+package silkroad;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * SilkRoad para rutas muy largas (10^8 casillas o más) con millones de
+ * robots. La ruta se divide en particiones contiguas y cada una pertenece a un
+ * hilo trabajador que guarda su parte en mapas primitivos ({@link CellMap}):
+ * solo ocupan memoria las casillas con robot o tienda. Ningún otro hilo toca
+ * el estado de una partición; las operaciones se le envían como tareas y los
+ * robots que cruzan a otra partición se le entregan por colas sin bloqueo.
+ *
+ * Ofrece las mismas operaciones que {@link SilkRoad} para robots y tiendas
+ * normales, sin parte gráfica ni diálogos (el resultado queda en
+ * {@link #ok()}). Diferencias por diseño:
+ * <ul>
+ * <li>En un movimiento grupal el destino debe estar libre antes del grupo:
+ * un robot no puede ocupar la casilla que otro del mismo grupo deja (no hay
+ * intercambios). Las filas inválidas se omiten.</li>
+ * <li>El movimiento óptimo (moveRobots()) aplica el mismo greedy de SilkRoad
+ * recorriendo las particiones en orden (cada tienda depende de dónde dejaron
+ * los robots las tiendas anteriores), así que no es paralelo.</li>
+ * <li>Las consultas de robots y tiendas devuelven solo las casillas ocupadas.</li>
+ * </ul>
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class ShardedSilkRoad implements AutoCloseable {
+    /**
+     * Valor de {@link #robotTenges(int)} cuando no hay robot (los tenges de un
+     * robot pueden ser negativos, así que -1 no sirve).
+     */
+    public static final int NO_ROBOT = Integer.MIN_VALUE;
+
+    private final int length;
+    private final int span; // casillas por partición
+    private final Shard[] shards;
+    private boolean lastOperationOK;
+
+    /**
+     * Crea una ruta con una partición por núcleo.
+     *
+     * @param length longitud de la ruta (casillas 0..length)
+     */
+    public ShardedSilkRoad(int length) {
+        this(length, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param length     longitud de la ruta (casillas 0..length)
+     * @param partitions número de particiones (y de hilos trabajadores)
+     */
+    public ShardedSilkRoad(int length, int partitions) {
+        if (length < 1)
+            throw new IllegalArgumentException("Longitud inválida: " + length);
+        int cells = length + 1;
+        int count = Math.max(1, Math.min(partitions, cells));
+        this.length = length;
+        this.span = (int) (((long) cells + count - 1) / count);
+        this.shards = new Shard[(int) (((long) cells + span - 1) / span)];
+        for (int i = 0; i < shards.length; i++) {
+            int first = i * span;
+            shards[i] = new Shard(i, first, (int) Math.min((long) first + span, cells));
+        }
+        this.lastOperationOK = true;
+    }
+
+    /**
+     * @return longitud de la ruta
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return número de particiones
+     */
+    public int partitions() {
+        return shards.length;
+    }
+
+    /**
+     * Coloca una tienda normal. Si hay un robot en la casilla, la tienda se
+     * vacía al instante (como en SilkRoad).
+     *
+     * @param location casilla
+     * @param tenges   tenges iniciales (&gt; 0)
+     */
+    public void placeStore(int location, int tenges) {
+        if (!inRange(location) || tenges <= 0) {
+            lastOperationOK = false;
+            return;
+        }
+        lastOperationOK = on(location, s -> {
+            if (s.storeOriginal.containsKey(location))
+                return false;
+            s.storeOriginal.put(location, tenges);
+            s.storeTenges.put(location, s.robotTenges.containsKey(location) ? 0 : tenges);
+            return true;
+        });
+    }
+
+    /**
+     * @param location casilla de la tienda a eliminar
+     */
+    public void removeStore(int location) {
+        lastOperationOK = inRange(location) && on(location, s -> {
+            s.storeTenges.remove(location, 0);
+            return s.storeOriginal.remove(location, -1) != -1;
+        });
+    }
+
+    /**
+     * Coloca un robot normal. Si hay una tienda con tenges en la casilla, la
+     * tienda se vacía al instante (como en SilkRoad).
+     *
+     * @param location casilla
+     */
+    public void placeRobot(int location) {
+        lastOperationOK = inRange(location) && on(location, s -> {
+            if (s.robotTenges.containsKey(location))
+                return false;
+            s.robotTenges.put(location, 0);
+            s.robotOrigin.put(location, location);
+            if (s.storeTenges.get(location, 0) > 0)
+                s.storeTenges.put(location, 0);
+            return true;
+        });
+    }
+
+    /**
+     * @param location casilla del robot a eliminar
+     */
+    public void removeRobot(int location) {
+        lastOperationOK = inRange(location) && on(location, s -> {
+            if (!s.robotTenges.containsKey(location))
+                return false;
+            s.robotOrigin.remove(location, 0);
+            s.robotTenges.remove(location, 0);
+            return true;
+        });
+    }
+
+    /**
+     * Mueve un robot; si llega a una tienda recoge sus tenges y paga la
+     * distancia recorrida.
+     *
+     * @param location casilla actual del robot
+     * @param meters   desplazamiento (positivo o negativo)
+     */
+    public void moveRobot(int location, int meters) {
+        moveRobots(new int[][] { { location, meters } });
+    }
+
+    /**
+     * Mueve varios robots a la vez. Cada partición procesa en paralelo los
+     * robots que salen de ella y entrega a la partición destino los que cruzan.
+     * Si varios robots van a la misma casilla gana el de menor recorrido (en
+     * empate, el de menor posición); el resto se queda en su lugar.
+     *
+     * @param moves matriz de movimientos {posición actual, desplazamiento}
+     */
+    public void moveRobots(int[][] moves) {
+        if (moves == null || moves.length == 0) {
+            lastOperationOK = false;
+            return;
+        }
+        List<List<int[]>> bySource = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            bySource.add(new ArrayList<>());
+        }
+        for (int[] move : moves) {
+            if (move != null && move.length >= 2 && inRange(move[0]))
+                bySource.get(shardOf(move[0])).add(move);
+        }
+        int requested = moves.length;
+        int moved = moveBatch(s -> s.claimMoves(bySource.get(s.index)), true);
+        lastOperationOK = moved == requested;
+    }
+
+    /**
+     * Mueve los robots hacia las tiendas con el greedy de SilkRoad (para cada
+     * tienda, en orden, el robot más cercano si la ganancia no es negativa).
+     * Las particiones se recorren en orden: cada una recibe el robot más a la
+     * derecha que dejaron las anteriores y puede tomar los primeros robots de
+     * las siguientes, que se retiran de su partición por la cola departed.
+     */
+    public void moveRobots() {
+        int[][][] rows = new int[shards.length][][];
+        all(s -> rows[s.index] = s.robotRows());
+        RightRobots right = new RightRobots(rows);
+        int[][] left = new int[1][]; // robot más a la derecha ya procesado
+        for (Shard shard : shards) {
+            right.skipTo(shard.index + 1);
+            on(shard.first, s -> left[0] = s.greedy(left[0], right));
+        }
+        all(Shard::removeDeparted);
+        lastOperationOK = true;
+    }
+
+    /**
+     * Restaura todas las tiendas a sus tenges originales.
+     */
+    public void resupplyStores() {
+        all(Shard::resupply);
+        lastOperationOK = true;
+    }
+
+    /**
+     * Devuelve los robots a su casilla de origen conservando sus tenges. Se
+     * repite por rondas (un robot puede liberar el origen de otro); los robots
+     * cuyo origen sigue ocupado se quedan donde están.
+     */
+    public void returnRobots() {
+        while (moveBatch(Shard::claimReturns, false) > 0) {
+            // otra ronda: alguna casilla de origen pudo quedar libre
+        }
+        lastOperationOK = true;
+    }
+
+    /**
+     * Reinicia la ruta: tiendas reabastecidas, robots en su origen con 0
+     * tenges y profit en 0.
+     */
+    public void reboot() {
+        resupplyStores();
+        returnRobots();
+        all(Shard::resetRobots);
+        lastOperationOK = true;
+    }
+
+    /**
+     * @return ganancia total de todas las particiones
+     */
+    public long profit() {
+        long[] partial = new long[shards.length];
+        all(s -> partial[s.index] = s.profit);
+        return sum(partial);
+    }
+
+    /**
+     * @param location casilla
+     * @return tenges del robot en la casilla o {@link #NO_ROBOT} si no hay
+     *         robot
+     */
+    public int robotTenges(int location) {
+        return inRange(location) ? on(location, s -> s.robotTenges.get(location, NO_ROBOT)) : NO_ROBOT;
+    }
+
+    /**
+     * @param location casilla
+     * @return tenges de la tienda en la casilla o -1 si no hay tienda
+     */
+    public int storeTenges(int location) {
+        return inRange(location) ? on(location, s -> s.storeTenges.get(location, -1)) : -1;
+    }
+
+    /**
+     * @return robots {casilla, tenges} ordenados por casilla
+     */
+    public int[][] robots() {
+        return collect(s -> s.robotTenges);
+    }
+
+    /**
+     * @return tiendas {casilla, tenges} ordenadas por casilla
+     */
+    public int[][] stores() {
+        return collect(s -> s.storeTenges);
+    }
+
+    /**
+     * @return número de robots
+     */
+    public int robotCount() {
+        long[] partial = new long[shards.length];
+        all(s -> partial[s.index] = s.robotTenges.size());
+        return (int) sum(partial);
+    }
+
+    /**
+     * @return número de tiendas
+     */
+    public int storeCount() {
+        long[] partial = new long[shards.length];
+        all(s -> partial[s.index] = s.storeTenges.size());
+        return (int) sum(partial);
+    }
+
+    /**
+     * @return número de tiendas sin tenges
+     */
+    public int emptiedStoreCount() {
+        long[] partial = new long[shards.length];
+        all(s -> partial[s.index] = s.storeTenges.size() - s.nonEmptyStores());
+        return (int) sum(partial);
+    }
+
+    /**
+     * @param from casilla inicial (incluida)
+     * @param to   casilla final (incluida)
+     * @return tenges de las tiendas en [from, to]
+     */
+    public long tengesBetween(int from, int to) {
+        int a = Math.max(0, Math.min(from, to));
+        int b = Math.min(length, Math.max(from, to));
+        long[] partial = new long[shards.length];
+        if (a <= b)
+            all(s -> partial[s.index] = s.tengesBetween(a, b));
+        return sum(partial);
+    }
+
+    /**
+     * @return true si la última operación fue exitosa
+     */
+    public boolean ok() {
+        return lastOperationOK;
+    }
+
+    /**
+     * Termina la simulación y detiene los hilos trabajadores.
+     */
+    public void finish() {
+        close();
+    }
+
+    /**
+     * Detiene los hilos trabajadores.
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.stop();
+        }
+        lastOperationOK = true;
+    }
+
+    // ----- Coordinación entre particiones -----
+
+    private boolean inRange(int location) {
+        return location >= 0 && location <= length;
+    }
+
+    private int shardOf(int location) {
+        return location / span;
+    }
+
+    /**
+     * Ejecuta una operación en la partición dueña de la casilla y espera su
+     * resultado.
+     */
+    private <T> T on(int location, Function<Shard, T> task) {
+        Shard shard = shards[shardOf(location)];
+        CompletableFuture<T> result = new CompletableFuture<>();
+        shard.submit(() -> {
+            try {
+                result.complete(task.apply(shard));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return join(result);
+    }
+
+    /**
+     * Ejecuta una fase en todas las particiones en paralelo y espera a que
+     * terminen todas (barrera entre fases).
+     */
+    private void all(Consumer<Shard> phase) {
+        CompletableFuture<?>[] done = new CompletableFuture<?>[shards.length];
+        for (Shard shard : shards) {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            done[shard.index] = result;
+            shard.submit(() -> {
+                try {
+                    phase.accept(shard);
+                    result.complete(null);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+        join(CompletableFuture.allOf(done));
+    }
+
+    /**
+     * Movimiento por lotes en tres fases: cada partición envía los robots que
+     * salen de ella a la partición destino; cada destino elige un ganador por
+     * casilla libre, lo coloca y avisa al origen; cada origen retira los
+     * robots que se fueron.
+     *
+     * @param claims  genera los pedidos de movimiento de una partición
+     * @param collect true si los robots recogen tenges y pagan la distancia
+     * @return robots movidos
+     */
+    private int moveBatch(Consumer<Shard> claims, boolean collect) {
+        all(claims);
+        all(s -> s.resolveClaims(collect));
+        all(Shard::removeDeparted);
+        long[] partial = new long[shards.length];
+        all(s -> partial[s.index] = s.accepted);
+        return (int) sum(partial);
+    }
+
+    private int[][] collect(Function<Shard, CellMap> map) {
+        int[][][] partial = new int[shards.length][][];
+        all(s -> partial[s.index] = s.entries(map.apply(s)));
+        List<int[]> result = new ArrayList<>();
+        for (int[][] rows : partial) {
+            result.addAll(Arrays.asList(rows));
+        }
+        return result.toArray(new int[0][]);
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Robots de las particiones siguientes a la que hace el greedy, en orden
+     * de casilla y aún sin mover. Una tienda solo puede tomar el primero que
+     * quede (el más cercano por la derecha); al tomarlo se avisa a su
+     * partición para que lo retire. Lo usa una partición a la vez.
+     */
+    private final class RightRobots {
+        private final int[][][] rows; // por partición: {casilla, tenges, origen}
+        private int shard;
+        private int next;
+
+        RightRobots(int[][][] rows) {
+            this.rows = rows;
+        }
+
+        void skipTo(int first) {
+            if (shard < first) {
+                shard = first;
+                next = 0;
+            }
+        }
+
+        /**
+         * @return primer robot que queda {casilla, tenges, origen} o null
+         */
+        int[] peek() {
+            while (shard < rows.length && next >= rows[shard].length) {
+                shard++;
+                next = 0;
+            }
+            return shard < rows.length ? rows[shard][next] : null;
+        }
+
+        int[] take() {
+            int[] robot = peek();
+            shards[shard].departed.add(new int[] { -1, robot[0] });
+            next++;
+            return robot;
+        }
+    }
+
+    /**
+     * Partición [first, end) con su hilo trabajador. Todo su estado lo toca
+     * solo ese hilo; las demás particiones le escriben únicamente en inbox y
+     * departed.
+     */
+    private final class Shard {
+        final int index;
+        final int first;
+        final int end;
+        final CellMap robotTenges = new CellMap();
+        final CellMap robotOrigin = new CellMap();
+        final CellMap storeTenges = new CellMap();
+        final CellMap storeOriginal = new CellMap();
+        long profit;
+        int accepted; // robots recibidos en el último lote
+
+        // Pedidos {destino, origen, tenges, casilla de origen del robot}
+        final Queue<int[]> inbox = new ConcurrentLinkedQueue<>();
+        final Queue<int[]> departed = new ConcurrentLinkedQueue<>();
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Thread worker;
+        private volatile boolean running = true;
+
+        Shard(int index, int first, int end) {
+            this.index = index;
+            this.first = first;
+            this.end = end;
+            this.worker = new Thread(this::run, "silkroad-shard-" + index);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        void submit(Runnable task) {
+            if (!running)
+                throw new IllegalStateException("La ruta ya terminó");
+            tasks.add(task);
+            LockSupport.unpark(worker);
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(worker);
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void run() {
+            while (running || !tasks.isEmpty()) {
+                Runnable task = tasks.poll();
+                if (task == null)
+                    LockSupport.park(this);
+                else
+                    task.run();
+            }
+        }
+
+        /**
+         * Fase 1 de un movimiento grupal: envía los pedidos válidos.
+         */
+        void claimMoves(List<int[]> moves) {
+            CellMap seen = new CellMap(moves.size());
+            for (int[] move : moves) {
+                int from = move[0];
+                int to = from + move[1];
+                if (move[1] == 0 || !robotTenges.containsKey(from) || seen.containsKey(from) || !inRange(to))
+                    continue;
+                seen.put(from, 0);
+                send(new int[] { to, from, robotTenges.get(from, 0), robotOrigin.get(from, from) });
+            }
+        }
+
+        /**
+         * Fase 1 del regreso: cada robot fuera de su origen pide volver.
+         */
+        void claimReturns() {
+            for (int cell : robotOrigin.keys()) {
+                int origin = robotOrigin.get(cell, cell);
+                if (origin != cell)
+                    send(new int[] { origin, cell, robotTenges.get(cell, 0), origin });
+            }
+        }
+
+        private void send(int[] claim) {
+            shards[shardOf(claim[0])].inbox.add(claim);
+        }
+
+        /**
+         * Fase 2: elige un ganador por casilla destino libre y lo coloca.
+         */
+        void resolveClaims(boolean collect) {
+            accepted = 0;
+            List<int[]> claims = new ArrayList<>();
+            int[] claim;
+            while ((claim = inbox.poll()) != null) {
+                claims.add(claim);
+            }
+            claims.sort((p, q) -> p[0] != q[0] ? Integer.compare(p[0], q[0])
+                    : Math.abs(p[0] - p[1]) != Math.abs(q[0] - q[1])
+                            ? Integer.compare(Math.abs(p[0] - p[1]), Math.abs(q[0] - q[1]))
+                            : Integer.compare(p[1], q[1]));
+            int lastTarget = -1;
+            for (int[] c : claims) {
+                int to = c[0];
+                if (to == lastTarget || robotTenges.containsKey(to))
+                    continue; // ya hay ganador o la casilla estaba ocupada
+                lastTarget = to;
+                int tenges = c[2];
+                if (collect) {
+                    int collected = Math.max(0, storeTenges.get(to, 0));
+                    if (collected > 0)
+                        storeTenges.put(to, 0);
+                    int gain = collected - Math.abs(to - c[1]);
+                    tenges += gain;
+                    profit += gain;
+                }
+                robotTenges.put(to, tenges);
+                robotOrigin.put(to, c[3]);
+                shards[shardOf(c[1])].departed.add(c);
+                accepted++;
+            }
+        }
+
+        /**
+         * Fase 3: retira los robots que se colocaron en su destino.
+         */
+        void removeDeparted() {
+            int[] claim;
+            while ((claim = departed.poll()) != null) {
+                robotTenges.remove(claim[1], 0);
+                robotOrigin.remove(claim[1], 0);
+            }
+        }
+
+        /**
+         * @return robots {casilla, tenges, origen} ordenados por casilla
+         */
+        int[][] robotRows() {
+            int[] cells = robotTenges.keys();
+            Arrays.sort(cells);
+            int[][] rows = new int[cells.length][];
+            for (int i = 0; i < cells.length; i++) {
+                rows[i] = new int[] { cells[i], robotTenges.get(cells[i], 0), robotOrigin.get(cells[i], cells[i]) };
+            }
+            return rows;
+        }
+
+        /**
+         * Greedy de SilkRoad.moveRobots() sobre las tiendas de esta partición.
+         * Además de sus robots, una tienda puede tomar el robot más a la
+         * derecha de las particiones anteriores (si no hay uno propio a su
+         * izquierda) o el primero de las siguientes (si no hay uno propio a su
+         * derecha). Como en SilkRoad, en empate gana el robot que empezó más a
+         * la izquierda (el id de cada robot es su casilla inicial).
+         *
+         * @param left  robot {casilla, id, tenges, origen, partición} más a la
+         *              derecha de las particiones anteriores, o null
+         * @param right robots de las particiones siguientes
+         * @return robot más a la derecha al terminar (left si no hay ninguno)
+         */
+        int[] greedy(int[] left, RightRobots right) {
+            removeDeparted(); // robots que tomó una partición anterior
+            int[] robots = robotTenges.keys();
+            TreeMap<Integer, Integer> index = new TreeMap<>(); // casilla -> id
+            for (int cell : robots) {
+                index.put(cell, cell);
+            }
+            int[] stores = storeTenges.keys();
+            Arrays.sort(stores);
+            for (int store : stores) {
+                int tenges = storeTenges.get(store, 0);
+                if (tenges <= 0)
+                    continue;
+                // Candidatos {casilla, id}: el más cercano de cada lado
+                Map.Entry<Integer, Integer> floor = index.floorEntry(store);
+                Map.Entry<Integer, Integer> ceiling = index.ceilingEntry(store);
+                int[] outside = ceiling == null ? right.peek() : null;
+                int[] before = floor != null ? new int[] { floor.getKey(), floor.getValue() }
+                        : left != null ? new int[] { left[0], left[1] } : null;
+                int[] after = ceiling != null ? new int[] { ceiling.getKey(), ceiling.getValue() }
+                        : outside != null ? new int[] { outside[0], outside[0] } : null;
+                int[] best = before;
+                if (best == null || (after != null && (store - before[0] > after[0] - store
+                        || (store - before[0] == after[0] - store && after[1] < before[1]))))
+                    best = after;
+                if (best == null)
+                    continue;
+                int from = best[0];
+                int distance = Math.abs(store - from);
+                if (distance == 0 || tenges - distance < 0)
+                    continue; // ya está en la tienda o la ganancia sería negativa
+
+                int carried;
+                int origin;
+                if (best == before && floor == null) {
+                    carried = left[2]; // viene de una partición anterior
+                    origin = left[3];
+                    shards[left[4]].departed.add(new int[] { -1, left[0] });
+                    left = null;
+                } else if (best == after && ceiling == null) {
+                    int[] robot = right.take(); // viene de una partición siguiente
+                    carried = robot[1];
+                    origin = robot[2];
+                } else {
+                    carried = robotTenges.remove(from, 0);
+                    origin = robotOrigin.remove(from, from);
+                    index.remove(from);
+                }
+                int gain = tenges - distance;
+                storeTenges.put(store, 0);
+                robotTenges.put(store, carried + gain);
+                robotOrigin.put(store, origin);
+                profit += gain;
+                index.put(store, best[1]);
+            }
+            if (index.isEmpty())
+                return left;
+            int last = index.lastKey();
+            return new int[] { last, index.get(last), robotTenges.get(last, 0), robotOrigin.get(last, last),
+                    this.index };
+        }
+
+        void resupply() {
+            for (int cell : storeOriginal.keys()) {
+                storeTenges.put(cell, storeOriginal.get(cell, 0));
+            }
+        }
+
+        void resetRobots() {
+            for (int cell : robotTenges.keys()) {
+                robotTenges.put(cell, 0);
+            }
+            profit = 0;
+        }
+
+        int nonEmptyStores() {
+            int count = 0;
+            for (int cell : storeTenges.keys()) {
+                if (storeTenges.get(cell, 0) > 0)
+                    count++;
+            }
+            return count;
+        }
+
+        long tengesBetween(int a, int b) {
+            if (b < first || a >= end)
+                return 0;
+            long total = 0;
+            for (int cell : storeTenges.keys()) {
+                if (cell >= a && cell <= b)
+                    total += storeTenges.get(cell, 0);
+            }
+            return total;
+        }
+
+        int[][] entries(CellMap map) {
+            int[] cells = map.keys();
+            Arrays.sort(cells);
+            int[][] rows = new int[cells.length][];
+            for (int i = 0; i < cells.length; i++) {
+                rows[i] = new int[] { cells[i], map.get(cells[i], 0) };
+            }
+            return rows;
+        }
+    }
+}
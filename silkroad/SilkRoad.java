@@ -1,8 +1,23 @@
 package silkroad;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
 import javax.swing.JOptionPane;
+import shapes.Canvas;
+import shapes.OffscreenRenderer;
 
 /**
  * Clase principal que gestiona la SilkRoad, incluyendo tiendas, robots,
@@ -20,17 +35,47 @@ public class SilkRoad {
     private boolean lastOperationOK;
     private ProgressBar progressBar;
     private boolean visible;
+    private final boolean headless; // solo modelo: sin Road, barra ni diálogos
     private int maxProfit;
     private RobotAbstracto[] robotRefs;
     private StoreAbstracto[] storeRefs;
     private int[] robotOrigins;
     private int[][] profitPerLocation;
+    private FenwickTree profitTree; // espejo de profitPerLocation para sumas por rango
+    private IndexedHeap profitCells; // casillas con ganancia, por ganancia
+    private IndexedHeap richRobots; // casillas con robot, por tenges del robot
     private int[] originalStoreTenges;
+    private StoreSegmentTree storeTree; // espejo de stores[i][1] para consultas por rango
+    // Alcance de las tiendas que admiten un robot nuevo: tenges + casilla (para
+    // robots a su derecha) y tenges - casilla + length (a su izquierda)
+    private StoreSegmentTree reachFromRight;
+    private StoreSegmentTree reachFromLeft;
+    private StoreSegmentTree robotCells; // 1 en las casillas con robot
+
+    // Casillas tocadas desde el último reabastecimiento/reinicio: restaurar
+    // cuesta O(tocadas) y no O(longitud). Cada lista se vacía subiendo su época.
+    private int storeEpoch;
+    private int[] storeTouchedAt; // época en que se tocó cada tienda
+    private int[] touchedStores;
+    private int touchedStoreCount;
+    private int robotEpoch;
+    private int[] robotTouchedAt; // época en que se tocó cada casilla de robot
+    private int[] touchedRobots; // casillas a las que llegó un robot movido o con tenges
+    private int touchedRobotCount;
+    private int displacement; // suma de |casilla actual - origen| de los robots
     private boolean useFastMovement = false;
+    private AnimationTimeline pendingTimeline = null; // != null => animaciones diferidas
 
     private int[][] daysSchedule = null; // cada evento: [1,x] robot, [2,x,c] tienda
     private int dayIndexSchedule = -1; // -1 = no se ha aplicado ningún día
     private boolean dayMode = false; // true => reboot actúa como "pasar día"
+    private int[] dayAvailableTenges = null; // tenges disponibles al cierre de cada día
+    private long originalTotal; // suma de tenges originales de las tiendas existentes
+    private volatile SilkRoadListener[] listeners = new SilkRoadListener[0]; // copia al escribir
+
+    private static final int SAVE_MAGIC = 0x53494C4B; // "SILK"
+    private static final int SAVE_VERSION = 1;
+    private static final int LOAD_BYTES_PER_CELL = 128; // memoria aproximada de cada casilla al cargar
 
     /**
      * Constructor que inicializa la SilkRoad con la longitud dada.
@@ -38,7 +83,35 @@ public class SilkRoad {
      * @param length longitud de la SilkRoad (número de celdas)
      */
     public SilkRoad(int length) {
+        this(length, false);
+    }
+
+    /**
+     * Crea una SilkRoad solo de modelo, sin parte gráfica ni diálogos. Es
+     * independiente del Canvas compartido, así que muchas instancias pueden
+     * usarse a la vez desde hilos distintos (una por hilo).
+     *
+     * @param length longitud de la SilkRoad (número de celdas)
+     * @return SilkRoad sin visualización
+     */
+    public static SilkRoad headless(int length) {
+        return new SilkRoad(length, true);
+    }
+
+    /**
+     * Crea una SilkRoad solo de modelo a partir de un schedule de eventos
+     * diarios (ver {@link #headless(int)}).
+     *
+     * @param schedule matriz de eventos diarios
+     * @return SilkRoad sin visualización
+     */
+    public static SilkRoad headless(int[][] schedule) {
+        return new SilkRoad(schedule, true);
+    }
+
+    private SilkRoad(int length, boolean headless) {
         this.length = length;
+        this.headless = headless;
         this.positions = new int[length + 1][2];
         this.stores = new int[length + 1][2];
         this.robots = new int[length + 1][2];
@@ -46,23 +119,28 @@ public class SilkRoad {
         this.storeRefs = new StoreAbstracto[this.positions.length];
         this.robotOrigins = new int[length + 1];
         Arrays.fill(this.robotOrigins, -1);
-        this.road = new Road(length);
+        this.road = headless ? null : new Road(length);
         this.profitPerLocation = new int[this.positions.length + 1][2];
         for (int i = 0; i < this.profitPerLocation.length; i++) {
             this.profitPerLocation[i][0] = i; // location
             this.profitPerLocation[i][1] = 0; // acumulado
         }
-        int[][] roadPos = road.getPositions();
-        for (int i = 0; i < roadPos.length; i++) {
-            this.positions[i][0] = roadPos[i][0];
-            this.positions[i][1] = roadPos[i][1];
+        resetAnalytics();
+        if (road != null) {
+            int[][] roadPos = road.getPositions();
+            for (int i = 0; i < roadPos.length; i++) {
+                this.positions[i][0] = roadPos[i][0];
+                this.positions[i][1] = roadPos[i][1];
+            }
         }
         // En SilkRoad(int length)
         this.originalStoreTenges = new int[length + 1]; // Inicializar a 0 por defecto
-        this.progressBar = new ProgressBar(true);
+        resetStoreIndex();
+        resetTracking();
+        this.progressBar = headless ? null : new ProgressBar(true);
         this.profit = 0;
         this.maxProfit = 0;
-        this.visible = true;
+        this.visible = !headless;
         this.lastOperationOK = true;
     }
 
@@ -72,6 +150,11 @@ public class SilkRoad {
      * @param schedule matriz de eventos diarios
      */
     public SilkRoad(int[][] schedule) {
+        this(schedule, false);
+    }
+
+    private SilkRoad(int[][] schedule, boolean headless) {
+        this.headless = headless;
         int maxPos = 0;
         if (schedule != null) {
             for (int i = 1; i < schedule.length; i++) {
@@ -90,29 +173,35 @@ public class SilkRoad {
         this.storeRefs = new StoreAbstracto[this.positions.length];
         this.robotOrigins = new int[length + 1];
         Arrays.fill(this.robotOrigins, -1);
-        this.road = new Road(length);
+        this.road = headless ? null : new Road(length);
         this.profitPerLocation = new int[this.positions.length + 1][2];
         for (int i = 0; i < this.profitPerLocation.length; i++) {
             this.profitPerLocation[i][0] = i;
             this.profitPerLocation[i][1] = 0;
         }
-        int[][] roadPos = road.getPositions();
-        for (int i = 0; i < roadPos.length; i++) {
-            this.positions[i][0] = roadPos[i][0];
-            this.positions[i][1] = roadPos[i][1];
+        resetAnalytics();
+        if (road != null) {
+            int[][] roadPos = road.getPositions();
+            for (int i = 0; i < roadPos.length; i++) {
+                this.positions[i][0] = roadPos[i][0];
+                this.positions[i][1] = roadPos[i][1];
+            }
         }
-        this.progressBar = new ProgressBar(true);
+        this.progressBar = headless ? null : new ProgressBar(true);
         this.profit = 0;
         this.maxProfit = 0; // 🔹 Importante: reiniciar acumulado
-        this.visible = true;
+        this.visible = !headless;
         this.lastOperationOK = true;
 
         this.daysSchedule = schedule;
         this.dayIndexSchedule = 0;
         this.dayMode = true;
+        this.dayAvailableTenges = new int[schedule != null ? schedule.length : 1];
 
         // En SilkRoad(int[][] schedule) - igual, después de calcular length
         this.originalStoreTenges = new int[length + 1]; // Inicializar a 0 por defecto
+        resetStoreIndex();
+        resetTracking();
     }
 
     /**
@@ -124,28 +213,33 @@ public class SilkRoad {
         return length;
     }
 
+    /**
+     * @return true si es una SilkRoad solo de modelo (ver {@link #headless(int)})
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
     /**
      * Muestra el profit acumulado por cada ubicación.
      */
     public void profitPerMove() {
         boolean found = false;
-        String message = "Profit por ubicación:\n";
+        StringBuilder message = new StringBuilder("Profit por ubicación:\n");
         for (int i = 0; i < profitPerLocation.length; i++) {
             if (profitPerLocation[i][1] > 0) {
-                message += "- Casilla " + profitPerLocation[i][0] +
-                        " → " + profitPerLocation[i][1] + " tenges\n";
+                message.append("- Casilla ").append(profitPerLocation[i][0])
+                        .append(" → ").append(profitPerLocation[i][1]).append(" tenges\n");
                 found = true;
             }
         }
         if (found) {
-            JOptionPane.showMessageDialog(
-                    null,
-                    message,
+            mostrar(
+                    message.toString(),
                     "Profit por movimiento",
                     JOptionPane.INFORMATION_MESSAGE);
         } else {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "No hay ganancias registradas aún.",
                     "Sin datos de profit",
                     JOptionPane.INFORMATION_MESSAGE);
@@ -174,8 +268,7 @@ public class SilkRoad {
         StoreAbstracto store = crearTienda(type);
 
         if (store == null) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "Tipo de tienda desconocido: " + type +
                             "\nTipos válidos: normal, autonomous, fighter",
                     "Error: Tipo inválido",
@@ -188,6 +281,26 @@ public class SilkRoad {
         addStoreToLocation(store, type, location, tenges);
     }
 
+    /**
+     * Coloca una tienda del tipo con el id dado (ver {@link #storeTypeId}).
+     *
+     * @param typeId   id del tipo de tienda
+     * @param location ubicación para la tienda
+     * @param tenges   cantidad inicial de tenges
+     */
+    public void placeStore(int typeId, int location, int tenges) {
+        String type = TypeRegistry.STORES.nameOf(typeId);
+        if (type == null) {
+            mostrar(
+                    "Id de tipo de tienda desconocido: " + typeId,
+                    "Error: Tipo inválido",
+                    JOptionPane.ERROR_MESSAGE);
+            lastOperationOK = false;
+            return;
+        }
+        addStoreToLocation(TypeRegistry.STORES.obtain(typeId, this.visible), type, location, tenges);
+    }
+
     /**
      * Método privado que posiciona la tienda con validaciones.
      * Determina automáticamente la ubicación para tiendas autónomas.
@@ -202,42 +315,43 @@ public class SilkRoad {
         if (store.necesitaPosicionAleatoria()) {
             location = encontrarPosicionRandom();
             if (location < 0) {
-                JOptionPane.showMessageDialog(
-                        null,
+                mostrar(
                         "No hay posiciones disponibles para colocar una tienda autónoma.",
                         "Error: Sin espacio",
                         JOptionPane.ERROR_MESSAGE);
                 lastOperationOK = false;
+                liberar(store);
                 return;
             }
         }
 
         // Validar ubicación
         if (location < 0 || location >= positions.length) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "Índice de casilla inválido: " + location,
                     "Error",
                     JOptionPane.ERROR_MESSAGE);
             lastOperationOK = false;
+            liberar(store);
             return;
         }
 
         if (storeRefs[location] != null) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "Ya existe una tienda en la casilla " + location,
                     "Advertencia",
                     JOptionPane.WARNING_MESSAGE);
             lastOperationOK = false;
+            liberar(store);
             return;
         }
 
         // Posicionar tienda
         storeRefs[location] = store;
         stores[location][0] = location;
-        stores[location][1] = tenges;
+        setStoreTenges(location, tenges);
         originalStoreTenges[location] = tenges;
+        originalTotal += tenges;
         maxProfit += tenges;
         updateProgressBar();
 
@@ -248,13 +362,12 @@ public class SilkRoad {
         }
 
         // Mensaje de confirmación
-        JOptionPane.showMessageDialog(
-                null,
+        mostrar(
                 "Tienda " + type + " colocada en la casilla " + location + " con " + tenges + " tenges.",
                 "Tienda creada",
                 JOptionPane.INFORMATION_MESSAGE);
 
-        transferTengesIfCoincide(0); // Robot recién colocado tiene 0 tenges
+        transferTengesIfCoincide(location, 0); // Robot recién colocado tiene 0 tenges
         lastOperationOK = true;
     }
 
@@ -286,53 +399,79 @@ public class SilkRoad {
     }
 
     /**
-     * Método privado que crea una tienda según su tipo.
-     * ESTE ES EL ÚNICO LUGAR donde se especifica qué clase instanciar.
-     * Para agregar un nuevo tipo: agregar un case aquí.
+     * Método privado que crea una tienda según su tipo, reutilizando una
+     * liberada si hay. Los tipos se registran en {@link TypeRegistry}.
      * 
      * @param type tipo de tienda ("normal", "autonomous", "fighter", etc.)
      * @return instancia de StoreAbstracto del tipo pedido, o null si inválido
      */
     private StoreAbstracto crearTienda(String type) {
-        type = type.toLowerCase();
-
-        switch (type) {
-            case "normal":
-                return new Store(this.visible);
-            case "autonomous":
-                return new AutonomousStore(this.visible);
-            case "fighter":
-                return new FighterStore(this.visible);
-            case "casino":
-                return new CasinoStore(this.visible);
-            // AGREGAR NUEVOS TIPOS DE TIENDAS AQUÍ (solo agregar case)
-            default:
-                return null;
-        }
+        return TypeRegistry.STORES.obtain(TypeRegistry.STORES.idOf(type), this.visible);
     }
 
     /**
-     * Método privado que crea un robot según su tipo.
-     * ESTE ES EL ÚNICO LUGAR donde se especifica qué clase instanciar.
-     * Para agregar un nuevo tipo: agregar un case aquí.
+     * Método privado que crea un robot según su tipo, reutilizando uno
+     * liberado si hay. Los tipos se registran en {@link TypeRegistry}.
      * 
      * @param type tipo de robot ("normal", "neverback", "tender", etc.)
      * @return instancia de RobotAbstracto del tipo pedido, o null si inválido
      */
     private RobotAbstracto crearRobot(String type) {
-        type = type.toLowerCase();
+        return TypeRegistry.ROBOTS.obtain(TypeRegistry.ROBOTS.idOf(type), this.visible);
+    }
 
-        switch (type) {
-            case "normal":
-                return new Robot(this.visible);
-            case "neverback":
-                return new NeverbackRobot(this.visible);
-            case "tender":
-                return new TenderRobot(this.visible);
-            // AGREGAR NUEVOS TIPOS DE ROBOTS AQUÍ (solo agregar case)
-            default:
-                return null;
-        }
+    /**
+     * Oculta una tienda que ya no se usa y la devuelve a la reserva.
+     */
+    private static void liberar(StoreAbstracto store) {
+        store.makeInvisible();
+        TypeRegistry.STORES.release(store);
+    }
+
+    /**
+     * Oculta un robot que ya no se usa y lo devuelve a la reserva.
+     */
+    private static void liberar(RobotAbstracto robot) {
+        robot.makeInvisible();
+        TypeRegistry.ROBOTS.release(robot);
+    }
+
+    /**
+     * Registra un nuevo tipo de robot para usarlo en placeRobot.
+     *
+     * @param name    nombre del tipo (sin distinguir mayúsculas)
+     * @param factory constructor que recibe la visibilidad inicial
+     * @return id del tipo (el existente si el nombre ya estaba registrado)
+     */
+    public static int registerRobotType(String name, Function<Boolean, ? extends RobotAbstracto> factory) {
+        return TypeRegistry.ROBOTS.register(name, factory);
+    }
+
+    /**
+     * Registra un nuevo tipo de tienda para usarlo en placeStore.
+     *
+     * @param name    nombre del tipo (sin distinguir mayúsculas)
+     * @param factory constructor que recibe la visibilidad inicial
+     * @return id del tipo (el existente si el nombre ya estaba registrado)
+     */
+    public static int registerStoreType(String name, Function<Boolean, ? extends StoreAbstracto> factory) {
+        return TypeRegistry.STORES.register(name, factory);
+    }
+
+    /**
+     * @param name nombre del tipo de robot
+     * @return id del tipo o -1 si no está registrado
+     */
+    public static int robotTypeId(String name) {
+        return TypeRegistry.ROBOTS.idOf(name);
+    }
+
+    /**
+     * @param name nombre del tipo de tienda
+     * @return id del tipo o -1 si no está registrado
+     */
+    public static int storeTypeId(String name) {
+        return TypeRegistry.STORES.idOf(name);
     }
 
     /**
@@ -351,14 +490,12 @@ public class SilkRoad {
         }
 
         if (found) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     message,
                     "Tiendas vacías",
                     JOptionPane.INFORMATION_MESSAGE);
         } else {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "No hay tiendas vacías actualmente.",
                     "Sin tiendas vacías",
                     JOptionPane.INFORMATION_MESSAGE);
@@ -367,31 +504,29 @@ public class SilkRoad {
 
     /**
      * Restaura todas las tiendas a su valor original de tenges.
+     * Solo recorre las tiendas tocadas desde el último reabastecimiento o
+     * reinicio, así que cuesta O(tiendas tocadas) y no O(longitud).
      */
     public void resupplyStores() {
-        for (int i = 0; i < stores.length; i++) {
+        // Solo las tiendas tocadas desde el último reabastecimiento pueden haber
+        // perdido tenges
+        for (int k = 0; k < touchedStoreCount; k++) {
+            int i = touchedStores[k];
             if (storeRefs[i] != null) {
-                // Obtener el valor original registrado en profitPerLocation
-                int originalTenges = profitPerLocation[i][1];
-
-                // Si no hay registro válido, usar el valor actual como referencia base
-                if (originalTenges <= 0) {
-                    originalTenges = stores[i][1];
-                }
-
+                int originalTenges = originalStoreTenges[i];
                 int diff = originalTenges - stores[i][1]; // diferencia a reponer
 
                 if (diff > 0) {
-                    stores[i][1] = originalTenges; // restaurar valor original
+                    setStoreTenges(i, originalTenges); // restaurar valor original
                     maxProfit += diff; // ajustar ganancia máxima acumulada
                 }
             }
         }
+        clearTouchedStores();
 
         updateProgressBar();
 
-        JOptionPane.showMessageDialog(
-                null,
+        mostrar(
                 "Todas las tiendas han sido reabastecidas a su valor original de tenges.",
                 "Tiendas reabastecidas",
                 JOptionPane.INFORMATION_MESSAGE);
@@ -424,8 +559,7 @@ public class SilkRoad {
         RobotAbstracto robot = crearRobot(type);
 
         if (robot == null) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "Tipo de robot desconocido: " + type +
                             "\nTipos válidos: normal, neverback, tender",
                     "Error: Tipo inválido",
@@ -438,6 +572,25 @@ public class SilkRoad {
         addRobotToLocation(robot, type, location);
     }
 
+    /**
+     * Coloca un robot del tipo con el id dado (ver {@link #robotTypeId}).
+     *
+     * @param typeId   id del tipo de robot
+     * @param location ubicación para el robot
+     */
+    public void placeRobot(int typeId, int location) {
+        String type = TypeRegistry.ROBOTS.nameOf(typeId);
+        if (type == null) {
+            mostrar(
+                    "Id de tipo de robot desconocido: " + typeId,
+                    "Error: Tipo inválido",
+                    JOptionPane.ERROR_MESSAGE);
+            lastOperationOK = false;
+            return;
+        }
+        addRobotToLocation(TypeRegistry.ROBOTS.obtain(typeId, this.visible), type, location);
+    }
+
     /**
      * Método privado que posiciona el robot con validaciones.
      * 
@@ -447,26 +600,27 @@ public class SilkRoad {
      */
     private void addRobotToLocation(RobotAbstracto robot, String type, int location) {
         if (location < 0 || location >= positions.length) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "Índice de casilla inválido: " + location,
                     "Error",
                     JOptionPane.ERROR_MESSAGE);
+            liberar(robot);
             return;
         }
         if (robotRefs[location] != null) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "Ya existe un robot en la casilla " + location,
                     "Advertencia",
                     JOptionPane.WARNING_MESSAGE);
+            liberar(robot);
             return;
         }
 
         robotRefs[location] = robot;
         robots[location][0] = location;
-        robots[location][1] = 0;
+        setRobotTenges(location, 0);
         robotOrigins[location] = location;
+        fireRobotMoved(-1, location);
 
         if (this.visible && road != null) {
             road.assignRobot(robot);
@@ -474,7 +628,7 @@ public class SilkRoad {
             robot.makeVisible();
         }
 
-        transferTengesIfCoincide(0); // Robot recién colocado tiene 0 tenges
+        transferTengesIfCoincide(location, 0); // Robot recién colocado tiene 0 tenges
         lastOperationOK = true;
     }
 
@@ -487,8 +641,7 @@ public class SilkRoad {
     public void moveRobot(int location, int meters) {
         // Validar ubicación origen
         if (location < 0 || location >= robotRefs.length) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "Índice origen inválido: " + location,
                     "Error de movimiento",
                     JOptionPane.ERROR_MESSAGE);
@@ -498,8 +651,7 @@ public class SilkRoad {
         // Validar que existe robot en la ubicación
         RobotAbstracto r = robotRefs[location];
         if (r == null) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "No hay robot en la casilla " + location,
                     "Error de movimiento",
                     JOptionPane.ERROR_MESSAGE);
@@ -528,8 +680,7 @@ public class SilkRoad {
         // Calcular nueva ubicación
         int newLocation = location + meters;
         if (newLocation < 0 || newLocation >= robotRefs.length) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "Movimiento inválido: fuera de límites.",
                     "Error de movimiento",
                     JOptionPane.ERROR_MESSAGE);
@@ -539,8 +690,7 @@ public class SilkRoad {
 
         // Validar que la ubicación destino está libre
         if (robotRefs[newLocation] != null) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "Ya existe un robot en la casilla destino " + newLocation,
                     "Advertencia",
                     JOptionPane.WARNING_MESSAGE);
@@ -558,17 +708,19 @@ public class SilkRoad {
 
         // Mover el robot lógicamente
         robotRefs[location] = null;
-        robots[location][0] = 0;
-        robots[location][1] = 0;
+        clearRobotCell(location);
 
         robotRefs[newLocation] = r;
         robots[newLocation][0] = newLocation;
-        robots[newLocation][1] = 0;
+        setRobotTenges(newLocation, 0);
 
         // Actualizar visualización si está visible
         if (this.visible && road != null) {
             road.assignRobot(r);
-            if (useFastMovement) {
+            if (pendingTimeline != null) {
+                // Animación diferida: se reproduce junto con los demás robots
+                pendingTimeline.addLeg(r, location, meters);
+            } else if (useFastMovement) {
                 // Modo rápido: instantáneo, sin animación
                 road.reposition(location, meters, r);
             } else {
@@ -578,16 +730,17 @@ public class SilkRoad {
         }
 
         // Recolectar tenges de la tienda (si hay una)
-        int collected = transferTengesIfCoincide(tengesActuales);
+        int collected = transferTengesIfCoincide(newLocation, tengesActuales);
 
         // ✅ DELEGACIÓN: Pedir al robot que calcule su propia ganancia
         int netGain = r.calcularGanancia(collected, distance);
 
         // Actualizar estado del robot y global
-        robots[newLocation][1] = tengesActuales + netGain;
+        setRobotTenges(newLocation, tengesActuales + netGain);
         profit += netGain;
-        profitPerLocation[newLocation][1] += netGain;
+        addProfitAt(newLocation, netGain);
         robotOrigins[newLocation] = originVal;
+        trackRobotMove(originVal, location, newLocation);
 
         // Actualizar interfaz
         updateProgressBar();
@@ -616,8 +769,7 @@ public class SilkRoad {
             // Si el movimiento es rechazado, mostrar mensaje del robot
             String mensaje = r.obtenerMensajeRechazo();
             if (!mensaje.isEmpty()) {
-                JOptionPane.showMessageDialog(
-                        null,
+                mostrar(
                         mensaje,
                         "Movimiento rechazado",
                         JOptionPane.WARNING_MESSAGE);
@@ -651,8 +803,7 @@ public class SilkRoad {
             this.maxProfit = 0;
             updateProgressBar();
 
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "No hay tiendas o robots disponibles para mover.",
                     "Sin movimientos posibles",
                     JOptionPane.INFORMATION_MESSAGE);
@@ -670,40 +821,408 @@ public class SilkRoad {
             robotActual[i] = robots.get(i); // Posición actual
         }
 
-        // Recorrer todas las tiendas en orden sorted
+        // En modo lento las animaciones se acumulan y se reproducen todas juntas
+        // al final, con un único reloj (el tiempo lo marca el recorrido más largo)
+        if (this.visible && road != null && !useFastMovement) {
+            pendingTimeline = new AnimationTimeline();
+        }
+
+        RobotIndex indice = new RobotIndex(length, robotActual);
+
+        try {
+            // Recorrer todas las tiendas en orden sorted
+            for (int tienda : tiendas) {
+                // El robot de mayor ganancia (tenges - distancia) es el más cercano
+                int robotSeleccionado = indice.nearest(tienda);
+                int mejorGanancia = robotSeleccionado == -1 ? Integer.MIN_VALUE
+                        : stores[tienda][1] - Math.abs(tienda - indice.positionOf(robotSeleccionado));
+
+                // Solo mover si la ganancia es >= 0 (evita movimientos perdedores;
+                if (robotSeleccionado != -1 && mejorGanancia >= 0) {
+                    int posActualRobot = indice.positionOf(robotSeleccionado);
+                    int meters = tienda - posActualRobot; // Desplazamiento necesario
+
+                    // Ejecutar el movimiento real
+                    moveRobot(posActualRobot, meters);
+
+                    // Actualizar posición del robot para la siguiente asignación
+                    indice.move(robotSeleccionado, tienda);
+                }
+                // Si mejorGanancia < 0, ignoramos (no movemos a esa tienda) - esto coincide con
+                // el cálculo óptimo
+            }
+        } finally {
+            // Reproducir todos los movimientos a la vez (también los ya hechos si
+            // algo falló), y no dejar la línea de tiempo pendiente
+            if (pendingTimeline != null) {
+                AnimationTimeline timeline = pendingTimeline;
+                pendingTimeline = null;
+                if (road != null)
+                    road.playTimeline(timeline, true);
+            }
+        }
+
+        // Actualizar barra final (profit actual vs. maxProfit óptimo)
+        updateProgressBar();
+
+        // Movimiento óptimo completado
+    }
+
+    /**
+     * Mueve los robots según el plan de {@link FleetPlanner}, que respeta el
+     * tipo de cada robot: cuánto recolecta (un TenderRobot toma la mitad) y si
+     * puede devolverse (un NeverbackRobot solo avanza en una dirección). Cada
+     * robot recorre en orden las tiendas que le tocan. Solo se planifican las
+     * tiendas que aceptan a cualquier robot (las FighterStore dependen de los
+     * tenges con que llegue el robot y se dejan fuera). La ganancia del plan
+     * queda como tope de la barra de progreso (los movimientos lo recalculan y
+     * al final se restaura).
+     * Si la casilla de una parada está ocupada por un robot que aún no ha
+     * salido, esa ruta espera a que los demás avancen; si nunca se libera, o
+     * si un movimiento falla, el robot termina su ruta ahí y la operación
+     * queda como fallida.
+     */
+    public void moveRobotsPlanned() {
+        List<Integer> robotList = getActiveRobots();
+        List<Integer> tiendas = new ArrayList<>();
+        for (int tienda : getActiveStores()) {
+            if (storeRefs[tienda].puedeRecibirRobot(0, stores[tienda][1]))
+                tiendas.add(tienda);
+        }
+        if (tiendas.isEmpty() || robotList.isEmpty()) {
+            this.maxProfit = 0;
+            updateProgressBar();
+            mostrar(
+                    "No hay tiendas o robots disponibles para mover.",
+                    "Sin movimientos posibles",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        int[] posiciones = new int[tiendas.size()];
+        int[] tenges = new int[tiendas.size()];
+        for (int i = 0; i < posiciones.length; i++) {
+            posiciones[i] = tiendas.get(i);
+            tenges[i] = stores[posiciones[i]][1];
+        }
+        FleetPlanner planner = new FleetPlanner(posiciones, tenges);
+        // Una regla por tipo de robot: los del mismo tipo comparten sumas
+        Map<Class<?>, IntUnaryOperator> reglas = new HashMap<>();
+        for (int pos : robotList) {
+            RobotAbstracto r = robotRefs[pos];
+            planner.addRobot(pos, reglas.computeIfAbsent(r.getClass(), c -> r::recolectarTenges),
+                    r.recorridoMonotono());
+        }
+        int planeado = (int) planner.plan();
+        this.maxProfit = planeado;
+        updateProgressBar();
+
+        int[][] rutas = new int[robotList.size()][];
+        int[] actual = new int[rutas.length];
+        int[] siguiente = new int[rutas.length];
+        boolean[] fallo = new boolean[rutas.length];
+        for (int i = 0; i < rutas.length; i++) {
+            rutas[i] = planner.route(i);
+            actual[i] = robotList.get(i);
+        }
+
+        // Avanzar las rutas por rondas hasta que ninguna pueda seguir
+        boolean avanzo = true;
+        while (avanzo) {
+            avanzo = false;
+            for (int i = 0; i < rutas.length; i++) {
+                while (!fallo[i] && siguiente[i] < rutas[i].length) {
+                    int destino = rutas[i][siguiente[i]];
+                    if (robotRefs[destino] != null)
+                        break; // otro robot aún no sale de ahí
+                    moveRobot(actual[i], destino - actual[i]);
+                    if (!lastOperationOK) {
+                        fallo[i] = true; // no se reintenta en otra ronda
+                        break;
+                    }
+                    actual[i] = destino;
+                    siguiente[i]++;
+                    avanzo = true;
+                }
+            }
+        }
+
+        boolean completo = true;
+        for (int i = 0; i < rutas.length; i++) {
+            completo &= siguiente[i] == rutas[i].length;
+        }
+        this.maxProfit = planeado;
+        updateProgressBar();
+        if (!completo) {
+            mostrar(
+                    "Algunos robots no pudieron terminar su ruta planeada.",
+                    "Advertencia",
+                    JOptionPane.WARNING_MESSAGE);
+        }
+        lastOperationOK = completo;
+    }
+
+    /**
+     * Mueve un robot por las tiendas en el orden que más ganancia le deja,
+     * buscado con {@link FighterPlanner}. Sirve cuando hay FighterStore: el
+     * robot visita primero las tiendas que lo dejan entrar y llega a las
+     * exigentes con tenges suficientes, en lugar de ser rechazado.
+     * Se consideran las {@link FighterPlanner#MAX_STORES} tiendas con tenges más
+     * cercanas que no tengan otro robot encima.
+     *
+     * @param location     casilla del robot
+     * @param budgetMillis tiempo máximo de búsqueda (0: sin límite); al
+     *                     vencer se usa el mejor orden encontrado
+     */
+    public void moveRobotPlanned(int location, long budgetMillis) {
+        if (location < 0 || location >= robotRefs.length || robotRefs[location] == null) {
+            mostrar(
+                    "No hay robot en la casilla " + location,
+                    "Error de movimiento",
+                    JOptionPane.ERROR_MESSAGE);
+            lastOperationOK = false;
+            return;
+        }
+        RobotAbstracto r = robotRefs[location];
+        List<Integer> tiendas = getActiveStores();
+        tiendas.removeIf(t -> robotRefs[t] != null);
+        tiendas.sort(Comparator.comparingInt(t -> Math.abs(t - location)));
+
+        FighterPlanner planner = new FighterPlanner(location, robots[location][1], r::recolectarTenges);
         for (int tienda : tiendas) {
-            int mejorGanancia = Integer.MIN_VALUE;
-            int robotSeleccionado = -1;
-
-            // Elegir el robot que obtiene mayor ganancia para esta tienda
-            for (int i = 0; i < robots.size(); i++) {
-                int distancia = Math.abs(tienda - robotActual[i]);
-                int ganancia = stores[tienda][1] - distancia; // Tenges - distancia
-                if (ganancia > mejorGanancia) {
-                    mejorGanancia = ganancia;
-                    robotSeleccionado = i;
+            if (!planner.addStore(tienda, stores[tienda][1], storeRefs[tienda]::puedeRecibirRobot))
+                break;
+        }
+        FighterPlanner.Plan plan = planner.plan(budgetMillis);
+
+        int actual = location;
+        for (int destino : plan.order()) {
+            moveRobot(actual, destino - actual);
+            if (!lastOperationOK)
+                return;
+            actual = destino;
+        }
+        lastOperationOK = true;
+    }
+
+    /**
+     * Mueve varios robots simultáneamente en un solo paso atómico.
+     * Cada fila de moves es {location, meters}. Los destinos se resuelven en
+     * conjunto: un robot puede ocupar la casilla que otro robot del mismo grupo
+     * libera, por lo que los intercambios son posibles. Si varios robots
+     * apuntan a la misma casilla gana el de menor recorrido (en empate, el de
+     * menor posición) y los demás se quedan en su lugar; lo mismo ocurre con
+     * los robots cuyo destino queda ocupado por un robot que no se mueve o cuyo
+     * movimiento es rechazado por el propio robot.
+     * Las transferencias con las tiendas se hacen en una sola pasada y, si está
+     * visible, todos los robots se animan en los mismos cuadros.
+     * Si alguna fila es inválida (índice fuera de rango, sin robot o repetida)
+     * no se mueve ningún robot.
+     *
+     * @param moves matriz de movimientos {posición actual, desplazamiento}
+     */
+    public void moveRobots(int[][] moves) {
+        if (moves == null || moves.length == 0) {
+            lastOperationOK = false;
+            return;
+        }
+
+        int n = moves.length;
+        int[] from = new int[n];
+        int[] meters = new int[n];
+        boolean[] active = new boolean[n];
+        Set<Integer> origins = new HashSet<>();
+
+        // --- Validación completa antes de tocar el estado (atomicidad) ---
+        for (int k = 0; k < n; k++) {
+            String error = null;
+            if (moves[k] == null || moves[k].length < 2) {
+                error = "Movimiento " + k + " mal formado.";
+            } else {
+                from[k] = moves[k][0];
+                meters[k] = moves[k][1];
+                int to = from[k] + meters[k];
+                if (from[k] < 0 || from[k] >= robotRefs.length) {
+                    error = "Índice origen inválido: " + from[k];
+                } else if (robotRefs[from[k]] == null) {
+                    error = "No hay robot en la casilla " + from[k];
+                } else if (!origins.add(from[k])) {
+                    error = "El robot de la casilla " + from[k] + " aparece más de una vez.";
+                } else if (to < 0 || to >= robotRefs.length) {
+                    error = "Movimiento inválido: fuera de límites (" + from[k] + " → " + to + ").";
                 }
             }
+            if (error != null) {
+                mostrar(
+                        error + "\nNo se movió ningún robot.",
+                        "Error de movimiento grupal",
+                        JOptionPane.ERROR_MESSAGE);
+                lastOperationOK = false;
+                return;
+            }
+            // Cada robot decide si acepta el movimiento (polimórfico)
+            active[k] = meters[k] != 0 && robotRefs[from[k]].isMovementAllowed(meters[k]);
+        }
 
-            // Solo mover si la ganancia es >= 0 (evita movimientos perdedores;
-            if (robotSeleccionado != -1 && mejorGanancia >= 0) {
-                int posActualRobot = robotActual[robotSeleccionado];
-                int meters = tienda - posActualRobot; // Desplazamiento necesario
+        resolveGroupConflicts(from, meters, active);
+
+        // --- Guardar estado de los robots que sí se mueven ---
+        RobotAbstracto[] moving = new RobotAbstracto[n];
+        int[] tenges = new int[n];
+        int[] originVals = new int[n];
+        for (int k = 0; k < n; k++) {
+            if (!active[k])
+                continue;
+            moving[k] = robotRefs[from[k]];
+            tenges[k] = robots[from[k]][1];
+            originVals[k] = robotOrigins[from[k]] == -1 ? from[k] : robotOrigins[from[k]];
+        }
+
+        // --- Paso atómico: primero se liberan todos los orígenes, luego se ocupan
+        // los destinos (así un intercambio no pisa a ningún robot) ---
+        for (int k = 0; k < n; k++) {
+            if (!active[k])
+                continue;
+            robotRefs[from[k]] = null;
+            clearRobotCell(from[k]);
+            robotOrigins[from[k]] = -1;
+        }
+        for (int k = 0; k < n; k++) {
+            if (!active[k])
+                continue;
+            int to = from[k] + meters[k];
+            robotRefs[to] = moving[k];
+            robots[to][0] = to;
+            setRobotTenges(to, 0);
+            robotOrigins[to] = originVals[k];
+            trackRobotMove(originVals[k], from[k], to);
+            moving[k].resetDirection();
+        }
 
-                // Ejecutar el movimiento real
-                moveRobot(posActualRobot, meters);
+        // --- Animación conjunta (mismos cuadros para todos) ---
+        if (this.visible && road != null) {
+            road.moveRobotsVisual(from, meters, moving, !useFastMovement);
+        }
 
-                // Actualizar posición del robot para la siguiente asignación
-                robotActual[robotSeleccionado] = tienda;
+        // --- Transferencias en una sola pasada ---
+        StringBuilder resumen = new StringBuilder("Movimiento grupal:\n");
+        int movidos = 0;
+        for (int k = 0; k < n; k++) {
+            int to = from[k] + meters[k];
+            if (!active[k]) {
+                resumen.append("- Robot en ").append(from[k]).append(" se quedó en su lugar\n");
+                continue;
             }
-            // Si mejorGanancia < 0, ignoramos (no movemos a esa tienda) - esto coincide con
-            // el cálculo óptimo
+            int collected = collectAt(to, moving[k], tenges[k]);
+            int netGain = moving[k].calcularGanancia(collected, Math.abs(meters[k]));
+            setRobotTenges(to, tenges[k] + netGain);
+            profit += netGain;
+            addProfitAt(to, netGain);
+            movidos++;
+            resumen.append("- Robot ").append(from[k]).append(" → ").append(to)
+                    .append(" | recogió ").append(collected)
+                    .append(" | ganancia ").append(netGain).append("\n");
         }
 
-        // Actualizar barra final (profit actual vs. maxProfit óptimo)
         updateProgressBar();
+        updateMaxProfit();
 
-        // Movimiento óptimo completado
+        if (this.visible) {
+            mostrar(
+                    resumen.toString(),
+                    "Robots movidos: " + movidos + " de " + n,
+                    JOptionPane.INFORMATION_MESSAGE);
+        }
+
+        lastOperationOK = true;
+    }
+
+    /**
+     * Resuelve los conflictos de un movimiento grupal desactivando movimientos
+     * hasta que el conjunto sea consistente:
+     * - Dos robots con el mismo destino: gana el de menor recorrido (en empate,
+     * el de menor posición de origen).
+     * - Destino ocupado por un robot que no se mueve: el movimiento se cancela.
+     * Cancelar un movimiento puede bloquear otro (el robot se queda), por eso se
+     * repite hasta que no haya cambios.
+     *
+     * @param from   posiciones de origen
+     * @param meters desplazamientos
+     * @param active movimientos activos (se modifica en el lugar)
+     */
+    private void resolveGroupConflicts(int[] from, int[] meters, boolean[] active) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            Set<Integer> leaving = new HashSet<>();
+            Map<Integer, Integer> winners = new HashMap<>();
+            for (int k = 0; k < from.length; k++) {
+                if (!active[k])
+                    continue;
+                leaving.add(from[k]);
+                int to = from[k] + meters[k];
+                Integer other = winners.get(to);
+                if (other == null) {
+                    winners.put(to, k);
+                } else if (Math.abs(meters[k]) < Math.abs(meters[other])
+                        || (Math.abs(meters[k]) == Math.abs(meters[other]) && from[k] < from[other])) {
+                    active[other] = false;
+                    winners.put(to, k);
+                    changed = true;
+                } else {
+                    active[k] = false;
+                    changed = true;
+                }
+            }
+
+            for (int k = 0; k < from.length; k++) {
+                if (!active[k])
+                    continue;
+                int to = from[k] + meters[k];
+                if (robotRefs[to] != null && !leaving.contains(to)) {
+                    active[k] = false; // Destino ocupado por un robot que se queda
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Recolecta los tenges de la tienda en una casilla concreta para un robot
+     * dado, sin mostrar diálogos. Respeta las reglas polimórficas de la tienda
+     * (puede rechazar al robot) y del robot (cuánto recolecta).
+     *
+     * @param location    casilla del robot
+     * @param r           robot que llega a la casilla
+     * @param robotTenges tenges actuales del robot
+     * @return cantidad de tenges recolectados (0 si no hay tienda o rechaza)
+     */
+    private int collectAt(int location, RobotAbstracto r, int robotTenges) {
+        StoreAbstracto s = storeRefs[location];
+        if (s == null || stores[location][1] <= 0)
+            return 0;
+
+        int storeTenges = stores[location][1];
+        if (!s.puedeRecibirRobot(robotTenges, storeTenges))
+            return 0;
+
+        int collected = recolectar(r, s, storeTenges);
+        int finalTransferencia = s.procesarTransferencia(collected);
+        setStoreTenges(location, Math.max(0, storeTenges - finalTransferencia));
+        return finalTransferencia;
+    }
+
+    /**
+     * Pasa los tenges de la tienda al robot: el robot decide cuánto toma y la
+     * tienda lo valida. Delega en la Road cuando existe.
+     *
+     * @return tenges transferidos
+     */
+    private int recolectar(RobotAbstracto r, StoreAbstracto s, int storeTenges) {
+        if (road != null)
+            return road.transferirTenges(r, s, storeTenges);
+        return s.validarTransferencia(r.recolectarTenges(storeTenges));
     }
 
     /**
@@ -728,27 +1247,20 @@ public class SilkRoad {
         }
 
         int gananciaMaxima = 0; // Solo suma ganancias >=0
+        RobotIndex indice = new RobotIndex(length, robotActual);
 
         // Recorrer todas las tiendas en orden sorted
         for (int tienda : tiendas) {
-            int mejorGanancia = Integer.MIN_VALUE;
-            int robotSeleccionado = -1;
-
-            // Elegir el robot que obtiene mayor ganancia para esta tienda
-            for (int i = 0; i < robots.size(); i++) {
-                int distancia = Math.abs(tienda - robotActual[i]);
-                int ganancia = stores[tienda][1] - distancia; // Tenges - distancia
-                if (ganancia > mejorGanancia) {
-                    mejorGanancia = ganancia;
-                    robotSeleccionado = i;
-                }
-            }
+            // El robot de mayor ganancia (tenges - distancia) es el más cercano
+            int robotSeleccionado = indice.nearest(tienda);
+            int mejorGanancia = robotSeleccionado == -1 ? Integer.MIN_VALUE
+                    : stores[tienda][1] - Math.abs(tienda - indice.positionOf(robotSeleccionado));
 
             // Solo "asignar" (sumar) si la ganancia es >= 0 (omite no rentables)
             if (robotSeleccionado != -1 && mejorGanancia >= 0) {
                 gananciaMaxima += mejorGanancia;
                 // Actualizar posición virtual del robot para la siguiente asignación
-                robotActual[robotSeleccionado] = tienda;
+                indice.move(robotSeleccionado, tienda);
             }
             // Si <0, omitir (no suma nada, como en tu ejemplo de 3 tiendas)
         }
@@ -778,69 +1290,86 @@ public class SilkRoad {
      */
     private List<Integer> getActiveStores() {
         List<Integer> result = new ArrayList<>();
-        for (int i = 0; i < storeRefs.length; i++) {
-            if (storeRefs[i] != null && stores[i][1] > 0) {
+        // El árbol salta directo de una tienda con tenges a la siguiente (ya en orden)
+        for (int i = storeTree.nextNonEmpty(0); i != -1; i = storeTree.nextNonEmpty(i + 1)) {
+            if (storeRefs[i] != null) {
                 result.add(i);
             }
         }
-        Collections.sort(result); // Ordenar por posición, como en getTiendasActivas()
         return result;
     }
 
     /**
      * Devuelve todos los robots a su posición original registrada.
-     * Conserva los tenges actuales de cada robot.
+     * Conserva los tenges actuales de cada robot. Solo recorre los robots que
+     * se movieron y lo hace en dos fases (levantar y ubicar), así un robot
+     * nunca pisa a otro que aún no ha regresado.
      * Muestra mensajes informativos según el estado (visible/invisible).
      */
     public void returnRobots() {
         boolean anyReturned = false; // para saber si se devolvió al menos un robot
         boolean silentMode = !visible; // 🔹 true si no debe mostrar nada visual
 
-        for (int i = 0; i < robotRefs.length; i++) {
-            RobotAbstracto r = robotRefs[i];
-            if (r == null)
-                continue;
-
+        // Fase 1: levantar todos los robots desplazados (solo los que se movieron),
+        // así ningún robot pisa a otro que aún no ha regresado
+        int n = 0;
+        RobotAbstracto[] lifted = new RobotAbstracto[touchedRobotCount];
+        int[] liftedFrom = new int[touchedRobotCount];
+        int[] liftedOrigin = new int[touchedRobotCount];
+        int[] liftedTenges = new int[touchedRobotCount];
+        for (int k = 0; k < touchedRobotCount; k++) {
+            int i = touchedRobots[k];
             int originIndex = robotOrigins[i];
-            if (originIndex == -1 || originIndex == i)
-                continue; // ya está en su lugar o sin origen registrado
+            if (robotRefs[i] == null || originIndex == -1 || i == originIndex)
+                continue; // ya no hay robot aquí o ya está en su lugar
 
-            anyReturned = true;
-
-            // 🔹 Mantener los tenges actuales
-            int currentTenges = robots[i][1];
-
-            // 🔹 NUEVO: Resetear estado del robot (genérico para todos)
-            r.resetDirection();
+            lifted[n] = robotRefs[i];
+            liftedFrom[n] = i;
+            liftedOrigin[n] = originIndex;
+            liftedTenges[n] = robots[i][1]; // 🔹 Mantener los tenges actuales
+            n++;
 
-            // Limpiar la celda actual (solo posición)
+            // Limpiar la celda actual
             robotRefs[i] = null;
-            robots[i][0] = 0;
+            clearRobotCell(i);
+            robotOrigins[i] = -1;
+        }
 
-            // Mover lógicamente al origen
-            robotRefs[originIndex] = r;
-            robots[originIndex][0] = originIndex;
-            robots[originIndex][1] = currentTenges; // conservar tenges
+        // Fase 2: ubicar cada robot en su origen (si otro robot ocupa ese origen,
+        // se queda donde estaba)
+        for (int k = 0; k < n; k++) {
+            RobotAbstracto r = lifted[k];
+            int i = liftedFrom[k];
+            int originIndex = liftedOrigin[k];
+            int target = robotRefs[originIndex] == null ? originIndex : i;
 
-            robotOrigins[originIndex] = originIndex;
+            // 🔹 NUEVO: Resetear estado del robot (genérico para todos)
+            r.resetDirection();
 
-            // 🔸 Si visible, actualizar la posición visual
-            if (!silentMode && road != null) {
-                road.reposition(i, originIndex - i, r);
+            robotRefs[target] = r;
+            robots[target][0] = target;
+            setRobotTenges(target, liftedTenges[k]); // conservar tenges
+            robotOrigins[target] = originIndex;
+            trackRobotMove(originIndex, i, target);
+
+            if (target != i) {
+                anyReturned = true;
+                // 🔸 Si visible, actualizar la posición visual
+                if (!silentMode && road != null) {
+                    road.reposition(i, target - i, r);
+                }
             }
         }
 
         // Mensajes solo si está visible
         if (!silentMode) {
             if (anyReturned) {
-                JOptionPane.showMessageDialog(
-                        null,
+                mostrar(
                         "Todos los robots han sido devueltos a su posición original.\nLos tenges se han conservado.",
                         "Robots devueltos",
                         JOptionPane.INFORMATION_MESSAGE);
             } else {
-                JOptionPane.showMessageDialog(
-                        null,
+                mostrar(
                         "No se encontró ningún robot que necesite regresar a su posición original.",
                         "Sin robots a devolver",
                         JOptionPane.WARNING_MESSAGE);
@@ -858,8 +1387,7 @@ public class SilkRoad {
      */
     public void makeInvisible() {
         if (!visible) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "SilkRoad ya estaba invisible.",
                     "Estado sin cambios",
                     JOptionPane.WARNING_MESSAGE);
@@ -900,9 +1428,12 @@ public class SilkRoad {
      * Restaura las posiciones lógicas actuales de tiendas y robots.
      */
     public void makeVisible() {
+        if (headless) {
+            lastOperationOK = false; // no hay parte gráfica que mostrar
+            return;
+        }
         if (visible) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "SilkRoad ya estaba visible.\nNo se realizaron cambios.",
                     "Sin cambios",
                     JOptionPane.WARNING_MESSAGE);
@@ -958,8 +1489,7 @@ public class SilkRoad {
         }
 
         visible = true;
-        JOptionPane.showMessageDialog(
-                null,
+        mostrar(
                 "SilkRoad ahora es visible nuevamente.\nSe restauraron todas las posiciones actuales.",
                 "Visibilidad restaurada",
                 JOptionPane.INFORMATION_MESSAGE);
@@ -977,60 +1507,534 @@ public class SilkRoad {
     }
 
     /**
-     * Reinicia el estado de la SilkRoad a su configuración original.
-     * Si está en modo día (dayMode), avanza el schedule y agrega los objetos
-     * correspondientes.
-     * Restaura los tenges originales de todas las tiendas, devuelve los robots a su
-     * posición inicial,
-     * reinicia los tenges de los robots a 0, resetea el profit acumulado y
-     * actualiza la barra de progreso.
-     * Muestra un mensaje informativo si la visualización está activa.
+     * Guarda una imagen PNG del estado visual actual (ruta, tiendas, robots y
+     * barra). Funciona también sin pantalla: el canvas se pinta fuera de
+     * pantalla. Si la SilkRoad está invisible, la imagen sale vacía.
+     *
+     * @param fileName ruta del archivo PNG a escribir
      */
-    public void reboot() {
-        boolean silentMode = !visible; // true si no debe mostrar nada visual
-        checkReboots(silentMode); // 🔹 PASAR silentMode para respetar en diálogos de checkReboots
-
-        // --- Restaurar tiendas a originales ---
-        for (int i = 0; i < storeRefs.length; i++) {
-            if (storeRefs[i] != null) {
-                int originalTenges = originalStoreTenges[i]; // 🔹 USAR EL NUEVO ARRAY
-                stores[i][1] = originalTenges; // Restaurar directamente (si 0, queda vacía)
-                if (!silentMode)
-                    storeRefs[i].makeVisible(); // Solo si visible
-            }
+    public void saveSnapshot(String fileName) {
+        try {
+            new OffscreenRenderer().writePng(new File(fileName));
+            lastOperationOK = true;
+        } catch (IOException e) {
+            mostrar(
+                    "No se pudo guardar la imagen: " + e.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            lastOperationOK = false;
         }
+    }
 
-        // --- Devolver robots a posiciones originales (conserva tenges temporalmente)
-        // ---
-        returnRobots(); // Reutiliza el método existente
+    /**
+     * Guarda el estado visual actual como una rejilla de mosaicos PNG
+     * (snapshot_fila_columna.png), pensada para rutas grandes: solo un mosaico
+     * está en memoria a la vez.
+     *
+     * @param directory carpeta destino (se crea si no existe)
+     * @param tileSize  lado de cada mosaico en px
+     */
+    public void saveSnapshotTiles(String directory, int tileSize) {
+        try {
+            new OffscreenRenderer(tileSize).writeTiles(new File(directory), "snapshot");
+            lastOperationOK = true;
+        } catch (IOException e) {
+            mostrar(
+                    "No se pudieron guardar los mosaicos: " + e.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            lastOperationOK = false;
+        }
+    }
 
-        // --- Reiniciar los tenges de todos los robots a 0 (después de devolver) ---
-        for (int i = 0; i < robots.length; i++) {
+    /**
+     * Guarda el estado lógico completo en un archivo binario por columnas
+     * (ver {@link #load(Path, boolean)}): longitud, tiendas con su tipo,
+     * tenges actuales y originales, robots con su tipo, tenges y origen,
+     * ganancia por casilla, ganancia y tope, y el schedule con el día actual.
+     * Se escribe de una vez sobre el archivo mapeado en memoria.
+     *
+     * @param file archivo destino (se reemplaza si existe)
+     */
+    public void save(Path file) {
+        try {
+            writeState(file);
+            lastOperationOK = true;
+        } catch (IOException e) {
+            mostrar(
+                    "No se pudo guardar la SilkRoad: " + e.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            lastOperationOK = false;
+        }
+    }
+
+    /**
+     * Crea una SilkRoad visible a partir de un archivo de {@link #save(Path)}.
+     *
+     * @param file archivo guardado
+     * @return SilkRoad con el estado guardado
+     * @throws IOException si el archivo no se puede leer o no es válido
+     */
+    public static SilkRoad load(Path file) throws IOException {
+        return load(file, false);
+    }
+
+    /**
+     * Crea una SilkRoad a partir de un archivo de {@link #save(Path)}. El
+     * archivo se mapea en memoria y cada columna se copia directamente a los
+     * arreglos del modelo, en O(objetos): no se pasa por placeStore ni
+     * placeRobot, así que no hay validaciones, diálogos ni animaciones. Si no
+     * es headless, las figuras se dibujan una sola vez al final.
+     * Lo que no se guarda: la dirección bloqueada de los NeverbackRobot (los
+     * robots cargados empiezan sin bloquear).
+     *
+     * @param file     archivo guardado
+     * @param headless true para cargar solo el modelo (ver {@link #headless(int)})
+     * @return SilkRoad con el estado guardado
+     * @throws IOException si el archivo no se puede leer o no es válido
+     */
+    public static SilkRoad load(Path file, boolean headless) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return readState(in, headless);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Archivo de SilkRoad incompleto o dañado", e);
+            }
+        }
+    }
+
+    private void writeState(Path file) throws IOException {
+        int storeCount = 0;
+        int robotCount = 0;
+        int profitCount = 0;
+        for (int i = 0; i <= length; i++) {
+            if (storeRefs[i] != null) {
+                storeCount++;
+                if (storeRefs[i].typeId < 0)
+                    throw new IOException("La tienda de la casilla " + i + " no tiene tipo registrado");
+            }
             if (robotRefs[i] != null) {
-                robots[i][1] = 0; // Reiniciar tenges
+                robotCount++;
+                if (robotRefs[i].typeId < 0)
+                    throw new IOException("El robot de la casilla " + i + " no tiene tipo registrado");
+            }
+            if (profitPerLocation[i][1] != 0)
+                profitCount++;
+        }
+        byte[][] storeTypes = typeNames(TypeRegistry.STORES);
+        byte[][] robotTypes = typeNames(TypeRegistry.ROBOTS);
+
+        // 7 enteros de encabezado y 5 contadores de columna
+        long size = 4L * 12 + namesSize(storeTypes) + namesSize(robotTypes)
+                + 16L * storeCount + 16L * robotCount + 8L * profitCount;
+        if (daysSchedule != null) {
+            for (int[] event : daysSchedule) {
+                size += 4L + (event == null ? 0 : 4L * event.length);
+            }
+        }
+        if (dayAvailableTenges != null)
+            size += 4L * dayAvailableTenges.length;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(SAVE_MAGIC).putInt(SAVE_VERSION);
+            out.putInt(length).putInt(profit).putInt(maxProfit);
+            out.putInt(dayMode ? 1 : 0).putInt(dayIndexSchedule);
+            putNames(out, storeTypes);
+            putNames(out, robotTypes);
+
+            // Tiendas: casillas, tipos, tenges y originales
+            out.putInt(storeCount);
+            for (int i = 0; i <= length; i++)
+                if (storeRefs[i] != null)
+                    out.putInt(i);
+            for (int i = 0; i <= length; i++)
+                if (storeRefs[i] != null)
+                    out.putInt(storeRefs[i].typeId);
+            for (int i = 0; i <= length; i++)
+                if (storeRefs[i] != null)
+                    out.putInt(stores[i][1]);
+            for (int i = 0; i <= length; i++)
+                if (storeRefs[i] != null)
+                    out.putInt(originalStoreTenges[i]);
+
+            // Robots: casillas, tipos, tenges y orígenes
+            out.putInt(robotCount);
+            for (int i = 0; i <= length; i++)
+                if (robotRefs[i] != null)
+                    out.putInt(i);
+            for (int i = 0; i <= length; i++)
+                if (robotRefs[i] != null)
+                    out.putInt(robotRefs[i].typeId);
+            for (int i = 0; i <= length; i++)
+                if (robotRefs[i] != null)
+                    out.putInt(robots[i][1]);
+            for (int i = 0; i <= length; i++)
+                if (robotRefs[i] != null)
+                    out.putInt(robotOrigins[i]);
+
+            // Ganancia por casilla (solo las distintas de cero)
+            out.putInt(profitCount);
+            for (int i = 0; i <= length; i++)
+                if (profitPerLocation[i][1] != 0)
+                    out.putInt(i);
+            for (int i = 0; i <= length; i++)
+                if (profitPerLocation[i][1] != 0)
+                    out.putInt(profitPerLocation[i][1]);
+
+            // Schedule del modo día (-1 = sin schedule)
+            out.putInt(daysSchedule == null ? -1 : daysSchedule.length);
+            if (daysSchedule != null) {
+                for (int[] event : daysSchedule) {
+                    out.putInt(event == null ? -1 : event.length);
+                    if (event != null)
+                        for (int value : event)
+                            out.putInt(value);
+                }
+            }
+            out.putInt(dayAvailableTenges == null ? -1 : dayAvailableTenges.length);
+            if (dayAvailableTenges != null)
+                for (int value : dayAvailableTenges)
+                    out.putInt(value);
+            out.force();
+        }
+    }
 
-                // 🔹 NUEVO: Resetear estado de TODOS los robots (genérico)
-                robotRefs[i].resetDirection();
+    private static SilkRoad readState(ByteBuffer in, boolean headless) throws IOException {
+        if (in.getInt() != SAVE_MAGIC)
+            throw new IOException("No es un archivo de SilkRoad");
+        int version = in.getInt();
+        if (version != SAVE_VERSION)
+            throw new IOException("Versión de archivo no soportada: " + version);
+        int length = in.getInt();
+        if (length < 1 || (length + 1L) * LOAD_BYTES_PER_CELL > Runtime.getRuntime().maxMemory())
+            throw new IOException("Longitud inválida: " + length);
+        int savedProfit = in.getInt();
+        int savedMaxProfit = in.getInt();
+        boolean savedDayMode = in.getInt() == 1;
+        int savedDay = in.getInt();
+        int[] storeIds = typeIds(in, TypeRegistry.STORES);
+        int[] robotIds = typeIds(in, TypeRegistry.ROBOTS);
+
+        SilkRoad road = new SilkRoad(length, headless);
+        road.visible = false; // se dibuja al final, una sola vez
+        try {
+            readObjects(in, road, storeIds, robotIds);
+        } catch (IOException | RuntimeException e) {
+            // Las figuras tomadas de las reservas vuelven a ellas
+            for (int i = 0; i <= length; i++) {
+                if (road.storeRefs[i] != null)
+                    liberar(road.storeRefs[i]);
+                if (road.robotRefs[i] != null)
+                    liberar(road.robotRefs[i]);
+            }
+            throw e;
+        }
+        road.dayMode = savedDayMode;
+        road.dayIndexSchedule = savedDay;
+        road.profit = savedProfit;
+        road.maxProfit = savedMaxProfit;
+
+        if (!headless) {
+            Mensajes.silenciar();
+            Canvas.getCanvas().startBatch();
+            try {
+                road.makeVisible();
+            } finally {
+                Canvas.getCanvas().endBatch();
+                Mensajes.reanudar();
             }
         }
+        road.updateProgressBar();
+        road.lastOperationOK = true;
+        return road;
+    }
 
-        // Reiniciar profit y actualizar barra
-        profit = 0;
-        updateProgressBar();
+    /**
+     * Lee tiendas, robots, ganancia por casilla y schedule sobre una ruta
+     * recién creada. Toda cantidad leída se compara con lo que queda del
+     * archivo antes de reservar memoria.
+     */
+    private static void readObjects(ByteBuffer in, SilkRoad road, int[] storeIds, int[] robotIds)
+            throws IOException {
+        int stores = readCount(in, 4, "tiendas", false);
+        int base = in.position();
+        for (int k = 0; k < stores; k++) {
+            int cell = in.getInt(base + 4 * k);
+            int type = storeIds[in.getInt(base + 4 * (stores + k))];
+            int tenges = in.getInt(base + 4 * (2 * stores + k));
+            int original = in.getInt(base + 4 * (3 * stores + k));
+            if (road.storeRefs[cell] != null)
+                throw new IOException("Tienda repetida en la casilla " + cell);
+            road.storeRefs[cell] = TypeRegistry.STORES.obtain(type, false);
+            road.stores[cell][0] = cell;
+            road.stores[cell][1] = tenges;
+            road.indexStore(cell, tenges);
+            road.originalStoreTenges[cell] = original;
+            road.originalTotal += original;
+            if (tenges != original) { // reboot debe restaurarla
+                road.storeTouchedAt[cell] = road.storeEpoch;
+                road.touchedStores[road.touchedStoreCount++] = cell;
+            }
+        }
+        in.position(base + 16 * stores);
+
+        int robots = readCount(in, 4, "robots", false);
+        base = in.position();
+        for (int k = 0; k < robots; k++) {
+            int cell = in.getInt(base + 4 * k);
+            int type = robotIds[in.getInt(base + 4 * (robots + k))];
+            int tenges = in.getInt(base + 4 * (2 * robots + k));
+            int origin = in.getInt(base + 4 * (3 * robots + k));
+            if (road.robotRefs[cell] != null)
+                throw new IOException("Robot repetido en la casilla " + cell);
+            road.robotRefs[cell] = TypeRegistry.ROBOTS.obtain(type, false);
+            road.robots[cell][0] = cell;
+            road.setRobotTenges(cell, tenges);
+            road.robotOrigins[cell] = origin;
+            if (origin >= 0) {
+                road.displacement += Math.abs(cell - origin);
+                if (cell != origin) // reboot debe devolverlo (si tiene tenges ya quedó marcado)
+                    road.touchRobotCell(cell);
+            }
+        }
+        in.position(base + 16 * robots);
+
+        int cells = readCount(in, 2, "casillas con ganancia", false);
+        base = in.position();
+        for (int k = 0; k < cells; k++) {
+            int cell = in.getInt(base + 4 * k);
+            int value = in.getInt(base + 4 * (cells + k));
+            road.profitPerLocation[cell][1] = value;
+            road.profitTree.add(cell, value);
+            road.profitCells.set(cell, value);
+        }
+        in.position(base + 8 * cells);
+
+        int events = readCount(in, 1, "eventos", true);
+        if (events >= 0) {
+            road.daysSchedule = new int[events][];
+            for (int d = 0; d < events; d++) {
+                int size = readCount(in, 1, "valores de un evento", true);
+                if (size >= 0) {
+                    road.daysSchedule[d] = new int[size];
+                    in.asIntBuffer().get(road.daysSchedule[d]);
+                    in.position(in.position() + 4 * size);
+                }
+            }
+        }
+        int days = readCount(in, 1, "días", true);
+        if (days >= 0) {
+            road.dayAvailableTenges = new int[days];
+            in.asIntBuffer().get(road.dayAvailableTenges);
+        }
+    }
+
+    /**
+     * Lee una cantidad y comprueba que sus elementos quepan en lo que queda
+     * del archivo.
+     *
+     * @param ints      enteros que ocupa cada elemento
+     * @param what      qué se cuenta (para el mensaje de error)
+     * @param allowNone true si -1 es válido (sección ausente)
+     * @return la cantidad leída
+     * @throws IOException si es negativa o excede el archivo
+     */
+    private static int readCount(ByteBuffer in, int ints, String what, boolean allowNone) throws IOException {
+        int count = in.getInt();
+        if (allowNone && count == -1)
+            return count;
+        if (count < 0 || count > in.remaining() / (4 * ints))
+            throw new IOException("Cantidad inválida de " + what + ": " + count);
+        return count;
+    }
+
+    /**
+     * @return nombres de todos los tipos registrados, en orden de id
+     */
+    private static byte[][] typeNames(TypeRegistry<?> registry) {
+        List<byte[]> names = new ArrayList<>();
+        for (String name = registry.nameOf(0); name != null; name = registry.nameOf(names.size())) {
+            names.add(name.getBytes(StandardCharsets.UTF_8));
+        }
+        return names.toArray(new byte[0][]);
+    }
+
+    private static long namesSize(byte[][] names) {
+        long size = 4;
+        for (byte[] name : names) {
+            size += 4 + name.length;
+        }
+        return size;
+    }
+
+    private static void putNames(ByteBuffer out, byte[][] names) {
+        out.putInt(names.length);
+        for (byte[] name : names) {
+            out.putInt(name.length).put(name);
+        }
+    }
+
+    /**
+     * Lee la tabla de tipos guardada y la traduce a los ids de este registro
+     * (pueden diferir si los tipos extra se registraron en otro orden).
+     */
+    private static int[] typeIds(ByteBuffer in, TypeRegistry<?> registry) throws IOException {
+        int[] ids = new int[readCount(in, 1, "tipos", false)];
+        for (int i = 0; i < ids.length; i++) {
+            int size = in.getInt();
+            if (size < 0 || size > in.remaining())
+                throw new IOException("Nombre de tipo inválido");
+            byte[] name = new byte[size];
+            in.get(name);
+            String type = new String(name, StandardCharsets.UTF_8);
+            ids[i] = registry.idOf(type);
+            if (ids[i] < 0)
+                throw new IOException("Tipo no registrado: " + type);
+        }
+        return ids;
+    }
+
+    /**
+     * Reinicia el estado de la SilkRoad a su configuración original.
+     * Si está en modo día (dayMode), avanza el schedule y agrega los objetos
+     * correspondientes.
+     * Restaura los tenges originales de todas las tiendas, devuelve los robots a su
+     * posición inicial,
+     * reinicia los tenges de los robots a 0, resetea el profit acumulado y
+     * actualiza la barra de progreso.
+     * Muestra un mensaje informativo si la visualización está activa.
+     */
+    public void reboot() {
+        boolean silentMode = !visible; // true si no debe mostrar nada visual
+        checkReboots(silentMode); // 🔹 PASAR silentMode para respetar en diálogos de checkReboots
+
+        restoreInitialState(silentMode);
 
         // Mostrar mensaje solo si está visible
         if (!silentMode) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "SilkRoad ha sido reiniciado a su estado original.\n" +
                             "Las tiendas fueron restauradas, robots devueltos y tenges reiniciados.",
                     "Reinicio completo",
                     JOptionPane.INFORMATION_MESSAGE);
         }
-        updateMaxProfit(); // Recalcular max con originales restaurados
         lastOperationOK = true;
     }
 
+    /**
+     * Avanza el modo día hasta el día indicado aplicando de una sola pasada
+     * todos los eventos pendientes, sin diálogos y con un solo redibujo, y
+     * luego reinicia el estado una sola vez (tiendas restauradas, robots en su
+     * origen, profit en 0). Equivale a llamar reboot() hasta ese día, pero en
+     * tiempo lineal en el número de eventos. Si el día pasa del último evento,
+     * se detiene en el último (no finaliza la simulación).
+     *
+     * @param day día al que avanzar (1 = primer evento)
+     */
+    public void advanceTo(int day) {
+        if (!dayMode || daysSchedule == null) {
+            mostrar(
+                    "La SilkRoad no está en modo día.",
+                    "Advertencia",
+                    JOptionPane.WARNING_MESSAGE);
+            lastOperationOK = false;
+            return;
+        }
+
+        int last = Math.min(day, daysSchedule.length - 1);
+        if (last <= dayIndexSchedule) {
+            lastOperationOK = true; // No hay eventos pendientes hasta ese día
+            return;
+        }
+
+        boolean drawing = this.visible && road != null;
+        Mensajes.silenciar();
+        if (drawing)
+            Canvas.getCanvas().startBatch();
+        try {
+            while (dayIndexSchedule < last) {
+                checkReboots(true);
+            }
+            restoreInitialState(true);
+        } finally {
+            if (drawing)
+                Canvas.getCanvas().endBatch();
+            Mensajes.reanudar();
+        }
+        lastOperationOK = true;
+    }
+
+    /**
+     * @return día actual del modo día (0 si aún no se aplicó ningún evento, -1
+     *         si no está en modo día)
+     */
+    public int currentDay() {
+        return dayMode ? dayIndexSchedule : -1;
+    }
+
+    /**
+     * Devuelve los tenges disponibles al cierre de un día ya aplicado: la suma
+     * de tenges originales de las tiendas, o 0 si no había ningún robot que
+     * los recogiera. Es una cota superior de la ganancia del día (no descuenta
+     * distancias); se guarda en O(log n) al aplicar cada evento, así que
+     * advanceTo sigue siendo lineal.
+     *
+     * @param day día ya aplicado (1..currentDay())
+     * @return tenges disponibles ese día, o -1 si el día no se ha aplicado
+     */
+    public int availableTengesOfDay(int day) {
+        if (dayAvailableTenges == null || day < 1 || day > dayIndexSchedule || day >= dayAvailableTenges.length)
+            return -1;
+        return dayAvailableTenges[day];
+    }
+
+    /**
+     * Deja la ruta en su estado inicial: restaura las tiendas tocadas,
+     * devuelve los robots a su origen, reinicia sus tenges y el profit, y
+     * recalcula la ganancia máxima.
+     *
+     * @param silentMode true si no debe redibujar las tiendas restauradas
+     */
+    private void restoreInitialState(boolean silentMode) {
+        // --- Restaurar tiendas a originales (solo las tocadas pueden diferir) ---
+        for (int k = 0; k < touchedStoreCount; k++) {
+            int i = touchedStores[k];
+            if (storeRefs[i] != null) {
+                int originalTenges = originalStoreTenges[i]; // 🔹 USAR EL NUEVO ARRAY
+                setStoreTenges(i, originalTenges); // Restaurar directamente (si 0, queda vacía)
+                if (!silentMode)
+                    storeRefs[i].makeVisible(); // Solo si visible
+            }
+        }
+        clearTouchedStores();
+
+        // --- Devolver robots a posiciones originales (conserva tenges temporalmente)
+        // ---
+        returnRobots(); // Reutiliza el método existente
+
+        // --- Reiniciar los tenges de los robots a 0 (después de devolver); solo
+        // los que se movieron pueden tener tenges ---
+        for (int k = 0; k < touchedRobotCount; k++) {
+            int i = touchedRobots[k];
+            if (robotRefs[i] != null) {
+                setRobotTenges(i, 0); // Reiniciar tenges
+
+                // 🔹 NUEVO: Resetear estado del robot (genérico)
+                robotRefs[i].resetDirection();
+            }
+        }
+        touchedRobotCount = 0;
+        robotEpoch++;
+
+        // Reiniciar profit y actualizar barra
+        profit = 0;
+        updateMaxProfit(); // Recalcular max con originales restaurados
+    }
+
     /**
      * Verifica el número de reboots y agrega los objetos correspondientes
      * según la entrada schedule.
@@ -1048,8 +2052,7 @@ public class SilkRoad {
         // Validar límites
         if (dayIndexSchedule >= daysSchedule.length) {
             if (!silentMode) { // Solo mostrar si no silent
-                JOptionPane.showMessageDialog(
-                        null,
+                mostrar(
                         "Todos los objetos del schedule ya fueron agregados.\n" +
                                 "Simulación terminada automáticamente.",
                         "Fin del schedule",
@@ -1061,8 +2064,10 @@ public class SilkRoad {
         }
 
         int[] evento = daysSchedule[dayIndexSchedule];
-        if (evento == null || evento.length < 2)
+        if (evento == null || evento.length < 2) {
+            recordDayTenges();
             return;
+        }
 
         int tipo = evento[0]; // 1 = robot, 2 = tienda
         int pos = evento[1];
@@ -1070,8 +2075,7 @@ public class SilkRoad {
         if (tipo == 1) {
             placeRobot(pos);
             if (!silentMode) { // Solo mostrar si no silent
-                JOptionPane.showMessageDialog(
-                        null,
+                mostrar(
                         "Día " + dayIndexSchedule + ": se colocó un robot en la posición " + pos,
                         "Evento diario",
                         JOptionPane.INFORMATION_MESSAGE);
@@ -1088,14 +2092,26 @@ public class SilkRoad {
                 updateProgressBar();
 
             if (!silentMode) { // Solo mostrar si no silent
-                JOptionPane.showMessageDialog(
-                        null,
+                mostrar(
                         "Día " + dayIndexSchedule + ": se creó una tienda en la posición " + pos +
                                 " con " + tenges + " tenges.",
                         "Evento diario",
                         JOptionPane.INFORMATION_MESSAGE);
             }
         }
+        recordDayTenges();
+    }
+
+    /**
+     * Guarda los tenges disponibles del día recién aplicado: al cierre de un
+     * día las tiendas están llenas, así que es la suma de tenges originales
+     * (se mantiene al colocar y quitar tiendas), o 0 si no hay robots.
+     */
+    private void recordDayTenges() {
+        if (dayAvailableTenges != null && dayIndexSchedule < dayAvailableTenges.length) {
+            boolean hayRobots = robotCells.nextNonEmpty(0) != -1;
+            dayAvailableTenges[dayIndexSchedule] = hayRobots ? (int) originalTotal : 0;
+        }
     }
 
     /**
@@ -1109,7 +2125,9 @@ public class SilkRoad {
     }
 
     /**
-     * @return matriz de tiendas (puede contener filas vacías con ceros).
+     * @return matriz de tiendas (puede contener filas vacías con ceros). Es la
+     *         matriz interna: para cambiar tenges use las operaciones de la
+     *         SilkRoad, así las consultas por rango siguen al día.
      */
     public int[][] stores() {
         return stores;
@@ -1128,6 +2146,426 @@ public class SilkRoad {
         return robots;
     }
 
+    /**
+     * Suma los tenges de las tiendas entre dos casillas, en O(log n).
+     *
+     * @param from casilla inicial (incluida)
+     * @param to   casilla final (incluida)
+     * @return tenges disponibles en [from, to]
+     */
+    public long tengesBetween(int from, int to) {
+        return storeTree.sum(Math.min(from, to), Math.max(from, to));
+    }
+
+    /**
+     * Suma la ganancia acumulada en las casillas entre dos posiciones, en
+     * O(log n).
+     *
+     * @param from casilla inicial (incluida)
+     * @param to   casilla final (incluida)
+     * @return ganancia registrada en [from, to]
+     */
+    public long profitBetween(int from, int to) {
+        return profitTree.sum(Math.min(from, to), Math.max(from, to));
+    }
+
+    /**
+     * Devuelve las casillas con mayor ganancia acumulada, en O(k log k).
+     *
+     * @param k número de casillas pedidas
+     * @return filas {casilla, ganancia} de mayor a menor (a lo sumo k; solo
+     *         casillas con ganancia distinta de cero)
+     */
+    public int[][] topProfitCells(int k) {
+        return toRows(profitCells.top(k));
+    }
+
+    /**
+     * Devuelve los robots con más tenges, en O(k log k).
+     *
+     * @param k número de robots pedidos
+     * @return filas {casilla, tenges} de mayor a menor (a lo sumo k)
+     */
+    public int[][] richestRobots(int k) {
+        return toRows(richRobots.top(k));
+    }
+
+    private static int[][] toRows(long[][] top) {
+        int[][] rows = new int[top.length][];
+        for (int i = 0; i < top.length; i++) {
+            rows[i] = new int[] { (int) top[i][0], (int) top[i][1] };
+        }
+        return rows;
+    }
+
+    /**
+     * Cuenta las tiendas con tenges entre dos casillas, en O(log n).
+     *
+     * @param from casilla inicial (incluida)
+     * @param to   casilla final (incluida)
+     * @return número de tiendas no vacías en [from, to]
+     */
+    public int nonEmptyStoresBetween(int from, int to) {
+        return storeTree.countNonEmpty(Math.min(from, to), Math.max(from, to));
+    }
+
+    /**
+     * Busca la primera tienda con tenges a la derecha de una casilla
+     * (incluyéndola), en O(log n).
+     *
+     * @param location casilla de referencia
+     * @return casilla de la tienda o -1 si no hay
+     */
+    public int nextNonEmptyStore(int location) {
+        return storeTree.nextNonEmpty(location);
+    }
+
+    /**
+     * Busca la última tienda con tenges a la izquierda de una casilla
+     * (incluyéndola), en O(log n).
+     *
+     * @param location casilla de referencia
+     * @return casilla de la tienda o -1 si no hay
+     */
+    public int previousNonEmptyStore(int location) {
+        return storeTree.previousNonEmpty(location);
+    }
+
+    /**
+     * Busca la tienda con más tenges entre dos casillas (la de menor casilla
+     * en empate), en O(log n).
+     *
+     * @param from casilla inicial (incluida)
+     * @param to   casilla final (incluida)
+     * @return casilla de la tienda más rica o -1 si no hay tiendas con tenges
+     */
+    public int richestStore(int from, int to) {
+        return storeTree.richest(Math.min(from, to), Math.max(from, to));
+    }
+
+    /**
+     * Cuánto ganaría la ruta si se colocara una tienda normal: el mejor robot
+     * vecino (el más cercano de cada lado) la tomaría solo si gana más de lo
+     * que hoy aporta en su propia tienda (ver {@link #whatIfRemoveRobot(int)}).
+     * Todas las consultas whatIf suponen que cada robot atiende una sola
+     * tienda con su ganancia inmediata; el greedy de moveRobots puede
+     * encadenar varias, así que son una estimación. No cambian el estado ni
+     * muestran diálogos. O(log n).
+     *
+     * @param location casilla de la tienda
+     * @param tenges   tenges de la tienda
+     * @return ganancia marginal (&gt;= 0; 0 si la casilla no es válida o ya
+     *         tiene tienda)
+     */
+    public int whatIfPlaceStore(int location, int tenges) {
+        if (location < 0 || location > length || storeRefs[location] != null || tenges <= 0)
+            return 0;
+        int best = 0;
+        for (int cell : new int[] { robotCells.previousNonEmpty(location), robotCells.nextNonEmpty(location) }) {
+            if (cell == -1)
+                continue;
+            int gain = robotRefs[cell].recolectarTenges(tenges) - Math.abs(cell - location);
+            best = Math.max(best, gain - bestImprovement(cell, robotRefs[cell], robots[cell][1], -1));
+        }
+        return best;
+    }
+
+    /**
+     * Cuánto perdería la ruta si se quitara la tienda de una casilla: la
+     * ganancia de su mejor robot vecino (solo los que la tienda admite) menos
+     * lo que ese robot obtendría en la siguiente mejor tienda. O(log n), sin
+     * cambiar el estado.
+     *
+     * @param location casilla de la tienda
+     * @return ganancia marginal (&lt;= 0; 0 si no hay tienda con tenges)
+     */
+    public int whatIfRemoveStore(int location) {
+        if (location < 0 || location > length || storeRefs[location] == null || stores[location][1] <= 0)
+            return 0;
+        int collector = bestCollector(location, stores[location][1], storeRefs[location], -1);
+        if (collector == -1)
+            return 0;
+        int gain = collectorGain(collector, location);
+        int alternative = bestImprovement(collector, robotRefs[collector], robots[collector][1], location);
+        return -Math.max(0, gain - alternative);
+    }
+
+    /**
+     * Cuánto ganaría la ruta si se colocara un robot normal: la mayor mejora
+     * sobre el robot que hoy atiende a cada tienda de su zona (entre sus
+     * robots vecinos), o 0 si no mejora ninguna. O(log n), sin cambiar el
+     * estado.
+     *
+     * @param location casilla del robot
+     * @return ganancia marginal (&gt;= 0; 0 si la casilla no es válida o ya
+     *         tiene robot)
+     */
+    public int whatIfPlaceRobot(int location) {
+        if (location < 0 || location > length || robotRefs[location] != null)
+            return 0;
+        return bestImprovement(location, null, 0, -1);
+    }
+
+    /**
+     * Cuánto perdería la ruta si se quitara el robot de una casilla: lo que
+     * aporta en la mejor tienda de su zona frente al siguiente mejor robot
+     * que podría atenderla. O(log n), sin cambiar el estado.
+     *
+     * @param location casilla del robot
+     * @return ganancia marginal (&lt;= 0; 0 si no hay robot)
+     */
+    public int whatIfRemoveRobot(int location) {
+        if (location < 0 || location > length || robotRefs[location] == null)
+            return 0;
+        return -bestImprovement(location, robotRefs[location], robots[location][1], -1);
+    }
+
+    /**
+     * Mayor mejora que un robot (uno normal sin tenges si robot es null)
+     * obtendría en las tiendas de su zona, entre sus robots vecinos, frente
+     * al mejor de los demás robots. Se evalúan la tienda más rica por
+     * ganancia y la más cercana de cada lado.
+     *
+     * @param location casilla del robot
+     * @param robot    robot (null = robot normal nuevo)
+     * @param tenges   tenges del robot
+     * @param skip     tienda que no se considera (-1 = ninguna)
+     * @return mejora (&gt;= 0)
+     */
+    private int bestImprovement(int location, RobotAbstracto robot, int tenges, int skip) {
+        int left = location > 0 ? robotCells.previousNonEmpty(location - 1) : -1;
+        int right = location < length ? robotCells.nextNonEmpty(location + 1) : -1;
+        int from = left + 1;
+        int to = right == -1 ? length : right - 1;
+
+        // La más rica a cada lado (partida en dos si hay que saltar skip) y las
+        // más cercanas
+        boolean skipLeft = skip >= from && skip <= location;
+        boolean skipRight = skip >= location && skip <= to;
+        int[] candidates = {
+                reachFromRight.richest(from, skipLeft ? skip - 1 : location),
+                skipLeft ? reachFromRight.richest(skip + 1, location) : -1,
+                reachFromLeft.richest(skipRight ? skip + 1 : location, to),
+                skipRight ? reachFromLeft.richest(location, skip - 1) : -1,
+                nearestStore(location, -1, from, skip),
+                nearestStore(location, 1, to, skip) };
+        int best = 0;
+        for (int store : candidates) {
+            if (store == -1 || store == skip)
+                continue;
+            int t = stores[store][1];
+            if (!storeRefs[store].puedeRecibirRobot(tenges, t))
+                continue;
+            int gain = (robot == null ? t : robot.recolectarTenges(t)) - Math.abs(store - location);
+            int other = bestCollector(store, t, storeRefs[store], location);
+            best = Math.max(best, gain - (other == -1 ? 0 : Math.max(0, collectorGain(other, store))));
+        }
+        return best;
+    }
+
+    /**
+     * @return tienda con tenges más cercana a location en la dirección dada
+     *         sin pasar de limit ni usar skip, o -1 si no hay
+     */
+    private int nearestStore(int location, int direction, int limit, int skip) {
+        int store = direction < 0 ? storeTree.previousNonEmpty(location) : storeTree.nextNonEmpty(location);
+        if (store != -1 && store == skip)
+            store = direction < 0 ? storeTree.previousNonEmpty(skip - 1) : storeTree.nextNonEmpty(skip + 1);
+        if (store == -1 || (direction < 0 ? store < limit : store > limit))
+            return -1;
+        return store;
+    }
+
+    /**
+     * @param admits  tienda cuya regla de admisión se respeta (null = admite a
+     *                todos)
+     * @param exclude casilla de robot que no se considera (-1 = ninguna)
+     * @return casilla del robot vecino más cercano de cada lado con mejor
+     *         ganancia por una tienda con los tenges dados, o -1 si no hay
+     */
+    private int bestCollector(int location, int tenges, StoreAbstracto admits, int exclude) {
+        int left = robotCells.previousNonEmpty(location);
+        if (left != -1 && left == exclude)
+            left = exclude > 0 ? robotCells.previousNonEmpty(exclude - 1) : -1;
+        int right = robotCells.nextNonEmpty(location);
+        if (right != -1 && right == exclude)
+            right = robotCells.nextNonEmpty(exclude + 1);
+
+        int best = -1;
+        int bestGain = Integer.MIN_VALUE;
+        for (int cell : new int[] { left, right }) {
+            if (cell == -1 || (admits != null && !admits.puedeRecibirRobot(robots[cell][1], tenges)))
+                continue;
+            int gain = robotRefs[cell].recolectarTenges(tenges) - Math.abs(cell - location);
+            if (gain > bestGain) {
+                best = cell;
+                bestGain = gain;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return ganancia inmediata del robot de una casilla en una tienda
+     */
+    private int collectorGain(int robot, int store) {
+        return robotRefs[robot].recolectarTenges(stores[store][1]) - Math.abs(robot - store);
+    }
+
+    /**
+     * Cambia los tenges de una tienda manteniendo sincronizado el árbol de
+     * consultas por rango. Toda escritura de stores[i][1] debe pasar por aquí.
+     *
+     * @param location casilla de la tienda
+     * @param tenges   nuevos tenges
+     */
+    private void setStoreTenges(int location, int tenges) {
+        int before = stores[location][1];
+        stores[location][1] = tenges;
+        if (storeRefs[location] == null) {
+            fireStoreChanged(location, -1);
+        } else {
+            fireStoreChanged(location, tenges);
+            if (before > 0 && tenges == 0)
+                fireStoreEmptied(location);
+        }
+        indexStore(location, tenges);
+        if (storeTouchedAt[location] != storeEpoch) {
+            storeTouchedAt[location] = storeEpoch;
+            touchedStores[touchedStoreCount++] = location;
+        }
+    }
+
+    /**
+     * Cambia los tenges del robot de una casilla manteniendo el montículo de
+     * robots. Toda escritura de robots[i][1] debe pasar por aquí.
+     *
+     * @param location casilla del robot
+     * @param tenges   nuevos tenges
+     */
+    private void setRobotTenges(int location, int tenges) {
+        robots[location][1] = tenges;
+        richRobots.set(location, tenges);
+        robotCells.set(location, 1);
+        if (tenges != 0)
+            touchRobotCell(location); // reboot debe reiniciarlos
+    }
+
+    /**
+     * Deja vacía la fila de robots de una casilla.
+     *
+     * @param location casilla que queda sin robot
+     */
+    private void clearRobotCell(int location) {
+        robots[location][0] = 0;
+        robots[location][1] = 0;
+        richRobots.remove(location);
+        robotCells.set(location, 0);
+    }
+
+    /**
+     * Suma ganancia a una casilla manteniendo el árbol de rangos y el
+     * montículo de casillas con ganancia.
+     *
+     * @param location casilla donde se obtuvo la ganancia
+     * @param netGain  ganancia neta (puede ser negativa)
+     */
+    private void addProfitAt(int location, int netGain) {
+        profitPerLocation[location][1] += netGain;
+        profitTree.add(location, netGain);
+        if (profitPerLocation[location][1] == 0)
+            profitCells.remove(location);
+        else
+            profitCells.set(location, profitPerLocation[location][1]);
+    }
+
+    /**
+     * Crea vacías las estructuras de consulta de ganancia y robots.
+     */
+    private void resetAnalytics() {
+        profitTree = new FenwickTree(profitPerLocation.length);
+        profitCells = new IndexedHeap(profitPerLocation.length);
+        richRobots = new IndexedHeap(profitPerLocation.length);
+        robotCells = new StoreSegmentTree(profitPerLocation.length);
+    }
+
+    /**
+     * Crea vacíos el árbol de tiendas y los árboles de alcance.
+     */
+    private void resetStoreIndex() {
+        storeTree = new StoreSegmentTree(length + 1);
+        reachFromRight = new StoreSegmentTree(length + 1);
+        reachFromLeft = new StoreSegmentTree(length + 1);
+    }
+
+    /**
+     * Actualiza los árboles de tiendas con los tenges de una casilla. En los
+     * de alcance solo entran las tiendas con tenges que admiten a un robot
+     * recién colocado (0 tenges); las claves son siempre positivas.
+     */
+    private void indexStore(int location, int tenges) {
+        storeTree.set(location, tenges);
+        boolean reachable = tenges > 0 && storeRefs[location] != null
+                && storeRefs[location].puedeRecibirRobot(0, tenges);
+        reachFromRight.set(location, reachable ? tenges + location : 0);
+        reachFromLeft.set(location, reachable ? tenges - location + length : 0);
+    }
+
+    /**
+     * Olvida las tiendas tocadas (O(1)): basta con cambiar de época.
+     */
+    private void clearTouchedStores() {
+        touchedStoreCount = 0;
+        storeEpoch++;
+    }
+
+    /**
+     * Registra que el robot con el origen dado pasó de una casilla a otra:
+     * actualiza el desplazamiento total y marca la casilla nueva como tocada.
+     *
+     * @param origin origen del robot
+     * @param from   casilla anterior
+     * @param to     casilla nueva
+     */
+    private void trackRobotMove(int origin, int from, int to) {
+        displacement += Math.abs(to - origin) - Math.abs(from - origin);
+        if (from != to)
+            fireRobotMoved(from, to);
+        touchRobotCell(to);
+    }
+
+    /**
+     * Marca una casilla con robot para que reboot la revise. La lista es por
+     * casilla y no por origen: varios robots pueden compartir origen (uno se
+     * va y otro se coloca en el mismo lugar) y cada uno ocupa su casilla.
+     * Puede quedar alguna casilla de la que el robot ya salió; al recorrerla
+     * se ignora.
+     *
+     * @param location casilla del robot
+     */
+    private void touchRobotCell(int location) {
+        if (robotTouchedAt[location] != robotEpoch) {
+            robotTouchedAt[location] = robotEpoch;
+            touchedRobots[touchedRobotCount++] = location;
+        }
+    }
+
+    /**
+     * Reinicia el registro de casillas tocadas, orígenes y desplazamiento.
+     */
+    private void resetTracking() {
+        int cells = length + 1;
+        storeEpoch = 1;
+        storeTouchedAt = new int[cells];
+        touchedStores = new int[cells];
+        touchedStoreCount = 0;
+        robotEpoch = 1;
+        robotTouchedAt = new int[cells];
+        touchedRobots = new int[cells];
+        touchedRobotCount = 0;
+        displacement = 0;
+    }
+
     /**
      * Finaliza la simulación de SilkRoad, limpiando y liberando todos los recursos.
      * Oculta la interfaz gráfica, elimina referencias a objetos gráficos,
@@ -1140,11 +2578,23 @@ public class SilkRoad {
         // progressBar)
         makeInvisible();
 
-        // Paso 2: Limpiar referencias a objetos gráficos (tiendas y robots)
+        // Paso 2: Devolver tiendas y robots a la reserva y limpiar referencias
         if (storeRefs != null) {
+            for (int i = 0; i < storeRefs.length; i++) {
+                if (storeRefs[i] != null) {
+                    liberar(storeRefs[i]);
+                    fireStoreChanged(i, -1);
+                }
+            }
             Arrays.fill(storeRefs, null);
         }
         if (robotRefs != null) {
+            for (int i = 0; i < robotRefs.length; i++) {
+                if (robotRefs[i] != null) {
+                    liberar(robotRefs[i]);
+                    fireRobotMoved(i, -1);
+                }
+            }
             Arrays.fill(robotRefs, null);
         }
 
@@ -1155,6 +2605,7 @@ public class SilkRoad {
                 stores[i][0] = 0;
                 stores[i][1] = 0;
             }
+            resetStoreIndex();
         }
         if (robots != null) {
             for (int i = 0; i < robots.length; i++) {
@@ -1167,12 +2618,15 @@ public class SilkRoad {
                 profitPerLocation[i][1] = 0;
             }
         }
+        resetAnalytics();
         if (originalStoreTenges != null) {
             Arrays.fill(originalStoreTenges, 0); // 🔹 NUEVO: Resetear originales de tiendas
         }
+        originalTotal = 0;
         if (robotOrigins != null) {
             Arrays.fill(robotOrigins, -1); // 🔹 NUEVO: Resetear orígenes de robots
         }
+        resetTracking();
 
         // Paso 4: Limpiar schedule si dayMode (opcional, pero libera memoria)
         if (dayMode && daysSchedule != null) {
@@ -1255,56 +2709,95 @@ public class SilkRoad {
         }
 
         // Mostrar en ventana
-        JOptionPane.showMessageDialog(
-                null,
+        mostrar(
                 info.toString(),
                 "Estado actual de SilkRoad",
                 JOptionPane.INFORMATION_MESSAGE);
     }
 
     /**
-     * Verifica si algún robot coincide con una tienda en la misma celda.
+     * Escribe las estadísticas en un archivo CSV o de líneas JSON sin armarlas
+     * en memoria (ver {@link StatisticsExporter}); pensado para rutas grandes,
+     * donde {@link #consultStatistics()} produciría un texto enorme.
+     *
+     * @param fileName archivo destino
+     * @param json     true para líneas JSON, false para CSV
+     * @param chunks   trozos formateados en paralelo (1 = secuencial)
+     */
+    public void exportStatistics(String fileName, boolean json, int chunks) {
+        try {
+            new StatisticsExporter(this, json ? StatisticsExporter.Format.JSONL : StatisticsExporter.Format.CSV)
+                    .export(Paths.get(fileName), chunks);
+            lastOperationOK = true;
+        } catch (IOException | InvalidPathException e) {
+            mostrar(
+                    "No se pudieron exportar las estadísticas: " + e.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            lastOperationOK = false;
+        }
+    }
+
+    // Lectura por casilla para StatisticsExporter
+
+    RobotAbstracto robotAt(int location) {
+        return robotRefs[location];
+    }
+
+    StoreAbstracto storeAt(int location) {
+        return storeRefs[location];
+    }
+
+    int robotOriginAt(int location) {
+        return robotOrigins[location];
+    }
+
+    int originalTengesAt(int location) {
+        return originalStoreTenges[location];
+    }
+
+    int profitAt(int location) {
+        return profitPerLocation[location][1];
+    }
+
+    /**
+     * Verifica si el robot de la celda dada coincide con una tienda.
      * Si hay coincidencia y la tienda tiene tenges, el robot recoge todos los
      * tenges,
      * la tienda se vacía, y se muestra un mensaje informativo.
      * Para FighterStore: solo permite recolección si robot tiene más tenges que la
      * tienda.
+     * Solo se revisa la celda que acaba de cambiar (donde se colocó o llegó el
+     * robot, o donde se colocó la tienda), en O(1).
      *
+     * @param location           celda a revisar
      * @param robotCurrentTenges tenges actuales acumulados del robot
      * @return la cantidad de tenges recogidos por el robot, o 0 si no hubo
      *         recolección.
      */
-    private int transferTengesIfCoincide(int robotCurrentTenges) {
-        for (int i = 0; i < robots.length; i++) {
-            RobotAbstracto r = robotRefs[i];
-            if (r == null)
-                continue;
+    private int transferTengesIfCoincide(int location, int robotCurrentTenges) {
+        RobotAbstracto r = robotRefs[location];
+        StoreAbstracto s = storeRefs[location];
+        if (r == null || s == null || stores[location][1] <= 0)
+            return 0; // si no se recogió nada
 
-            StoreAbstracto s = storeRefs[i];
-            if (s != null && stores[i][1] > 0) {
- 
-                
-                int storeTenges = stores[i][1];
-                
-                // 1. Preguntar a la tienda si acepta al robot
-                if (!s.puedeRecibirRobot(robotCurrentTenges, storeTenges)) {
-                    // ✅ ENCAPSULACIÓN: Tienda genera su propio mensaje de rechazo
-                    String mensaje = s.obtenerMensajeRechazo(robotCurrentTenges, storeTenges);
-                    return mostrarRechazo(i, mensaje);
-                }
-                
-                // 2. Si es aceptado, obtener los tenges recolectados
-                int collected = road.transferirTenges(r, s, storeTenges);
-                
-                // 3. Tienda procesa la transferencia según su lógica especial
-                int finalTransferencia = s.procesarTransferencia(collected);
-                
-                // 4. SilkRoad actualiza estado y muestra resultado
-                return transferTengesPolimorficos(i, finalTransferencia, storeTenges);
-            }
+        int storeTenges = stores[location][1];
+
+        // 1. Preguntar a la tienda si acepta al robot
+        if (!s.puedeRecibirRobot(robotCurrentTenges, storeTenges)) {
+            // ✅ ENCAPSULACIÓN: Tienda genera su propio mensaje de rechazo
+            String mensaje = s.obtenerMensajeRechazo(robotCurrentTenges, storeTenges);
+            return mostrarRechazo(location, mensaje);
         }
 
-        return 0; // si no se recogió nada
+        // 2. Si es aceptado, obtener los tenges recolectados
+        int collected = recolectar(r, s, storeTenges);
+
+        // 3. Tienda procesa la transferencia según su lógica especial
+        int finalTransferencia = s.procesarTransferencia(collected);
+
+        // 4. SilkRoad actualiza estado y muestra resultado
+        return transferTengesPolimorficos(location, finalTransferencia, storeTenges);
     }
 
     /**
@@ -1318,10 +2811,9 @@ public class SilkRoad {
      */
     private int transferTengesPolimorficos(int location, int collected, int totalDisponible) {
         int remaining = totalDisponible - collected;
-        stores[location][1] = remaining; // Dejar lo que sobra en la tienda
+        setStoreTenges(location, remaining); // Dejar lo que sobra en la tienda
 
-        JOptionPane.showMessageDialog(
-                null,
+        mostrar(
                 "Robot en la celda " + location + " recogió " + collected + " tenges.\n" +
                         (remaining > 0 ? "Dejó " + remaining + " tenges en la tienda." : "Tienda completamente vaciada."),
                 "Tienda cobrada",
@@ -1342,7 +2834,7 @@ public class SilkRoad {
      * @return 0 (sin transferencia)
      */
     private int mostrarRechazo(int location, String mensaje) {
-        JOptionPane.showMessageDialog(null, mensaje, "Acceso denegado", 
+        mostrar(mensaje, "Acceso denegado", 
                                       JOptionPane.WARNING_MESSAGE);
         return 0; // Sin transferencia, ambos mantienen sus tenges
     }
@@ -1355,8 +2847,7 @@ public class SilkRoad {
      */
     public void removeStore(int location) {
         if (location < 0 || location >= stores.length) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "Índice de tienda inválido: " + location,
                     "Error al eliminar tienda",
                     JOptionPane.ERROR_MESSAGE);
@@ -1364,18 +2855,18 @@ public class SilkRoad {
         }
 
         if (storeRefs != null && storeRefs[location] != null) {
-            storeRefs[location].makeInvisible();
+            liberar(storeRefs[location]);
             storeRefs[location] = null;
         }
 
         maxProfit -= stores[location][1];
         stores[location][0] = 0;
-        stores[location][1] = 0;
+        setStoreTenges(location, 0);
+        originalTotal -= originalStoreTenges[location];
         originalStoreTenges[location] = 0;
         updateProgressBar();
 
-        JOptionPane.showMessageDialog(
-                null,
+        mostrar(
                 "Tienda eliminada correctamente de la casilla " + location + ".",
                 "Tienda eliminada",
                 JOptionPane.INFORMATION_MESSAGE);
@@ -1390,8 +2881,7 @@ public class SilkRoad {
      */
     public void removeRobot(int location) {
         if (location < 0 || location >= robotRefs.length) {
-            JOptionPane.showMessageDialog(
-                    null,
+            mostrar(
                     "Índice de robot inválido: " + location,
                     "Error al eliminar robot",
                     JOptionPane.ERROR_MESSAGE);
@@ -1399,15 +2889,19 @@ public class SilkRoad {
         }
 
         if (robotRefs[location] != null) {
-            robotRefs[location].makeInvisible();
+            liberar(robotRefs[location]);
             robotRefs[location] = null;
+            fireRobotMoved(location, -1);
+
+            int originIndex = robotOrigins[location];
+            if (originIndex != -1)
+                displacement -= Math.abs(location - originIndex);
+            robotOrigins[location] = -1;
         }
 
-        robots[location][0] = 0;
-        robots[location][1] = 0;
+        clearRobotCell(location);
 
-        JOptionPane.showMessageDialog(
-                null,
+        mostrar(
                 "Robot eliminado correctamente de la casilla " + location + ".",
                 "Robot eliminado",
                 JOptionPane.INFORMATION_MESSAGE);
@@ -1417,43 +2911,100 @@ public class SilkRoad {
 
     /**
      * Actualiza el valor de maxProfit basado en las tiendas y robots actuales.
-     * Considera los tenges totales en tiendas y el costo de mover los robots
-     * desde su posición original (si se conoce).
+     * Considera los tenges totales en tiendas (raíz del árbol de tiendas) y el
+     * costo de mover los robots desde su posición original (contador que se
+     * actualiza en cada movimiento).
      * Asegura que maxProfit sea al menos 1 para evitar división por cero en la
      * barra.
      * Finalmente, actualiza la barra de progreso con el nuevo valor de maxProfit.
      */
     private void updateMaxProfit() {
-        int totalTenges = 0;
-        int totalCost = 0;
+        // Ambos totales se mantienen al día en cada cambio: O(1)
+        int totalTenges = (int) storeTree.total();
+        int totalCost = displacement;
 
-        for (int i = 0; i < stores.length; i++) {
-            if (storeRefs[i] != null) {
-                totalTenges += stores[i][1];
-            }
-        }
+        maxProfit = Math.max(1, totalTenges - totalCost + profit);
+
+        updateProgressBar();
+    }
 
+    /**
+     * Muestra un mensaje al usuario, salvo en una SilkRoad sin visualización.
+     */
+    private void mostrar(Object mensaje, String titulo, int tipo) {
+        if (!headless)
+            Mensajes.mostrar(mensaje, titulo, tipo);
+    }
+
+    /**
+     * Suscribe un observador a los cambios de la ruta. Primero recibe el estado
+     * actual (cada tienda, cada robot y la ganancia) como si acabara de
+     * ocurrir, y luego cada cambio en el hilo que lo produce. Debe llamarse
+     * desde el hilo que usa la ruta.
+     *
+     * @param listener observador a agregar
+     */
+    public synchronized void addListener(SilkRoadListener listener) {
+        if (listener == null)
+            return;
+        for (int i = 0; i < storeRefs.length; i++) {
+            if (storeRefs[i] != null)
+                listener.storeChanged(i, stores[i][1]);
+        }
         for (int i = 0; i < robotRefs.length; i++) {
-            if (robotRefs[i] != null) {
-                int originIndex = robotOrigins[i];
-                if (originIndex == -1)
-                    originIndex = i;
-                totalCost += Math.abs(i - originIndex);
-            }
+            if (robotRefs[i] != null)
+                listener.robotMoved(-1, i);
+        }
+        listener.profitChanged(profit, Math.max(maxProfit, 1));
+        SilkRoadListener[] current = listeners;
+        SilkRoadListener[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = listener;
+        listeners = next;
+    }
+
+    /**
+     * Cancela la suscripción de un observador.
+     *
+     * @param listener observador a quitar
+     */
+    public synchronized void removeListener(SilkRoadListener listener) {
+        List<SilkRoadListener> next = new ArrayList<>(Arrays.asList(listeners));
+        if (next.remove(listener))
+            listeners = next.toArray(new SilkRoadListener[0]);
+    }
+
+    private void fireRobotMoved(int from, int to) {
+        for (SilkRoadListener listener : listeners) {
+            listener.robotMoved(from, to);
         }
+    }
 
-        maxProfit = Math.max(1, totalTenges - totalCost + profit);
+    private void fireStoreChanged(int location, int tenges) {
+        for (SilkRoadListener listener : listeners) {
+            listener.storeChanged(location, tenges);
+        }
+    }
 
-        updateProgressBar();
+    private void fireStoreEmptied(int location) {
+        for (SilkRoadListener listener : listeners) {
+            listener.storeEmptied(location);
+        }
+    }
+
+    private void fireProfitChanged(int profit, int maxProfit) {
+        for (SilkRoadListener listener : listeners) {
+            listener.profitChanged(profit, maxProfit);
+        }
     }
 
     /**
      * Actualiza la barra de progreso para reflejar el profit actual frente al
      * maxProfit.
-     * Si progressBar es null, no hace nada.
+     * Si progressBar es null, solo avisa a los observadores.
      * Asegura que el tope sea al menos 1 para evitar división por cero.
      */
     private void updateProgressBar() {
+        fireProfitChanged(this.profit, Math.max(this.maxProfit, 1));
         if (progressBar != null) {
             // Usar maxProfit como tope (ahora es la ganancia máxima teórica)
             int tope = Math.max(this.maxProfit, 1); // Evitar división por 0
@@ -0,0 +1,111 @@
+package silkroad;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Cliente de {@link SilkRoadServer}. Además de la llamada directa
+ * {@link #solve(int[][])} permite encadenar peticiones: se envían varias con
+ * {@link #send(int[][])} y luego se leen sus respuestas, en el mismo orden, con
+ * {@link #receive()}. No es seguro usar un mismo cliente desde varios hilos.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class SilkRoadClient implements Closeable {
+    private final SocketChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(4);
+    private int nextId;
+
+    /**
+     * Se conecta a un servidor en localhost.
+     *
+     * @param port puerto del servidor
+     * @throws IOException si no se puede conectar
+     */
+    public SilkRoadClient(int port) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Se conecta al servidor en la dirección dada.
+     *
+     * @param address dirección del servidor
+     * @throws IOException si no se puede conectar
+     */
+    public SilkRoadClient(InetSocketAddress address) throws IOException {
+        this.channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    /**
+     * Resuelve los eventos en el servidor y espera la respuesta.
+     *
+     * @param days eventos en el formato de SilkRoadContest
+     * @return ganancias máximas por día
+     * @throws IOException si falla la conexión o el servidor no pudo resolver
+     */
+    public int[] solve(int[][] days) throws IOException {
+        send(days);
+        return receive();
+    }
+
+    /**
+     * Envía una petición sin esperar su respuesta.
+     *
+     * @param days eventos en el formato de SilkRoadContest
+     * @return identificador de la petición
+     * @throws IOException si falla la conexión
+     */
+    public int send(int[][] days) throws IOException {
+        int id = nextId++;
+        ByteBuffer request = SilkRoadProtocol.encodeRequest(id, days);
+        while (request.hasRemaining()) {
+            channel.write(request);
+        }
+        return id;
+    }
+
+    /**
+     * Lee la respuesta de la petición enviada más antigua que aún no se ha
+     * leído.
+     *
+     * @return ganancias máximas por día
+     * @throws IOException si falla la conexión o el servidor no pudo resolver
+     */
+    public int[] receive() throws IOException {
+        header.clear();
+        readFully(header);
+        int length = header.getInt(0);
+        if (length < 12 || length > SilkRoadProtocol.MAX_FRAME_BYTES)
+            throw new IOException("Respuesta inválida del servidor");
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(body);
+        body.flip();
+        int id = body.getInt();
+        if (body.getInt() != SilkRoadProtocol.STATUS_OK)
+            throw new IOException("El servidor no pudo resolver la petición " + id);
+        int[] profits = new int[body.getInt()];
+        body.asIntBuffer().get(profits);
+        return profits;
+    }
+
+    /**
+     * Cierra la conexión.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1)
+                throw new EOFException("El servidor cerró la conexión");
+        }
+    }
+}
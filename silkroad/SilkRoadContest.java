@@ -1,6 +1,9 @@
 package silkroad;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import shapes.FrameRecorder;
 
 /**
  * Clase que simula un concurso en la Ruta de la Seda con robots y tiendas.
@@ -13,6 +16,7 @@ public class SilkRoadContest {
     private int[] robotPos; // posición de cada robot (-1 = no existe)
     private int[] storeTenges; // tenges disponibles en cada tienda
     private boolean[] storeExists; // si existe tienda en esa posición
+    private StoreSegmentTree storeTree; // tenges por posición, para consultas por rango
     private int profit; // ganancia acumulada
 
     /**
@@ -25,11 +29,15 @@ public class SilkRoadContest {
         this.storeTenges = new int[length + 1];
         this.storeExists = new boolean[length + 1];
         Arrays.fill(robotPos, -1);
+        this.storeTree = new StoreSegmentTree(length + 1);
         this.profit = 0;
     }
 
     /**
      * Resuelve el problema de la Ruta de la Seda para una serie de eventos.
+     * Los resultados se guardan en una caché LRU acotada: una consulta
+     * repetida se responde sin recalcular y, si los eventos extienden un
+     * arreglo ya resuelto, solo se calculan los días nuevos.
      *
      * @param days arreglo de eventos: cada evento es [tipo, posición, tenges?]
      * @return arreglo con la ganancia máxima después de cada evento
@@ -38,72 +46,218 @@ public class SilkRoadContest {
         if (days == null || days.length < 2)
             return new int[0];
 
-        // Determinar tamaño máximo del camino
+        int numEvents = days[0][0];
+        if (numEvents <= 0)
+            return new int[0];
+
+        // Solo influyen los eventos que se llegan a cargar
+        int eventos = Math.min(numEvents, days.length - 1);
+        int[] profits = cachedProfits(days, eventos);
+
+        // Lista de profits parciales: para cada límite se usa la máxima ganancia
+        // encontrada hasta ese momento
+        int[] resultado = new int[numEvents];
+        int maxProfitGlobal = 0; // Para trackear la máxima ganancia encontrada
+        for (int limite = 1; limite <= numEvents; limite++) {
+            int profitActual = profits[Math.min(limite, eventos) - 1];
+            if (profitActual > maxProfitGlobal)
+                maxProfitGlobal = profitActual;
+            resultado[limite - 1] = maxProfitGlobal;
+        }
+        return resultado;
+    }
+
+    /**
+     * @return número de consultas respondidas desde la caché (completa o por
+     *         prefijo)
+     */
+    public static synchronized long cacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * @return número de consultas que se calcularon desde cero
+     */
+    public static synchronized long cacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * @return número de arreglos de eventos guardados en la caché
+     */
+    public static synchronized int cacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * Vacía la caché de resultados y reinicia sus estadísticas.
+     */
+    public static synchronized void clearCache() {
+        cache.clear();
+        cacheHits = 0;
+        cacheMisses = 0;
+    }
+
+    // ----- Caché de resultados de solve -----
+
+    private static final int CACHE_CAPACITY = 256; // arreglos de eventos guardados
+
+    // LRU (orden de acceso): al superar la capacidad se descarta el menos usado
+    private static final Map<ScheduleKey, int[]> cache = new LinkedHashMap<ScheduleKey, int[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ScheduleKey, int[]> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+    private static long cacheHits;
+    private static long cacheMisses;
+
+    /**
+     * Devuelve la ganancia (sin acumular el máximo) de cada límite 1..eventos.
+     * Busca primero el arreglo exacto en la caché y, si no está, el prefijo
+     * más largo ya resuelto; solo calcula los límites restantes.
+     *
+     * @param days    arreglo de eventos completo
+     * @param eventos número de eventos a considerar
+     * @return ganancia de cada límite (posición i = límite i+1)
+     */
+    private static int[] cachedProfits(int[][] days, int eventos) {
+        long[] hashes = ScheduleKey.prefixHashes(days, eventos);
+
+        int[] known = null;
+        synchronized (SilkRoadContest.class) {
+            // El prefijo más largo en caché (el propio arreglo si ya se resolvió)
+            for (int length = eventos; length >= 1 && known == null; length--) {
+                known = cache.get(new ScheduleKey(days, length, hashes[length]));
+            }
+            if (known != null && known.length == eventos) {
+                cacheHits++;
+                return known;
+            }
+            if (known != null)
+                cacheHits++;
+            else
+                cacheMisses++;
+        }
+
+        int[] profits = Arrays.copyOf(known != null ? known : new int[0], eventos);
         int maxPos = 0;
-        for (int i = 1; i < days.length; i++) {
+        for (int i = 1; i <= eventos; i++) {
             if (days[i] != null && days[i].length > 1) {
                 maxPos = Math.max(maxPos, days[i][1]);
             }
         }
+        for (int limite = (known != null ? known.length : 0) + 1; limite <= eventos; limite++) {
+            profits[limite - 1] = profitWithEvents(days, limite, maxPos);
+        }
 
-        // Lista de profits parciales
-        List<Integer> profitsParciales = new ArrayList<>();
-        int maxProfitGlobal = 0; // Para trackear la máxima ganancia encontrada
-        int mejorLimite = 1; // Hasta qué evento tenemos la máxima ganancia
+        ScheduleKey key = new ScheduleKey(copyEvents(days, eventos), eventos, hashes[eventos]);
+        synchronized (SilkRoadContest.class) {
+            cache.put(key, profits);
+        }
+        return profits;
+    }
 
-        int numEvents = days[0][0];
+    /**
+     * Calcula la ganancia del greedy cargando los primeros eventos.
+     *
+     * @param days   arreglo de eventos
+     * @param limite número de eventos a cargar
+     * @param maxPos mayor posición usada por esos eventos
+     * @return ganancia obtenida
+     */
+    private static int profitWithEvents(int[][] days, int limite, int maxPos) {
+        SilkRoadContest contest = new SilkRoadContest(maxPos);
+
+        // Cargar los primeros 'limite' eventos
+        for (int i = 1; i <= limite && i < days.length; i++) {
+            int[] event = days[i];
+            if (event == null || event.length < 2)
+                continue;
+
+            int type = event[0];
+            int pos = event[1];
+
+            if (type == 1) {
+                contest.robotPos[pos] = pos; // Robot
+            } else if (type == 2 && event.length >= 3) {
+                contest.storeTenges[pos] = event[2]; // Tienda
+                contest.storeTree.set(pos, event[2]);
+                contest.storeExists[pos] = true;
+            }
+        }
 
-        // Ir agregando eventos progresivamente
-        for (int limite = 1; limite <= numEvents; limite++) {
-            SilkRoadContest contest = new SilkRoadContest(maxPos);
+        // Calcular profit actual
+        contest.calculateOptimalProfit();
+        return contest.profit;
+    }
 
-            // Cargar los primeros 'limite' eventos
-            for (int i = 1; i <= limite && i < days.length; i++) {
-                int[] event = days[i];
-                if (event == null || event.length < 2)
-                    continue;
+    /**
+     * @return copia profunda de los eventos 1..eventos (la fila 0 queda vacía)
+     */
+    private static int[][] copyEvents(int[][] days, int eventos) {
+        int[][] copy = new int[eventos + 1][];
+        for (int i = 1; i <= eventos; i++) {
+            copy[i] = days[i] == null ? null : days[i].clone();
+        }
+        return copy;
+    }
 
-                int type = event[0];
-                int pos = event[1];
+    /**
+     * Clave de la caché: los primeros eventos de un arreglo de días junto con
+     * un hash de 64 bits. El hash solo acelera la búsqueda; equals compara los
+     * eventos uno a uno, así que una colisión nunca devuelve otro resultado.
+     */
+    private static final class ScheduleKey {
+        private final int[][] days;
+        private final int length;
+        private final long hash;
+
+        ScheduleKey(int[][] days, int length, long hash) {
+            this.days = days;
+            this.length = length;
+            this.hash = hash;
+        }
 
-                if (type == 1) {
-                    contest.robotPos[pos] = pos; // Robot
-                } else if (type == 2 && event.length >= 3) {
-                    contest.storeTenges[pos] = event[2]; // Tienda
-                    contest.storeExists[pos] = true;
+        /**
+         * @return hash de cada prefijo: posición L = hash de los eventos 1..L
+         */
+        static long[] prefixHashes(int[][] days, int eventos) {
+            long[] hashes = new long[eventos + 1];
+            long h = 0x9E3779B97F4A7C15L;
+            for (int i = 1; i <= eventos; i++) {
+                int[] event = days[i];
+                long row = event == null ? -1 : event.length;
+                if (event != null) {
+                    for (int value : event) {
+                        row = row * 0x100000001B3L + value;
+                    }
                 }
+                h = (h ^ row) * 0xBF58476D1CE4E5B9L;
+                h ^= h >>> 31;
+                hashes[i] = h;
             }
-
-            // Calcular profit actual
-            contest.calculateOptimalProfit();
-            int profitActual = contest.profit;
-            profitsParciales.add(profitActual);
-
-            // Verificar si este es el nuevo máximo
-            if (profitActual > maxProfitGlobal) {
-                maxProfitGlobal = profitActual;
-                mejorLimite = limite;
-            }
-            // Si el profit actual es menor que el máximo global, usar el máximo anterior
-            else if (profitActual < maxProfitGlobal) {
-                profitsParciales.set(profitsParciales.size() - 1, maxProfitGlobal);
-            }
-            // Si es igual, mantener el máximo
+            return hashes;
         }
 
-        // Aplicar la optimización: para eventos posteriores al mejor límite, usar el
-        // máximo global
-        for (int i = mejorLimite; i < profitsParciales.size(); i++) {
-            profitsParciales.set(i, maxProfitGlobal);
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
         }
 
-        // Convertir List<Integer> a int[] para el retorno
-        int[] resultado = new int[profitsParciales.size()];
-        for (int i = 0; i < profitsParciales.size(); i++) {
-            resultado[i] = profitsParciales.get(i);
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ScheduleKey))
+                return false;
+            ScheduleKey key = (ScheduleKey) other;
+            if (key.hash != hash || key.length != length)
+                return false;
+            for (int i = 1; i <= length; i++) {
+                if (!Arrays.equals(days[i], key.days[i]))
+                    return false;
+            }
+            return true;
         }
-
-        return resultado;
     }
 
     /**
@@ -124,25 +278,17 @@ public class SilkRoadContest {
             robotActual[i] = robots.get(i);
         }
 
+        RobotIndex indice = new RobotIndex(storeTenges.length - 1, robotActual);
+
         // Recorrer todas las tiendas
         for (int tienda : tiendas) {
-            int mejorGanancia = Integer.MIN_VALUE;
-            int robotSeleccionado = -1;
-
-            // Elegir el robot que obtiene mayor ganancia para esta tienda
-            for (int i = 0; i < robots.size(); i++) {
-                int distancia = Math.abs(tienda - robotActual[i]);
-                int ganancia = storeTenges[tienda] - distancia;
-                if (ganancia > mejorGanancia) {
-                    mejorGanancia = ganancia;
-                    robotSeleccionado = i;
-                }
-            }
+            // El robot de mayor ganancia (tenges - distancia) es el más cercano
+            int robotSeleccionado = indice.nearest(tienda);
 
             // Mover al robot seleccionado y sumar ganancia
             if (robotSeleccionado != -1) {
-                profit += mejorGanancia;
-                robotActual[robotSeleccionado] = tienda;
+                profit += storeTenges[tienda] - Math.abs(tienda - indice.positionOf(robotSeleccionado));
+                indice.move(robotSeleccionado, tienda);
             }
         }
     }
@@ -158,11 +304,11 @@ public class SilkRoadContest {
 
     private List<Integer> getTiendasActivas() {
         List<Integer> result = new ArrayList<>();
-        for (int i = 0; i < storeTenges.length; i++) {
-            if (storeExists[i] && storeTenges[i] > 0)
+        // Recorre solo las posiciones con tenges, ya en orden
+        for (int i = storeTree.nextNonEmpty(0); i != -1; i = storeTree.nextNonEmpty(i + 1)) {
+            if (storeExists[i])
                 result.add(i);
         }
-        Collections.sort(result);
         return result;
     }
 
@@ -195,15 +341,9 @@ public class SilkRoadContest {
         // Asegurar visibilidad inicial (siempre visible)
         road.makeVisible();
 
-        // Paso 1: Reboots progresivos para agregar TODOS los objetos (uno por evento)
-        // Cada reboot() llama checkReboots(), que agrega days[i] (i=1 a numEvents)
-        for (int i = 1; i <= numEvents; i++) {
-            road.reboot(); // Agrega el evento i (robot o tienda)
-
-            // Reforzar visibilidad después de cada reboot (mantiene estable durante
-            // progresión)
-            road.makeVisible();
-        }
+        // Paso 1: Agregar TODOS los objetos (days[1] a days[numEvents]) de una sola
+        // pasada, equivalente a numEvents reboots pero en tiempo lineal
+        road.advanceTo(numEvents);
 
         // Paso 2: Configurar velocidad del robot antes de optimizar
         road.setFastMovement(!slow); // true para rápido (reposition); false para lento
@@ -232,4 +372,33 @@ public class SilkRoadContest {
 
         // Fin: Simulación terminada con finish() activado automáticamente
     }
+
+    /**
+     * Ejecuta {@link #simulate(int[][], boolean)} grabándola como secuencia de
+     * PNG en lugar de reproducirla en tiempo real: las pausas de la animación
+     * avanzan un reloj lógico y los cuadros se codifican en segundo plano.
+     *
+     * @param days      eventos, con el mismo formato que simulate
+     * @param slow      true para grabar los movimientos animados
+     * @param directory carpeta destino de los cuadros
+     * @param fps       cuadros por segundo de la grabación
+     * @return número de cuadros escritos
+     * @throws IOException si no se pudo escribir algún cuadro
+     */
+    public static int record(int[][] days, boolean slow, String directory, int fps) throws IOException {
+        FrameRecorder recorder = new FrameRecorder(new File(directory), fps, 16);
+        recorder.start();
+        try {
+            simulate(days, slow);
+        } catch (RuntimeException | Error e) {
+            // Se desengancha el grabador sin ocultar el error original
+            try {
+                recorder.stop();
+            } catch (IOException | RuntimeException stopFailure) {
+                e.addSuppressed(stopFailure);
+            }
+            throw e;
+        }
+        return recorder.stop();
+    }
 }
@@ -0,0 +1,51 @@
+package silkroad;
+
+/**
+ * Observador de los cambios lógicos de una SilkRoad. El modelo publica un
+ * evento pequeño por cada cambio (robot movido, tenges de una tienda, tienda
+ * vaciada, ganancia) en el mismo hilo que hizo el cambio; la vista decide
+ * cuándo y cómo dibujarlo (ver {@link SilkRoadView}). Una SilkRoad visible
+ * sigue dibujando sus propias figuras en el hilo que la usa, porque el lienzo
+ * no es seguro entre hilos; para dibujar en el hilo de Swing se usa una ruta
+ * headless con una SilkRoadView.
+ * Todos los métodos tienen una implementación vacía por defecto.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public interface SilkRoadListener {
+    /**
+     * Un robot cambió de casilla.
+     *
+     * @param from casilla de origen (-1 si el robot se acaba de colocar)
+     * @param to   casilla de destino (-1 si el robot se eliminó)
+     */
+    default void robotMoved(int from, int to) {
+    }
+
+    /**
+     * Cambiaron los tenges de una tienda (colocación, cobro, reabastecimiento
+     * o eliminación).
+     *
+     * @param location casilla de la tienda
+     * @param tenges   tenges actuales (-1 si la tienda se eliminó)
+     */
+    default void storeChanged(int location, int tenges) {
+    }
+
+    /**
+     * Una tienda que tenía tenges quedó vacía.
+     *
+     * @param location casilla de la tienda
+     */
+    default void storeEmptied(int location) {
+    }
+
+    /**
+     * Cambió la ganancia acumulada o su tope.
+     *
+     * @param profit    ganancia actual
+     * @param maxProfit ganancia máxima usada como tope (&gt;= 1)
+     */
+    default void profitChanged(int profit, int maxProfit) {
+    }
+}
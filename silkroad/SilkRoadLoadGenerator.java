@@ -0,0 +1,128 @@
+package silkroad;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generador de carga para {@link SilkRoadServer}: abre varias conexiones, cada
+ * una en su hilo, y mantiene hasta {@code depth} peticiones encadenadas en
+ * vuelo por conexión. Mide el rendimiento total y la latencia de cada
+ * petición (desde que se envía hasta que llega su respuesta).
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class SilkRoadLoadGenerator {
+
+    private SilkRoadLoadGenerator() {
+    }
+
+    /**
+     * Lanza la carga y devuelve un resumen de la medición.
+     *
+     * @param port        puerto del servidor en localhost (0 = levantar uno
+     *                    propio durante la prueba)
+     * @param connections número de conexiones simultáneas
+     * @param requests    peticiones por conexión
+     * @param depth       peticiones en vuelo por conexión (1 = sin pipelining)
+     * @param events      eventos por cronograma generado
+     * @return resumen con peticiones por segundo y latencias p50/p99/máx
+     * @throws IOException si falla alguna conexión
+     */
+    public static String run(int port, int connections, int requests, int depth, int events)
+            throws IOException {
+        SilkRoadServer server = null;
+        if (port == 0) {
+            server = new SilkRoadServer(0);
+            server.start();
+            port = server.getPort();
+        }
+        try {
+            long[] latencies = new long[connections * requests];
+            IOException[] failure = new IOException[1];
+            Thread[] threads = new Thread[connections];
+            int serverPort = port;
+            long start = System.nanoTime();
+            for (int c = 0; c < connections; c++) {
+                int index = c;
+                threads[c] = new Thread(() -> {
+                    try {
+                        drive(serverPort, requests, Math.max(1, depth), events, index,
+                                latencies, index * requests);
+                    } catch (IOException e) {
+                        synchronized (failure) {
+                            failure[0] = e;
+                        }
+                    }
+                }, "silkroad-load-" + c);
+                threads[c].start();
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Prueba de carga interrumpida", e);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            if (failure[0] != null)
+                throw failure[0];
+
+            Arrays.sort(latencies);
+            double seconds = elapsed / 1e9;
+            return String.format("%d peticiones en %.2f s (%.0f/s) - latencia p50 %.2f ms, p99 %.2f ms, máx %.2f ms",
+                    latencies.length, seconds, latencies.length / seconds,
+                    percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                    latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1e6);
+        } finally {
+            if (server != null)
+                server.close();
+        }
+    }
+
+    /**
+     * Envía las peticiones de una conexión manteniendo {@code depth} en vuelo y
+     * guarda la latencia de cada una a partir de {@code offset}.
+     */
+    private static void drive(int port, int requests, int depth, int events, long seed,
+            long[] latencies, int offset) throws IOException {
+        Random random = new Random(seed);
+        ArrayDeque<Long> sentAt = new ArrayDeque<>();
+        try (SilkRoadClient client = new SilkRoadClient(port)) {
+            int sent = 0, received = 0;
+            while (received < requests) {
+                while (sent < requests && sentAt.size() < depth) {
+                    int[][] days = randomDays(random, events);
+                    sentAt.add(System.nanoTime());
+                    client.send(days);
+                    sent++;
+                }
+                client.receive();
+                latencies[offset + received++] = System.nanoTime() - sentAt.poll();
+            }
+        }
+    }
+
+    /**
+     * @return cronograma aleatorio con robots y tiendas en una ruta de 10·n
+     *         casillas
+     */
+    private static int[][] randomDays(Random random, int events) {
+        int[][] days = new int[events + 1][];
+        days[0] = new int[] { events };
+        int length = Math.max(1, events * 10);
+        for (int i = 1; i <= events; i++) {
+            int x = 1 + random.nextInt(length);
+            days[i] = random.nextBoolean() ? new int[] { 1, x } : new int[] { 2, x, 1 + random.nextInt(100) };
+        }
+        return days;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+}
@@ -0,0 +1,115 @@
+package silkroad;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Formato binario compacto que usan {@link SilkRoadServer} y
+ * {@link SilkRoadClient}. Todos los números son int de 4 bytes (big endian) y
+ * cada mensaje va precedido de su longitud en bytes:
+ *
+ * <pre>
+ * petición:  [longitud][id][filas] y por fila [largo][valores...] (largo -1 = fila nula)
+ * respuesta: [longitud][id][estado][n][profits...]
+ * </pre>
+ *
+ * Las respuestas de una conexión llegan en el mismo orden que sus peticiones,
+ * así que el cliente puede enviar varias seguidas sin esperar (pipelining).
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+final class SilkRoadProtocol {
+    static final int MAX_FRAME_BYTES = 64 << 20; // mensajes más grandes se rechazan
+    static final int MAX_EVENTS = MAX_FRAME_BYTES / 4 - 3; // la respuesta debe caber en un mensaje
+    static final int MAX_ROAD_LENGTH = MAX_FRAME_BYTES / 64; // cada casilla cuesta decenas de bytes al resolver
+    static final int STATUS_OK = 0;
+    static final int STATUS_ERROR = 1;
+
+    private SilkRoadProtocol() {
+    }
+
+    /**
+     * @param id   identificador de la petición
+     * @param days eventos a resolver
+     * @return mensaje listo para escribir (posición 0)
+     */
+    static ByteBuffer encodeRequest(int id, int[][] days) {
+        int ints = 2;
+        for (int[] row : days) {
+            ints += 1 + (row == null ? 0 : row.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + ints * 4);
+        buffer.putInt(ints * 4).putInt(id).putInt(days.length);
+        for (int[] row : days) {
+            if (row == null) {
+                buffer.putInt(-1);
+                continue;
+            }
+            buffer.putInt(row.length);
+            for (int value : row) {
+                buffer.putInt(value);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Lee los eventos de una petición (después del id) y comprueba que se
+     * puedan resolver con memoria acotada: el número de días de la fila 0 y
+     * cada posición deben estar dentro de los límites del protocolo.
+     *
+     * @param payload contenido del mensaje posicionado tras el id
+     * @return eventos decodificados
+     * @throws IOException si el mensaje está mal formado o excede los límites
+     */
+    static int[][] decodeDays(ByteBuffer payload) throws IOException {
+        int rows = payload.getInt();
+        if (rows < 0 || rows > payload.remaining() / 4)
+            throw new IOException("Número de filas inválido: " + rows);
+        int[][] days = new int[rows][];
+        for (int i = 0; i < rows; i++) {
+            int length = payload.getInt();
+            if (length == -1)
+                continue;
+            if (length < 0 || length > payload.remaining() / 4)
+                throw new IOException("Largo de fila inválido: " + length);
+            days[i] = new int[length];
+            for (int j = 0; j < length; j++) {
+                days[i][j] = payload.getInt();
+            }
+        }
+        checkLimits(days);
+        return days;
+    }
+
+    private static void checkLimits(int[][] days) throws IOException {
+        if (days.length == 0 || days[0] == null || days[0].length == 0)
+            return; // solve responde vacío
+        int events = days[0][0];
+        if (events > MAX_EVENTS)
+            throw new IOException("Demasiados días: " + events);
+        for (int i = 1; i < days.length; i++) {
+            int[] event = days[i];
+            if (event != null && event.length > 1 && (event[1] < 0 || event[1] > MAX_ROAD_LENGTH))
+                throw new IOException("Posición fuera de límites: " + event[1]);
+        }
+    }
+
+    /**
+     * @param id      identificador de la petición respondida
+     * @param status  STATUS_OK o STATUS_ERROR
+     * @param profits resultado de solve (vacío si hubo error)
+     * @return mensaje listo para escribir (posición 0)
+     */
+    static ByteBuffer encodeResponse(int id, int status, int[] profits) {
+        int bytes = (3 + profits.length) * 4;
+        ByteBuffer buffer = ByteBuffer.allocate(4 + bytes);
+        buffer.putInt(bytes).putInt(id).putInt(status).putInt(profits.length);
+        for (int value : profits) {
+            buffer.putInt(value);
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
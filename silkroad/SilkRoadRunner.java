@@ -0,0 +1,294 @@
+package silkroad;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Ejecuta muchas SilkRoad independientes a la vez. Cada sesión es una
+ * SilkRoad sin visualización ({@link SilkRoad#headless(int)}) con su propio
+ * buzón de comandos, atendido en orden por un hilo virtual (Java 21) que se
+ * bloquea mientras el buzón está vacío; así miles de sesiones caben en una
+ * sola JVM. Para que una sesión con muchos comandos no acapare los hilos del
+ * sistema, cada {@link #QUANTUM} comandos cede el turno al resto.
+ *
+ * Lleva estadísticas agregadas de comandos atendidos, fallidos y latencia
+ * (desde que el comando entra al buzón hasta que termina).
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class SilkRoadRunner implements AutoCloseable {
+    /** Comandos seguidos que atiende una sesión antes de ceder el turno. */
+    public static final int QUANTUM = 16;
+    private static final int DEFAULT_MAILBOX = 1024;
+
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final int mailboxCapacity;
+    private final long startedAt = System.nanoTime();
+    private volatile boolean closed;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Crea un runner con buzones de 1024 comandos.
+     */
+    public SilkRoadRunner() {
+        this(DEFAULT_MAILBOX);
+    }
+
+    /**
+     * @param mailboxCapacity comandos pendientes por sesión; al llenarse,
+     *                        submit espera a que haya espacio
+     */
+    public SilkRoadRunner(int mailboxCapacity) {
+        this.mailboxCapacity = Math.max(1, mailboxCapacity);
+    }
+
+    /**
+     * Abre una sesión con una SilkRoad vacía.
+     *
+     * @param length longitud de la ruta
+     * @return identificador de la sesión
+     */
+    public int open(int length) {
+        return start(SilkRoad.headless(length));
+    }
+
+    /**
+     * Abre una sesión con una SilkRoad en modo días.
+     *
+     * @param schedule matriz de eventos diarios
+     * @return identificador de la sesión
+     */
+    public int open(int[][] schedule) {
+        return start(SilkRoad.headless(schedule));
+    }
+
+    /**
+     * Encola un comando en la sesión. Los comandos de una misma sesión se
+     * ejecutan uno tras otro en el orden en que se enviaron.
+     *
+     * @param session identificador de la sesión
+     * @param command operación sobre la SilkRoad de la sesión
+     * @return resultado del comando cuando termine
+     */
+    public <T> CompletableFuture<T> submit(int session, Function<SilkRoad, T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Session s = sessions.get(session);
+        if (s == null || closed) {
+            result.completeExceptionally(new IllegalStateException("Sesión inexistente o cerrada: " + session));
+            return result;
+        }
+        try {
+            s.mailbox.put(new Command<>(command, result));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return result;
+        }
+        if (s.finished)
+            s.failPending(); // la sesión terminó mientras se encolaba
+        return result;
+    }
+
+    /**
+     * Encola un comando sin resultado (ver {@link #submit(int, Function)}).
+     *
+     * @param session identificador de la sesión
+     * @param command operación sobre la SilkRoad de la sesión
+     * @return se completa cuando el comando termina
+     */
+    public CompletableFuture<Void> execute(int session, Consumer<SilkRoad> command) {
+        return submit(session, road -> {
+            command.accept(road);
+            return null;
+        });
+    }
+
+    /**
+     * Cierra una sesión después de atender los comandos ya encolados.
+     *
+     * @param session identificador de la sesión
+     */
+    public void close(int session) {
+        Session s = sessions.remove(session);
+        if (s != null)
+            s.stop();
+    }
+
+    /**
+     * Cierra todas las sesiones y espera a que terminen sus comandos.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Integer id : sessions.keySet()) {
+            Session s = sessions.remove(id);
+            if (s != null) {
+                s.stop();
+                try {
+                    s.thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return sesiones abiertas
+     */
+    public int sessions() {
+        return sessions.size();
+    }
+
+    /**
+     * @return comandos completados sin error
+     */
+    public long completed() {
+        return completed.sum();
+    }
+
+    /**
+     * @return comandos que lanzaron excepción o se descartaron al cerrar
+     */
+    public long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return comandos atendidos por segundo desde que se creó el runner
+     */
+    public double throughput() {
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        return seconds <= 0 ? 0 : (completed.sum() + failed.sum()) / seconds;
+    }
+
+    /**
+     * @return latencia media en microsegundos (buzón + ejecución)
+     */
+    public double averageLatencyMicros() {
+        long count = completed.sum() + failed.sum();
+        return count == 0 ? 0 : latencyNanos.sum() / 1e3 / count;
+    }
+
+    /**
+     * @return mayor latencia observada en microsegundos
+     */
+    public double maxLatencyMicros() {
+        return maxLatencyNanos.get() / 1e3;
+    }
+
+    private int start(SilkRoad road) {
+        if (closed)
+            throw new IllegalStateException("El runner está cerrado");
+        int id = nextId.getAndIncrement();
+        Session s = new Session(road, mailboxCapacity);
+        sessions.put(id, s);
+        s.thread = Thread.ofVirtual().name("silkroad-session-" + id).start(() -> loop(s));
+        return id;
+    }
+
+    /**
+     * Bucle de una sesión: atiende su buzón en orden y cede el turno cada
+     * QUANTUM comandos.
+     */
+    private void loop(Session s) {
+        int served = 0;
+        try {
+            while (true) {
+                Command<?> command = s.mailbox.take();
+                if (command == STOP)
+                    break;
+                run(command, s.road);
+                if (++served % QUANTUM == 0)
+                    Thread.yield();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            s.finished = true;
+            s.failPending();
+        }
+    }
+
+    private <T> void run(Command<T> command, SilkRoad road) {
+        try {
+            T value = command.action.apply(road);
+            record(command, true);
+            command.result.complete(value);
+        } catch (Throwable e) { // también Error: el futuro siempre se completa
+            record(command, false);
+            command.result.completeExceptionally(e);
+        }
+    }
+
+    private void record(Command<?> command, boolean ok) {
+        long latency = System.nanoTime() - command.enqueuedAt;
+        (ok ? completed : failed).increment();
+        latencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+    }
+
+    private static final Command<Void> STOP = new Command<>(null, null);
+
+    /**
+     * Comando encolado con su resultado y el instante en que entró al buzón.
+     */
+    private static final class Command<T> {
+        final Function<SilkRoad, T> action;
+        final CompletableFuture<T> result;
+        final long enqueuedAt = System.nanoTime();
+
+        Command(Function<SilkRoad, T> action, CompletableFuture<T> result) {
+            this.action = action;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Sesión: SilkRoad propia, buzón y el hilo virtual que lo atiende.
+     */
+    private final class Session {
+        final SilkRoad road;
+        final BlockingQueue<Command<?>> mailbox;
+        volatile boolean finished;
+        Thread thread;
+
+        Session(SilkRoad road, int capacity) {
+            this.road = road;
+            this.mailbox = new LinkedBlockingQueue<>(capacity);
+        }
+
+        void stop() {
+            try {
+                mailbox.put(STOP);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                thread.interrupt();
+            }
+        }
+
+        /**
+         * Descarta los comandos que quedaron en el buzón de una sesión terminada.
+         */
+        void failPending() {
+            Command<?> command;
+            while ((command = mailbox.poll()) != null) {
+                if (command == STOP)
+                    continue;
+                failed.increment();
+                command.result.completeExceptionally(new CancellationException("Sesión cerrada"));
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package silkroad;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Servicio local que resuelve {@link SilkRoadContest#solve(int[][])} por red.
+ * Un único hilo con un Selector NIO atiende todas las conexiones sin
+ * bloquearse; cada petición se resuelve en un pool de trabajadores (uno por
+ * núcleo) y las respuestas se devuelven en el orden en que llegaron las
+ * peticiones de esa conexión, así que el cliente puede encadenar varias sin
+ * esperar (pipelining). El formato está en {@link SilkRoadProtocol}.
+ *
+ * Por defecto solo escucha en la interfaz local (localhost).
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class SilkRoadServer implements Closeable {
+    private static final int MAX_IN_FLIGHT = 256; // peticiones pendientes por conexión
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final Queue<Connection> ready; // conexiones con respuestas listas
+    private Thread loop;
+    private volatile boolean running;
+
+    /**
+     * Crea un servidor en localhost con un trabajador por núcleo.
+     *
+     * @param port puerto (0 = cualquiera libre, ver {@link #getPort()})
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public SilkRoadServer(int port) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Crea un servidor en la dirección dada.
+     *
+     * @param address     dirección y puerto donde escuchar
+     * @param workerCount número de hilos que resuelven peticiones
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public SilkRoadServer(InetSocketAddress address, int workerCount) throws IOException {
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.ready = new ConcurrentLinkedQueue<>();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), task -> {
+            Thread thread = new Thread(task, "silkroad-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Empieza a atender conexiones en un hilo propio.
+     */
+    public synchronized void start() {
+        if (running)
+            return;
+        running = true;
+        loop = new Thread(this::run, "silkroad-selector");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    /**
+     * @return puerto en el que escucha el servidor
+     */
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Detiene el servidor y cierra todas las conexiones.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        if (loop != null) {
+            try {
+                loop.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.shutdownNow();
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        serverChannel.close();
+    }
+
+    /**
+     * Bucle del selector: acepta, lee peticiones completas y escribe las
+     * respuestas que ya están listas.
+     */
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                Connection connection;
+                while ((connection = ready.poll()) != null) {
+                    flush(connection);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid())
+                        continue;
+                    if (key.isAcceptable())
+                        accept();
+                    else {
+                        Connection c = (Connection) key.attachment();
+                        if (key.isReadable())
+                            read(c);
+                        if (key.isValid() && key.isWritable())
+                            write(c);
+                    }
+                }
+            } catch (ClosedSelectorException e) {
+                return;
+            } catch (IOException e) {
+                // Error del selector: se sigue atendiendo al resto
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null)
+            return;
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    /**
+     * Lee todo lo disponible y despacha cada mensaje completo a los
+     * trabajadores. Si la conexión tiene demasiadas peticiones pendientes deja
+     * de leer hasta que se envíen respuestas.
+     */
+    private void read(Connection c) {
+        try {
+            if (c.channel.read(c.in) == -1) {
+                c.close();
+                return;
+            }
+        } catch (IOException e) {
+            c.close();
+            return;
+        }
+
+        c.in.flip();
+        while (c.in.remaining() >= 4 && c.nextSeq - c.nextToWrite < MAX_IN_FLIGHT) {
+            int length = c.in.getInt(c.in.position());
+            if (length < 4 || length > SilkRoadProtocol.MAX_FRAME_BYTES) {
+                c.close(); // mensaje mal formado
+                return;
+            }
+            if (c.in.remaining() < 4 + length) {
+                if (c.in.capacity() < 4 + length) {
+                    // El mensaje no cabe: se agranda el buffer de entrada
+                    ByteBuffer bigger = ByteBuffer.allocate(4 + length);
+                    bigger.put(c.in);
+                    c.in = bigger;
+                    return;
+                }
+                break;
+            }
+            c.in.position(c.in.position() + 4);
+            byte[] payload = new byte[length];
+            c.in.get(payload);
+            dispatch(c, c.nextSeq++, payload);
+        }
+        c.in.compact();
+        updateInterest(c);
+    }
+
+    /**
+     * Resuelve la petición en un trabajador y avisa al selector al terminar.
+     */
+    private void dispatch(Connection c, long seq, byte[] payload) {
+        workers.execute(() -> {
+            ByteBuffer body = ByteBuffer.wrap(payload);
+            int id = body.getInt();
+            ByteBuffer response;
+            try {
+                int[][] days = SilkRoadProtocol.decodeDays(body);
+                response = SilkRoadProtocol.encodeResponse(id, SilkRoadProtocol.STATUS_OK,
+                        SilkRoadContest.solve(days));
+            } catch (Throwable e) {
+                // También Error (p. ej. memoria): cada petición recibe respuesta,
+                // si no las siguientes de la conexión esperarían para siempre
+                response = SilkRoadProtocol.encodeResponse(id, SilkRoadProtocol.STATUS_ERROR, new int[0]);
+            }
+            c.done.put(seq, response);
+            ready.add(c);
+            selector.wakeup();
+        });
+    }
+
+    /**
+     * Pasa a la cola de salida las respuestas listas en orden y las escribe.
+     */
+    private void flush(Connection c) {
+        if (!c.channel.isOpen())
+            return;
+        ByteBuffer response;
+        while ((response = c.done.remove(c.nextToWrite)) != null) {
+            c.out.add(response);
+            c.nextToWrite++;
+        }
+        write(c);
+        if (c.in.position() > 0 && c.channel.isOpen())
+            read(c); // había mensajes retenidos por el límite de pendientes
+    }
+
+    private void write(Connection c) {
+        try {
+            while (!c.out.isEmpty()) {
+                ByteBuffer head = c.out.peek();
+                c.channel.write(head);
+                if (head.hasRemaining())
+                    break; // el socket está lleno: se espera a OP_WRITE
+                c.out.poll();
+            }
+        } catch (IOException e) {
+            c.close();
+            return;
+        }
+        updateInterest(c);
+    }
+
+    private void updateInterest(Connection c) {
+        if (!c.key.isValid())
+            return;
+        int ops = 0;
+        if (c.nextSeq - c.nextToWrite < MAX_IN_FLIGHT)
+            ops |= SelectionKey.OP_READ;
+        if (!c.out.isEmpty())
+            ops |= SelectionKey.OP_WRITE;
+        c.key.interestOps(ops);
+    }
+
+    /**
+     * Estado de una conexión: buffer de entrada, secuencia de peticiones y
+     * respuestas pendientes de enviar en orden.
+     */
+    private static final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final Map<Long, ByteBuffer> done = new ConcurrentHashMap<>();
+        final Deque<ByteBuffer> out = new ArrayDeque<>();
+        ByteBuffer in = ByteBuffer.allocate(8192);
+        long nextSeq; // secuencia de la próxima petición leída
+        long nextToWrite; // secuencia de la próxima respuesta a enviar
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // ya estaba cerrada
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package silkroad;
+
+import java.util.BitSet;
+import javax.swing.SwingUtilities;
+import shapes.Canvas;
+import shapes.Circle;
+import shapes.Rectangle;
+
+/**
+ * Vista de una SilkRoad alimentada por eventos ({@link SilkRoadListener}).
+ * El modelo (normalmente una {@link SilkRoad#headless(int)} en su propio
+ * hilo) solo anota cada cambio en el estado de la vista, que es O(1) y no
+ * dibuja nada; los cambios se acumulan por casilla y se dibujan en el hilo de
+ * Swing con una sola tarea pendiente a la vez. Si el modelo cambia una casilla
+ * mil veces antes de que se dibuje, se dibuja solo su último estado.
+ *
+ * La vista tiene su propia espiral ({@link Road}) y barra de progreso, que se
+ * crean en el hilo de Swing al dibujar por primera vez; cada tienda se muestra
+ * como un cuadro (negro si está vacía) y cada robot como un círculo.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class SilkRoadView implements SilkRoadListener, AutoCloseable {
+    private static final int STORE_SIZE = 12;
+    private static final int ROBOT_SIZE = 8;
+
+    private final SilkRoad model;
+
+    // Estado pendiente (lo escribe el modelo, lo lee el hilo de Swing)
+    private final int[] robotCount; // robots por casilla
+    private final int[] storeTenges; // -1 = sin tienda
+    private final BitSet dirty = new BitSet();
+    private int profit;
+    private int maxProfit = 1;
+    private boolean progressDirty;
+    private boolean scheduled;
+    private long events;
+    private long frames;
+
+    // Figuras dibujadas (solo las toca el hilo de Swing)
+    private Road road; // null hasta el primer dibujo
+    private ProgressBar progressBar;
+    private final Rectangle[] storeMarks;
+    private final Circle[] robotMarks;
+
+    /**
+     * Crea la vista y la suscribe al modelo. Llamar desde el hilo del modelo.
+     *
+     * @param model ruta a mostrar
+     */
+    public SilkRoadView(SilkRoad model) {
+        this.model = model;
+        int cells = model.getLength() + 1;
+        robotCount = new int[cells];
+        storeTenges = new int[cells];
+        java.util.Arrays.fill(storeTenges, -1);
+        storeMarks = new Rectangle[cells];
+        robotMarks = new Circle[cells];
+        model.addListener(this);
+    }
+
+    @Override
+    public synchronized void robotMoved(int from, int to) {
+        // Se cuentan robots por casilla: el orden de los eventos de un
+        // movimiento grupal no importa
+        if (from >= 0 && from < robotCount.length) {
+            robotCount[from]--;
+            touch(from);
+        }
+        if (to >= 0 && to < robotCount.length) {
+            robotCount[to]++;
+            touch(to);
+        }
+    }
+
+    @Override
+    public synchronized void storeChanged(int location, int tenges) {
+        if (location < storeTenges.length) {
+            storeTenges[location] = tenges;
+            touch(location);
+        }
+    }
+
+    @Override
+    public synchronized void profitChanged(int profit, int maxProfit) {
+        this.profit = profit;
+        this.maxProfit = maxProfit;
+        progressDirty = true;
+        events++;
+        schedule();
+    }
+
+    /**
+     * @return eventos recibidos del modelo
+     */
+    public synchronized long events() {
+        return events;
+    }
+
+    /**
+     * @return veces que se dibujó (cada una con todos los cambios acumulados)
+     */
+    public synchronized long frames() {
+        return frames;
+    }
+
+    /**
+     * Deja de escuchar al modelo y oculta la vista.
+     */
+    @Override
+    public void close() {
+        model.removeListener(this);
+        SwingUtilities.invokeLater(() -> {
+            for (int i = 0; i < storeMarks.length; i++) {
+                if (storeMarks[i] != null)
+                    storeMarks[i].makeInvisible();
+                if (robotMarks[i] != null)
+                    robotMarks[i].makeInvisible();
+            }
+            if (road != null) {
+                progressBar.makeInvisible();
+                road.makeInvisible();
+            }
+        });
+    }
+
+    private void touch(int location) {
+        dirty.set(location);
+        events++;
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            SwingUtilities.invokeLater(this::render);
+        }
+    }
+
+    /**
+     * Dibuja el último estado de las casillas cambiadas (hilo de Swing).
+     */
+    private void render() {
+        int[] cells;
+        int[] robots;
+        int[] tenges;
+        int currentProfit, currentMax;
+        boolean progress;
+        synchronized (this) {
+            cells = dirty.stream().toArray();
+            robots = new int[cells.length];
+            tenges = new int[cells.length];
+            for (int k = 0; k < cells.length; k++) {
+                robots[k] = robotCount[cells[k]];
+                tenges[k] = storeTenges[cells[k]];
+            }
+            dirty.clear();
+            currentProfit = profit;
+            currentMax = maxProfit;
+            progress = progressDirty;
+            progressDirty = false;
+            scheduled = false;
+            frames++;
+        }
+
+        Canvas canvas = Canvas.getCanvas();
+        canvas.startBatch();
+        try {
+            if (road == null)
+                createFigures();
+            for (int k = 0; k < cells.length; k++) {
+                drawStore(cells[k], tenges[k]);
+                drawRobot(cells[k], robots[k] > 0);
+            }
+            if (progress)
+                progressBar.setProgress(currentProfit, currentMax);
+        } finally {
+            canvas.endBatch();
+        }
+    }
+
+    /**
+     * Crea la espiral y la barra de la vista (hilo de Swing).
+     */
+    private void createFigures() {
+        Mensajes.silenciar();
+        try {
+            road = new Road(model.getLength());
+        } finally {
+            Mensajes.reanudar();
+        }
+        progressBar = new ProgressBar(true);
+    }
+
+    private void drawStore(int cell, int tenges) {
+        Rectangle mark = storeMarks[cell];
+        if (tenges < 0) {
+            if (mark != null)
+                mark.makeInvisible();
+            return;
+        }
+        if (mark == null) {
+            mark = new Rectangle();
+            mark.changeSize(STORE_SIZE, STORE_SIZE);
+            mark.setPosition(road.getCellX(cell), road.getCellY(cell));
+            storeMarks[cell] = mark;
+        }
+        mark.changeColor(tenges == 0 ? "black" : "blue");
+        mark.makeVisible();
+    }
+
+    private void drawRobot(int cell, boolean present) {
+        Circle mark = robotMarks[cell];
+        if (!present) {
+            if (mark != null)
+                mark.makeInvisible();
+            return;
+        }
+        if (mark == null) {
+            mark = new Circle(ROBOT_SIZE);
+            mark.setPosition(road.getCellX(cell) + STORE_SIZE, road.getCellY(cell));
+            mark.changeColor("red");
+            robotMarks[cell] = mark;
+        }
+        mark.makeVisible();
+    }
+}
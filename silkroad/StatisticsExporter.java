@@ -0,0 +1,287 @@
+package silkroad;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Escribe las estadísticas de una SilkRoad (tiendas, robots y ganancia por
+ * casilla) como CSV o como líneas JSON, en orden de casilla, directamente a un
+ * canal con un búfer fijo. A diferencia de
+ * {@link SilkRoad#consultStatistics()} no arma todo el texto en memoria: la
+ * memoria usada no depende de cuántos robots o tiendas haya.
+ *
+ * Filas, en orden de casilla (en cada casilla: tienda, robot y ganancia):
+ * - road: longitud de la ruta y ganancia total (siempre la primera).
+ * - store: tipo, tenges actuales y tenges originales.
+ * - robot: tipo, tenges y casilla de origen.
+ * - profit: ganancia acumulada en la casilla (solo si no es cero).
+ *
+ * Con varios trozos, cada hilo escribe un rango de casillas en un archivo
+ * temporal y al final se copian en orden al destino, así el resultado es
+ * idéntico al secuencial. El modelo no debe cambiar mientras se exporta.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class StatisticsExporter {
+    /**
+     * Formato de salida.
+     */
+    public enum Format {
+        /** Valores separados por comas, con encabezado. */
+        CSV,
+        /** Un objeto JSON por línea. */
+        JSONL
+    }
+
+    /** Encabezado de las filas CSV. */
+    public static final String CSV_HEADER = "kind,cell,type,tenges,origin,original,profit";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SilkRoad model;
+    private final Format format;
+
+    /**
+     * @param model  ruta a exportar
+     * @param format formato de las filas
+     */
+    public StatisticsExporter(SilkRoad model, Format format) {
+        this.model = model;
+        this.format = format;
+    }
+
+    /**
+     * Escribe todas las filas en el canal (no lo cierra).
+     *
+     * @param out canal destino
+     * @throws IOException si falla la escritura
+     */
+    public void export(WritableByteChannel out) throws IOException {
+        Rows rows = new Rows(out);
+        writeHeader(rows);
+        writeCells(rows, 0, model.getLength());
+        rows.flush();
+    }
+
+    /**
+     * Escribe todas las filas en un archivo (lo reemplaza si existe).
+     *
+     * @param file archivo destino
+     * @throws IOException si falla la escritura
+     */
+    public void export(Path file) throws IOException {
+        export(file, 1);
+    }
+
+    /**
+     * Escribe todas las filas en un archivo repartiendo las casillas en
+     * trozos que se formatean en paralelo y se unen en orden.
+     *
+     * @param file   archivo destino (se reemplaza si existe)
+     * @param chunks número de trozos (1 = secuencial)
+     * @throws IOException si falla la escritura
+     */
+    public void export(Path file, int chunks) throws IOException {
+        int cells = model.getLength() + 1;
+        chunks = Math.max(1, Math.min(chunks, cells));
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (chunks == 1) {
+                export(out);
+                return;
+            }
+            Rows header = new Rows(out);
+            writeHeader(header);
+            header.flush();
+            exportChunks(out, cells, chunks);
+        }
+    }
+
+    private void exportChunks(FileChannel out, int cells, int chunks) throws IOException {
+        Path[] parts = new Path[chunks];
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(chunks,
+                Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (int c = 0; c < chunks; c++) {
+                int from = (int) ((long) cells * c / chunks);
+                int to = (int) ((long) cells * (c + 1) / chunks) - 1;
+                parts[c] = Files.createTempFile("silkroad-stats", ".part");
+                Path part = parts[c];
+                pending.add(pool.submit(() -> {
+                    try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                        Rows rows = new Rows(channel);
+                        writeCells(rows, from, to);
+                        rows.flush();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : pending) {
+                task.get();
+            }
+            // Unir en orden de casilla
+            for (Path part : parts) {
+                try (FileChannel channel = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = channel.size();
+                    for (long done = 0; done < size;) {
+                        done += channel.transferTo(done, size - done, out);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Exportación interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } finally {
+            pool.shutdownNow();
+            for (Path part : parts) {
+                if (part != null)
+                    Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    private void writeHeader(Rows rows) throws IOException {
+        StringBuilder line = rows.line();
+        if (format == Format.CSV) {
+            line.append(CSV_HEADER).append('\n');
+            line.append("road,").append(model.getLength()).append(",,,,,").append(model.profit());
+        } else {
+            line.append("{\"kind\":\"road\",\"length\":").append(model.getLength())
+                    .append(",\"profit\":").append(model.profit()).append('}');
+        }
+        rows.end();
+    }
+
+    /**
+     * Escribe las filas de las casillas [from, to].
+     */
+    private void writeCells(Rows rows, int from, int to) throws IOException {
+        int[][] stores = model.stores();
+        int[][] robots = model.robots();
+        Map<Integer, String> storeTypes = new HashMap<>(); // nombres ya resueltos en este trozo
+        Map<Integer, String> robotTypes = new HashMap<>();
+        for (int cell = from; cell <= to; cell++) {
+            StoreAbstracto store = model.storeAt(cell);
+            if (store != null) {
+                String type = storeTypes.computeIfAbsent(store.typeId,
+                        id -> typeName(TypeRegistry.STORES.nameOf(id), store));
+                writeStore(rows, cell, type, stores[cell][1], model.originalTengesAt(cell));
+            }
+            RobotAbstracto robot = model.robotAt(cell);
+            if (robot != null) {
+                String type = robotTypes.computeIfAbsent(robot.typeId,
+                        id -> typeName(TypeRegistry.ROBOTS.nameOf(id), robot));
+                writeRobot(rows, cell, type, robots[cell][1], model.robotOriginAt(cell));
+            }
+            int profit = model.profitAt(cell);
+            if (profit != 0)
+                writeProfit(rows, cell, profit);
+        }
+    }
+
+    private void writeStore(Rows rows, int cell, String type, int tenges, int original) throws IOException {
+        StringBuilder line = rows.line();
+        if (format == Format.CSV) {
+            line.append("store,").append(cell).append(',').append(type).append(',').append(tenges).append(",,")
+                    .append(original).append(',');
+        } else {
+            line.append("{\"kind\":\"store\",\"cell\":").append(cell).append(",\"type\":\"").append(type)
+                    .append("\",\"tenges\":").append(tenges).append(",\"original\":").append(original).append('}');
+        }
+        rows.end();
+    }
+
+    private void writeRobot(Rows rows, int cell, String type, int tenges, int origin) throws IOException {
+        StringBuilder line = rows.line();
+        if (format == Format.CSV) {
+            line.append("robot,").append(cell).append(',').append(type).append(',').append(tenges).append(',')
+                    .append(origin).append(",,");
+        } else {
+            line.append("{\"kind\":\"robot\",\"cell\":").append(cell).append(",\"type\":\"").append(type)
+                    .append("\",\"tenges\":").append(tenges).append(",\"origin\":").append(origin).append('}');
+        }
+        rows.end();
+    }
+
+    private void writeProfit(Rows rows, int cell, int profit) throws IOException {
+        StringBuilder line = rows.line();
+        if (format == Format.CSV) {
+            line.append("profit,").append(cell).append(",,,,,").append(profit);
+        } else {
+            line.append("{\"kind\":\"profit\",\"cell\":").append(cell).append(",\"profit\":").append(profit)
+                    .append('}');
+        }
+        rows.end();
+    }
+
+    /**
+     * @return nombre registrado del tipo o, si el objeto se creó fuera del
+     *         registro, el nombre de su clase
+     */
+    private static String typeName(String registered, Object object) {
+        return registered != null ? registered : object.getClass().getSimpleName().toLowerCase();
+    }
+
+    /**
+     * Búfer de salida de un hilo: cada fila se arma en un StringBuilder
+     * reutilizado y se copia al búfer, que se vacía en el canal al llenarse.
+     * Todo el texto es ASCII.
+     */
+    private static final class Rows {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final StringBuilder line = new StringBuilder(128);
+
+        Rows(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * @return la fila vacía, lista para escribirse
+         */
+        StringBuilder line() {
+            line.setLength(0);
+            return line;
+        }
+
+        /**
+         * Termina la fila actual y la pasa al búfer.
+         */
+        void end() throws IOException {
+            line.append('\n');
+            for (int i = 0; i < line.length(); i++) {
+                if (!buffer.hasRemaining())
+                    drain();
+                buffer.put((byte) line.charAt(i));
+            }
+        }
+
+        void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -26,15 +26,7 @@ public class Store extends StoreAbstracto {
         this.sizeTriangle = 20;
         this.color = getRandomColor();
 
-        base = new Rectangle();
-        base.changeColor(color);
-        base.changeSize(sizeRectangle / 2, sizeRectangle);
-        base.setPosition(positionX, positionY);
-
-        roof = new Triangle();
-        roof.changeColor("brown");
-        roof.changeSize(sizeTriangle / 2, sizeTriangle);
-        roof.setPosition(positionX + 10, positionY - sizeTriangle / 2);
+        initializeVisualParts(); // Construye base y techo agrupados
         if (visible) {
             makeVisible();
         }
@@ -51,6 +43,7 @@ public class Store extends StoreAbstracto {
     public void changeColor(String newColor) {
         this.color = newColor;
         base.changeColor(newColor);
+        refreshBody();
     }
 
     /**
@@ -60,8 +53,7 @@ public class Store extends StoreAbstracto {
     @Override
     public void makeVisible() {
         if (!isVisible) {
-            base.makeVisible();
-            roof.makeVisible();
+            body.makeVisible();
             isVisible = true;
         }
     }
@@ -73,8 +65,7 @@ public class Store extends StoreAbstracto {
     @Override
     public void makeInvisible() {
         if (isVisible) {
-            base.makeInvisible();
-            roof.makeInvisible();
+            body.makeInvisible();
             isVisible = false;
         }
     }
@@ -26,6 +26,11 @@ public abstract class StoreAbstracto {
 
     protected Rectangle base;
     protected Triangle roof;
+    protected Group body; // Nodo compuesto: una sola entrada en el canvas
+    int typeId = -1; // tipo en TypeRegistry (-1 = creado fuera del registro)
+    private int initialX; // estado de fábrica, para reutilizar la tienda
+    private int initialY;
+    private String initialColor;
 
     /**
      * Constructor base para todas las tiendas.
@@ -45,29 +50,23 @@ public abstract class StoreAbstracto {
     public void moveTo(int x, int y) {
         positionX = x;
         positionY = y;
-        base.setPosition(positionX, positionY);
-        roof.setPosition(positionX + 10, positionY - sizeTriangle / 2);
-        base.makeVisible();
-        roof.makeVisible();
+        body.setPosition(positionX, positionY);
+        if (!body.isVisible()) {
+            body.makeVisible();
+        }
     }
 
     /**
-     * Reposiciona la tienda usando desplazamiento relativo.
+     * Reposiciona la tienda; las partes se desplazan junto con el grupo.
      * 
      * @param x nueva coordenada X
      * @param y nueva coordenada Y
      */
     public void setPosition(int x, int y) {
-        int dx = x - this.positionX;
-        int dy = y - this.positionY;
-
         this.positionX = x;
         this.positionY = y;
 
-        base.moveHorizontal(dx);
-        base.moveVertical(dy);
-        roof.moveHorizontal(dx);
-        roof.moveVertical(dy);
+        body.setPosition(positionX, positionY);
     }
 
     /**
@@ -78,6 +77,62 @@ public abstract class StoreAbstracto {
     public void changeColor(String newColor) {
         this.color = newColor;
         base.changeColor(newColor);
+        refreshBody();
+    }
+
+    /**
+     * Actualiza la clave de apariencia del cuerpo (tipo, color y tamaño) y lo
+     * redibuja. Llamar tras cambiar el color de alguna parte.
+     */
+    protected final void refreshBody() {
+        body.setSpriteKey(spriteKey());
+        body.redraw();
+    }
+
+    /**
+     * @return clave de apariencia para la caché de sprites (tipo, color,
+     *         tamaño)
+     */
+    private String spriteKey() {
+        return getClass().getSimpleName() + ":" + color + ":" + sizeRectangle + "x" + sizeTriangle;
+    }
+
+    /**
+     * Inicializa las partes visuales de la tienda (base y techo) agrupadas en
+     * un solo nodo compuesto, como hace RobotAbstracto con sus partes.
+     * Las subclases fijan positionX/Y, tamaños y color antes de llamarlo.
+     */
+    protected final void initializeVisualParts() {
+        // Las partes se ubican con offsets relativos al origen del cuerpo
+        base = new Rectangle();
+        base.changeColor(color);
+        base.changeSize(sizeRectangle / 2, sizeRectangle);
+        base.setPosition(0, 0);
+
+        roof = new Triangle();
+        roof.changeColor("brown");
+        roof.changeSize(sizeTriangle / 2, sizeTriangle);
+        roof.setPosition(10, -sizeTriangle / 2);
+
+        body = new Group();
+        body.add(base);
+        body.add(roof);
+        body.setSpriteKey(spriteKey()); // Apariencia cacheable
+        body.setPosition(positionX, positionY);
+        initialX = positionX;
+        initialY = positionY;
+        initialColor = color;
+    }
+
+    /**
+     * Deja la tienda como recién construida (posición y color por defecto)
+     * para reutilizarla desde la reserva de {@link TypeRegistry}. La tienda
+     * debe estar invisible.
+     */
+    protected void prepararReuso() {
+        setPosition(initialX, initialY);
+        if (!color.equals(initialColor))
+            changeColor(initialColor); // p. ej. tras marcarla vacía en negro
     }
 
     /**
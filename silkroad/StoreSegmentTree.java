@@ -0,0 +1,259 @@
+package silkroad;
+
+/**
+ * Árbol de segmentos sobre las casillas de la ruta con los tenges de cada
+ * tienda (0 si no hay tienda o está vacía).
+ * Cada nodo guarda la suma de tenges, el máximo con su casilla (la de más a la
+ * izquierda en empate) y cuántas tiendas no vacías cubre, de modo que las
+ * consultas por rango y la búsqueda de la siguiente tienda con tenges son
+ * O(log n). Debe actualizarse con {@link #set(int, int)} cada vez que cambian
+ * los tenges de una casilla.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class StoreSegmentTree {
+    private final int cells;
+    private final long[] sum;
+    private final int[] max;
+    private final int[] arg; // casilla del máximo (-1 si el nodo está vacío)
+    private final int[] count; // tiendas con tenges > 0
+
+    /**
+     * Crea un árbol con todas las casillas en 0.
+     *
+     * @param cells número de casillas (posiciones 0..cells-1)
+     */
+    public StoreSegmentTree(int cells) {
+        this(new int[Math.max(1, cells)]);
+    }
+
+    /**
+     * Crea un árbol a partir de los tenges de cada casilla en O(n).
+     *
+     * @param tenges tenges por casilla
+     */
+    public StoreSegmentTree(int[] tenges) {
+        this.cells = Math.max(1, tenges.length);
+        this.sum = new long[4 * cells];
+        this.max = new int[4 * cells];
+        this.arg = new int[4 * cells];
+        this.count = new int[4 * cells];
+        build(1, 0, cells - 1, tenges);
+    }
+
+    /**
+     * @return número de casillas
+     */
+    public int size() {
+        return cells;
+    }
+
+    /**
+     * Actualiza los tenges de una casilla.
+     *
+     * @param cell   casilla
+     * @param tenges nuevos tenges (0 si no hay tienda)
+     */
+    public void set(int cell, int tenges) {
+        if (cell >= 0 && cell < cells)
+            update(1, 0, cells - 1, cell, tenges);
+    }
+
+    /**
+     * @param cell casilla
+     * @return tenges guardados en la casilla
+     */
+    public int get(int cell) {
+        if (cell < 0 || cell >= cells)
+            return 0;
+        int node = 1, lo = 0, hi = cells - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cell <= mid) {
+                node = 2 * node;
+                hi = mid;
+            } else {
+                node = 2 * node + 1;
+                lo = mid + 1;
+            }
+        }
+        return max[node];
+    }
+
+    /**
+     * @return suma de tenges de toda la ruta
+     */
+    public long total() {
+        return sum[1];
+    }
+
+    /**
+     * @param a casilla inicial (incluida)
+     * @param b casilla final (incluida)
+     * @return suma de tenges en [a,b]
+     */
+    public long sum(int a, int b) {
+        a = Math.max(a, 0);
+        b = Math.min(b, cells - 1);
+        return a > b ? 0 : sum(1, 0, cells - 1, a, b);
+    }
+
+    /**
+     * @param a casilla inicial (incluida)
+     * @param b casilla final (incluida)
+     * @return cantidad de tiendas con tenges en [a,b]
+     */
+    public int countNonEmpty(int a, int b) {
+        a = Math.max(a, 0);
+        b = Math.min(b, cells - 1);
+        return a > b ? 0 : count(1, 0, cells - 1, a, b);
+    }
+
+    /**
+     * @param a casilla inicial (incluida)
+     * @param b casilla final (incluida)
+     * @return casilla con más tenges en [a,b] (la de más a la izquierda en
+     *         empate) o -1 si no hay tiendas con tenges
+     */
+    public int richest(int a, int b) {
+        a = Math.max(a, 0);
+        b = Math.min(b, cells - 1);
+        if (a > b)
+            return -1;
+        long best = richest(1, 0, cells - 1, a, b);
+        return best == NONE ? -1 : (int) (0xFFFFFFFFL - (best & 0xFFFFFFFFL));
+    }
+
+    /**
+     * @param x casilla de referencia
+     * @return primera casilla con tenges en [x, fin] o -1 si no hay
+     */
+    public int nextNonEmpty(int x) {
+        x = Math.max(x, 0);
+        return x >= cells ? -1 : next(1, 0, cells - 1, x);
+    }
+
+    /**
+     * @param x casilla de referencia
+     * @return última casilla con tenges en [0, x] o -1 si no hay
+     */
+    public int previousNonEmpty(int x) {
+        x = Math.min(x, cells - 1);
+        return x < 0 ? -1 : previous(1, 0, cells - 1, x);
+    }
+
+    // ----- Implementación recursiva -----
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    private void build(int node, int lo, int hi, int[] tenges) {
+        if (lo == hi) {
+            setLeaf(node, lo, lo < tenges.length ? tenges[lo] : 0);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        build(2 * node, lo, mid, tenges);
+        build(2 * node + 1, mid + 1, hi, tenges);
+        pull(node);
+    }
+
+    private void update(int node, int lo, int hi, int cell, int tenges) {
+        if (lo == hi) {
+            setLeaf(node, lo, tenges);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (cell <= mid)
+            update(2 * node, lo, mid, cell, tenges);
+        else
+            update(2 * node + 1, mid + 1, hi, cell, tenges);
+        pull(node);
+    }
+
+    private void setLeaf(int node, int cell, int tenges) {
+        sum[node] = tenges;
+        max[node] = tenges;
+        arg[node] = tenges > 0 ? cell : -1;
+        count[node] = tenges > 0 ? 1 : 0;
+    }
+
+    private void pull(int node) {
+        int l = 2 * node, r = 2 * node + 1;
+        sum[node] = sum[l] + sum[r];
+        count[node] = count[l] + count[r];
+        if (max[r] > max[l]) {
+            max[node] = max[r];
+            arg[node] = arg[r];
+        } else {
+            max[node] = max[l];
+            arg[node] = arg[l] != -1 ? arg[l] : arg[r];
+        }
+    }
+
+    private long sum(int node, int lo, int hi, int a, int b) {
+        if (a <= lo && hi <= b)
+            return sum[node];
+        int mid = (lo + hi) >>> 1;
+        long total = 0;
+        if (a <= mid)
+            total += sum(2 * node, lo, mid, a, b);
+        if (b > mid)
+            total += sum(2 * node + 1, mid + 1, hi, a, b);
+        return total;
+    }
+
+    private int count(int node, int lo, int hi, int a, int b) {
+        if (a <= lo && hi <= b)
+            return count[node];
+        int mid = (lo + hi) >>> 1;
+        int total = 0;
+        if (a <= mid)
+            total += count(2 * node, lo, mid, a, b);
+        if (b > mid)
+            total += count(2 * node + 1, mid + 1, hi, a, b);
+        return total;
+    }
+
+    /**
+     * @return clave del máximo en el rango (más tenges y, en empate, menor
+     *         casilla) o NONE si no hay tiendas con tenges
+     */
+    private long richest(int node, int lo, int hi, int a, int b) {
+        if (count[node] == 0)
+            return NONE;
+        if (a <= lo && hi <= b)
+            return key(max[node], arg[node]);
+        int mid = (lo + hi) >>> 1;
+        long left = a <= mid ? richest(2 * node, lo, mid, a, b) : NONE;
+        long right = b > mid ? richest(2 * node + 1, mid + 1, hi, a, b) : NONE;
+        return Math.max(left, right);
+    }
+
+    /**
+     * Codifica (tenges, casilla) en un long comparable: más tenges es mayor y,
+     * con los mismos tenges, la casilla menor es mayor.
+     */
+    private static long key(int tenges, int cell) {
+        return ((long) tenges << 32) | (0xFFFFFFFFL - cell);
+    }
+
+    private int next(int node, int lo, int hi, int x) {
+        if (hi < x || count[node] == 0)
+            return -1;
+        if (lo == hi)
+            return lo;
+        int mid = (lo + hi) >>> 1;
+        int found = next(2 * node, lo, mid, x);
+        return found != -1 ? found : next(2 * node + 1, mid + 1, hi, x);
+    }
+
+    private int previous(int node, int lo, int hi, int x) {
+        if (lo > x || count[node] == 0)
+            return -1;
+        if (lo == hi)
+            return lo;
+        int mid = (lo + hi) >>> 1;
+        int found = previous(2 * node + 1, mid + 1, hi, x);
+        return found != -1 ? found : previous(2 * node, lo, mid, x);
+    }
+}
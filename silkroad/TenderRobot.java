@@ -41,15 +41,7 @@ public class TenderRobot extends RobotAbstracto {
      */
     @Override
     protected void updateParts() {
-        robotHead.setPosition(positionX, positionY);
-        leftEye.setPosition(positionX + size - 14, positionY + size / 4);
-        rightEye.setPosition(positionX + size - 4, positionY + size / 4);
-        mouth.setPosition(positionX + size / 6, positionY + size - (size / 10) - 1);
-
-        robotHead.makeVisible();
-        leftEye.makeVisible();
-        rightEye.makeVisible();
-        mouth.makeVisible();
+        updateBody();
     }
 
     /**
@@ -58,10 +50,7 @@ public class TenderRobot extends RobotAbstracto {
     @Override
     public void makeVisible() {
         if (!isVisible) {
-            robotHead.makeVisible();
-            leftEye.makeVisible();
-            rightEye.makeVisible();
-            mouth.makeVisible();
+            body.makeVisible();
             isVisible = true;
         }
     }
@@ -72,10 +61,7 @@ public class TenderRobot extends RobotAbstracto {
     @Override
     public void makeInvisible() {
         if (isVisible) {
-            robotHead.makeInvisible();
-            leftEye.makeInvisible();
-            rightEye.makeInvisible();
-            mouth.makeInvisible();
+            body.makeInvisible();
             isVisible = false;
         }
     }
@@ -0,0 +1,142 @@
+package silkroad;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Registro de tipos de robots o tiendas. Cada tipo se registra una sola vez
+ * con su nombre y su constructor y recibe un id entero compacto (0, 1, 2...),
+ * así crear un objeto no necesita comparar cadenas. Además guarda los objetos
+ * liberados (con sus figuras ya construidas) para reutilizarlos en lugar de
+ * crear otros nuevos: SilkRoad los devuelve al eliminar robots o tiendas y al
+ * terminar. Es compartido entre instancias y seguro entre hilos.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+final class TypeRegistry<T> {
+    /** Objetos guardados como máximo por tipo. */
+    static final int POOL_CAPACITY = 1024;
+
+    /** Robots: normal, neverback y tender. */
+    static final TypeRegistry<RobotAbstracto> ROBOTS = new TypeRegistry<>(RobotAbstracto::prepararReuso,
+            (robot, id) -> robot.typeId = id, robot -> robot.typeId);
+    /** Tiendas: normal, autonomous, fighter y casino. */
+    static final TypeRegistry<StoreAbstracto> STORES = new TypeRegistry<>(StoreAbstracto::prepararReuso,
+            (store, id) -> store.typeId = id, store -> store.typeId);
+
+    static {
+        ROBOTS.register("normal", Robot::new);
+        ROBOTS.register("neverback", NeverbackRobot::new);
+        ROBOTS.register("tender", TenderRobot::new);
+        STORES.register("normal", Store::new);
+        STORES.register("autonomous", AutonomousStore::new);
+        STORES.register("fighter", FighterStore::new);
+        STORES.register("casino", CasinoStore::new);
+    }
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<Function<Boolean, ? extends T>> factories = new ArrayList<>();
+    private final List<ArrayDeque<T>> pools = new ArrayList<>();
+    private final Consumer<T> reset;
+    private final ObjIntConsumer<T> setId;
+    private final ToIntFunction<T> getId;
+
+    /**
+     * @param reset deja un objeto reutilizado como recién creado
+     * @param setId anota en el objeto el id del tipo que lo creó
+     * @param getId lee ese id (-1 si no lo creó el registro)
+     */
+    private TypeRegistry(Consumer<T> reset, ObjIntConsumer<T> setId, ToIntFunction<T> getId) {
+        this.reset = reset;
+        this.setId = setId;
+        this.getId = getId;
+    }
+
+    /**
+     * Registra un tipo. Si el nombre ya existe se devuelve su id sin cambiarlo.
+     *
+     * @param name    nombre del tipo (sin distinguir mayúsculas)
+     * @param factory constructor que recibe la visibilidad inicial
+     * @return id del tipo
+     */
+    synchronized int register(String name, Function<Boolean, ? extends T> factory) {
+        String key = name.toLowerCase();
+        Integer existing = ids.get(key);
+        if (existing != null)
+            return existing;
+        int id = names.size();
+        ids.put(key, id);
+        names.add(key);
+        factories.add(factory);
+        pools.add(new ArrayDeque<>());
+        return id;
+    }
+
+    /**
+     * @param name nombre del tipo (sin distinguir mayúsculas)
+     * @return id del tipo o -1 si no está registrado
+     */
+    synchronized int idOf(String name) {
+        if (name == null)
+            return -1;
+        Integer id = ids.get(name);
+        if (id == null)
+            id = ids.get(name.toLowerCase());
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id id del tipo
+     * @return nombre registrado o null si el id no existe
+     */
+    synchronized String nameOf(int id) {
+        return id >= 0 && id < names.size() ? names.get(id) : null;
+    }
+
+    /**
+     * Entrega un objeto del tipo pedido: uno liberado si hay, o uno nuevo.
+     *
+     * @param id      id del tipo
+     * @param visible visibilidad inicial
+     * @return objeto listo para usar o null si el id no existe
+     */
+    T obtain(int id, boolean visible) {
+        T pooled;
+        Function<Boolean, ? extends T> factory;
+        synchronized (this) {
+            if (id < 0 || id >= names.size())
+                return null;
+            pooled = pools.get(id).poll();
+            factory = factories.get(id);
+        }
+        if (pooled != null) {
+            reset.accept(pooled);
+            return pooled;
+        }
+        T fresh = factory.apply(visible);
+        setId.accept(fresh, id);
+        return fresh;
+    }
+
+    /**
+     * Guarda un objeto que ya no se usa para entregarlo en un obtain
+     * posterior. Debe estar invisible.
+     *
+     * @param object objeto liberado (se ignora si es null o no lo creó este
+     *               registro)
+     */
+    synchronized void release(T object) {
+        if (object == null)
+            return;
+        int id = getId.applyAsInt(object);
+        if (id < 0 || id >= pools.size())
+            return;
+        ArrayDeque<T> pool = pools.get(id);
+        if (pool.size() < POOL_CAPACITY)
+            pool.push(object);
+    }
+}
@@ -0,0 +1,1144 @@
+package test;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.junit.Before;
+import silkroad.*;
+import shapes.Canvas;
+import shapes.FrameRecorder;
+import shapes.Rectangle;
+
+/**
+ * Pruebas SilkRoad Ciclo 5
+ *
+ * Prueba las consultas y estructuras de rendimiento agregadas sobre la ruta.
+ *
+ * @author Juan Carlos Bohorquez y Juan Diego Valderrama
+ */
+public class SilkRoadCC5Test {
+
+    private SilkRoad silkRoad;
+    private static final int ROAD_LENGTH = 50;
+
+    @Before
+    public void setUp() {
+        silkRoad = new SilkRoad(ROAD_LENGTH);
+        silkRoad.makeInvisible(); // Modo invisible para ejecutar más rápido
+    }
+
+    /**
+     * Prueba que moveRobots asigne cada tienda al robot más cercano.
+     */
+    @Test
+    public void testMoveRobotsAsignaRobotMasCercano() {
+        silkRoad.placeRobot(0);
+        silkRoad.placeRobot(30);
+        silkRoad.placeStore(10, 50);
+        silkRoad.placeStore(25, 20);
+        silkRoad.moveRobots();
+        // Tienda 10 con el robot 0 (50 - 10) y tienda 25 con el robot 30 (20 - 5)
+        assertEquals(55, silkRoad.profit());
+        assertEquals(10, silkRoad.robots()[10][0]);
+        assertEquals(25, silkRoad.robots()[25][0]);
+    }
+
+    /**
+     * Prueba las consultas por rango sobre los tenges de las tiendas.
+     */
+    @Test
+    public void testConsultasPorRango() {
+        silkRoad.placeStore(5, 40);
+        silkRoad.placeStore(10, 10);
+        silkRoad.placeStore(20, 70);
+        assertEquals(120, silkRoad.tengesBetween(0, 30));
+        assertEquals(80, silkRoad.tengesBetween(20, 6));
+        assertEquals(2, silkRoad.nonEmptyStoresBetween(6, 25));
+        assertEquals(10, silkRoad.nextNonEmptyStore(6));
+        assertEquals(10, silkRoad.previousNonEmptyStore(19));
+        assertEquals(-1, silkRoad.nextNonEmptyStore(21));
+        assertEquals(5, silkRoad.richestStore(0, 15));
+        assertEquals(20, silkRoad.richestStore(0, ROAD_LENGTH));
+    }
+
+    /**
+     * Prueba que las consultas por rango sigan los cambios de las tiendas.
+     */
+    @Test
+    public void testConsultasSiguenCambios() {
+        silkRoad.placeStore(5, 40);
+        silkRoad.placeStore(20, 70);
+        silkRoad.placeRobot(4);
+        silkRoad.moveRobot(4, 1);
+        assertEquals(0, silkRoad.tengesBetween(5, 5));
+        assertEquals(20, silkRoad.nextNonEmptyStore(0));
+
+        silkRoad.removeStore(20);
+        assertEquals(-1, silkRoad.richestStore(0, ROAD_LENGTH));
+
+        silkRoad.resupplyStores();
+        assertEquals(5, silkRoad.nextNonEmptyStore(0));
+    }
+
+    /**
+     * Prueba que resupplyStores restaure los tenges originales de la tienda.
+     */
+    @Test
+    public void testResupplyRestauraTengesOriginales() {
+        silkRoad.placeStore(5, 40);
+        silkRoad.placeRobot(4);
+        silkRoad.moveRobot(4, 1);
+        assertEquals(0, silkRoad.stores()[5][1]);
+        silkRoad.resupplyStores();
+        assertEquals(40, silkRoad.stores()[5][1]);
+        assertEquals(40, silkRoad.tengesBetween(0, ROAD_LENGTH));
+    }
+
+    /**
+     * Prueba que reboot devuelva a su origen robots que intercambiaron casillas.
+     */
+    @Test
+    public void testRebootDevuelveRobotsIntercambiados() {
+        silkRoad.placeRobot(2);
+        silkRoad.placeRobot(6);
+        silkRoad.placeStore(6, 30);
+        silkRoad.moveRobots(new int[][] { { 2, 4 }, { 6, -4 } });
+        silkRoad.reboot();
+        assertEquals(2, silkRoad.robots()[2][0]);
+        assertEquals(6, silkRoad.robots()[6][0]);
+        assertEquals(0, silkRoad.robots()[6][1]);
+        assertEquals(0, silkRoad.profit());
+        assertEquals(30, silkRoad.stores()[6][1]);
+    }
+
+    /**
+     * Prueba que reboot reinicie a dos robots con el mismo origen (uno salió
+     * y otro se colocó en su lugar).
+     */
+    @Test
+    public void testRebootConOrigenCompartido() {
+        SilkRoad road = SilkRoad.headless(ROAD_LENGTH);
+        road.placeRobot(3);
+        road.moveRobot(3, 3);
+        road.placeRobot(3);
+        road.moveRobot(3, 5);
+        road.reboot();
+        int robots = 0;
+        for (int i = 0; i <= ROAD_LENGTH; i++) {
+            if (road.robots()[i][0] == i && i != 0) {
+                robots++;
+                assertEquals(0, road.robots()[i][1]);
+            }
+        }
+        assertEquals(2, robots);
+        assertEquals(3, road.robots()[3][0]);
+        assertEquals(0, road.profit());
+        assertEquals(0, road.richestRobots(5)[0][1]);
+    }
+
+    /**
+     * Prueba que advanceTo deje el mismo estado que reiniciar día a día.
+     */
+    @Test
+    public void testAdvanceToEquivaleAReboots() {
+        int[][] days = { { 4 }, { 1, 2 }, { 2, 10, 30 }, { 1, 20 }, { 2, 25, 50 } };
+        SilkRoad diaADia = new SilkRoad(days);
+        diaADia.makeInvisible();
+        for (int i = 0; i < 3; i++) {
+            diaADia.reboot();
+        }
+
+        SilkRoad directo = new SilkRoad(days);
+        directo.makeInvisible();
+        directo.advanceTo(3);
+
+        assertTrue(directo.ok());
+        assertEquals(3, directo.currentDay());
+        assertArrayEquals(diaADia.stores(), directo.stores());
+        assertArrayEquals(diaADia.robots(), directo.robots());
+        assertEquals(30, directo.availableTengesOfDay(3));
+        assertEquals(-1, directo.availableTengesOfDay(4));
+
+        assertEquals(0, directo.availableTengesOfDay(1)); // Aún no hay tiendas
+
+        directo.advanceTo(10); // Se detiene en el último evento
+        assertEquals(4, directo.currentDay());
+        assertEquals(80, directo.availableTengesOfDay(4));
+
+        // Sin robots no hay nada que recoger
+        SilkRoad sinRobots = new SilkRoad(new int[][] { { 2 }, { 2, 5, 40 }, { 1, 3 } });
+        sinRobots.makeInvisible();
+        sinRobots.advanceTo(2);
+        assertEquals(0, sinRobots.availableTengesOfDay(1));
+        assertEquals(40, sinRobots.availableTengesOfDay(2));
+    }
+
+    /**
+     * Prueba que solve reutilice resultados en caché, también por prefijo.
+     */
+    @Test
+    public void testSolveUsaCache() {
+        SilkRoadContest.clearCache();
+        int[][] days = { { 3 }, { 1, 20 }, { 2, 15, 15 }, { 2, 40, 50 } };
+        int[] primero = SilkRoadContest.solve(days);
+        assertEquals(1, SilkRoadContest.cacheMisses());
+
+        assertArrayEquals(primero, SilkRoadContest.solve(days));
+        assertEquals(1, SilkRoadContest.cacheHits());
+
+        int[][] extendido = { { 4 }, { 1, 20 }, { 2, 15, 15 }, { 2, 40, 50 }, { 1, 50 } };
+        int[] resultado = SilkRoadContest.solve(extendido);
+        assertEquals(2, SilkRoadContest.cacheHits());
+        assertArrayEquals(primero, java.util.Arrays.copyOf(resultado, 3));
+        assertEquals(4, resultado.length);
+    }
+
+    /**
+     * Prueba que una SilkRoad sin visualización calcule lo mismo que la normal.
+     */
+    @Test
+    public void testHeadlessEquivaleAVisible() {
+        SilkRoad modelo = SilkRoad.headless(ROAD_LENGTH);
+        assertTrue(modelo.isHeadless());
+        for (SilkRoad road : new SilkRoad[] { silkRoad, modelo }) {
+            road.placeRobot(0);
+            road.placeRobot(30);
+            road.placeStore(10, 50);
+            road.placeStore(25, 20);
+            road.moveRobots();
+        }
+        assertEquals(silkRoad.profit(), modelo.profit());
+        assertArrayEquals(silkRoad.robots(), modelo.robots());
+        modelo.makeVisible();
+        assertFalse(modelo.ok());
+    }
+
+    /**
+     * Prueba que el runner atienda muchas sesiones en paralelo y en orden.
+     */
+    @Test
+    public void testRunnerAtiendeSesiones() throws Exception {
+        try (SilkRoadRunner runner = new SilkRoadRunner()) {
+            int[] ids = new int[200];
+            java.util.List<java.util.concurrent.CompletableFuture<Integer>> profits = new java.util.ArrayList<>();
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = runner.open(ROAD_LENGTH);
+                int tenges = i + 1;
+                runner.execute(ids[i], road -> road.placeRobot(0));
+                runner.execute(ids[i], road -> road.placeStore(5, tenges + 5));
+                runner.execute(ids[i], road -> road.moveRobots());
+                profits.add(runner.submit(ids[i], SilkRoad::profit));
+            }
+            for (int i = 0; i < ids.length; i++) {
+                assertEquals(i + 1, (int) profits.get(i).get());
+            }
+            assertEquals(200, runner.sessions());
+            assertEquals(800, runner.completed());
+            assertEquals(0, runner.failed());
+        }
+    }
+
+    /**
+     * Prueba que un Error lanzado por un comando complete su futuro con
+     * excepción y que la sesión siga atendiendo los siguientes.
+     */
+    @Test
+    public void testRunnerSobreviveAErrores() throws Exception {
+        try (SilkRoadRunner runner = new SilkRoadRunner()) {
+            int id = runner.open(ROAD_LENGTH);
+            java.util.concurrent.CompletableFuture<Void> falla = runner.execute(id, road -> {
+                throw new AssertionError("falla");
+            });
+            java.util.concurrent.CompletableFuture<Integer> siguiente = runner.submit(id, SilkRoad::getLength);
+            try {
+                falla.get(5, java.util.concurrent.TimeUnit.SECONDS);
+                fail("El comando debía fallar");
+            } catch (java.util.concurrent.ExecutionException e) {
+                assertTrue(e.getCause() instanceof AssertionError);
+            }
+            assertEquals(ROAD_LENGTH, (int) siguiente.get(5, java.util.concurrent.TimeUnit.SECONDS));
+            assertEquals(1, runner.failed());
+        }
+    }
+
+    /**
+     * Prueba que la ruta por particiones entregue robots entre particiones y
+     * sume el profit de todas.
+     */
+    @Test
+    public void testShardedCruzaParticiones() {
+        try (ShardedSilkRoad sharded = new ShardedSilkRoad(ROAD_LENGTH, 4)) {
+            assertEquals(4, sharded.partitions());
+            sharded.placeRobot(2);
+            sharded.placeRobot(45);
+            sharded.placeStore(30, 40);
+            sharded.placeStore(40, 10);
+            sharded.moveRobot(2, 28); // cruza de la primera a la tercera partición
+            assertTrue(sharded.ok());
+            sharded.moveRobot(45, -5);
+            assertEquals(12 + 5, sharded.profit());
+            assertEquals(12, sharded.robotTenges(30));
+            assertEquals(ShardedSilkRoad.NO_ROBOT, sharded.robotTenges(2));
+            assertEquals(0, sharded.tengesBetween(0, ROAD_LENGTH));
+
+            sharded.moveRobot(30, 10); // destino ocupado
+            assertFalse(sharded.ok());
+
+            sharded.reboot();
+            assertEquals(0, sharded.profit());
+            assertEquals(0, sharded.robotTenges(2));
+            assertEquals(50, sharded.tengesBetween(0, ROAD_LENGTH));
+        }
+    }
+
+    /**
+     * Prueba que moveRobots() por particiones tome robots de las particiones
+     * vecinas y dé lo mismo que SilkRoad en caminos al azar.
+     */
+    @Test
+    public void testShardedMoveRobotsIgualQueSilkRoad() {
+        try (ShardedSilkRoad sharded = new ShardedSilkRoad(50, 2)) {
+            sharded.placeRobot(24);
+            sharded.placeStore(26, 30); // al otro lado del límite
+            sharded.moveRobots();
+            assertEquals(28, sharded.profit());
+            assertEquals(28, sharded.robotTenges(26));
+        }
+        java.util.Random random = new java.util.Random(7);
+        for (int caso = 0; caso < 300; caso++) {
+            int length = 20 + random.nextInt(60);
+            SilkRoad road = SilkRoad.headless(length);
+            try (ShardedSilkRoad sharded = new ShardedSilkRoad(length, 1 + random.nextInt(6))) {
+                boolean[] usada = new boolean[length + 1];
+                for (int i = 0; i < 12; i++) {
+                    int cell = 1 + random.nextInt(length);
+                    if (usada[cell])
+                        continue;
+                    usada[cell] = true;
+                    if (i % 2 == 0) {
+                        road.placeRobot(cell);
+                        sharded.placeRobot(cell);
+                    } else {
+                        int tenges = 1 + random.nextInt(30);
+                        road.placeStore(cell, tenges);
+                        sharded.placeStore(cell, tenges);
+                    }
+                }
+                road.moveRobots();
+                sharded.moveRobots();
+                int[][] robots = road.richestRobots(length + 1);
+                java.util.Arrays.sort(robots, (x, y) -> Integer.compare(x[0], y[0]));
+                assertEquals("caso " + caso, road.profit(), sharded.profit());
+                assertArrayEquals("caso " + caso, robots, sharded.robots());
+            }
+        }
+    }
+
+    /**
+     * Prueba que un robot con tenges negativos se distinga de una casilla
+     * vacía y se pueda eliminar.
+     */
+    @Test
+    public void testShardedRobotConTengesNegativos() {
+        try (ShardedSilkRoad sharded = new ShardedSilkRoad(ROAD_LENGTH, 2)) {
+            sharded.placeRobot(0);
+            sharded.moveRobot(0, 1);
+            assertEquals(-1, sharded.robotTenges(1));
+            sharded.removeRobot(1);
+            assertTrue(sharded.ok());
+            assertEquals(ShardedSilkRoad.NO_ROBOT, sharded.robotTenges(1));
+            sharded.removeRobot(1);
+            assertFalse(sharded.ok());
+        }
+    }
+
+    /**
+     * Prueba que un tipo registrado se use por id y que los robots eliminados
+     * se reutilicen en lugar de crear otros.
+     */
+    @Test
+    public void testRegistroReutilizaRobots() {
+        int[] creados = new int[1];
+        int id = SilkRoad.registerRobotType("contadorCC5", visible -> {
+            creados[0]++;
+            return new Robot(visible);
+        });
+        assertEquals(id, SilkRoad.robotTypeId("CONTADORCC5"));
+        assertEquals(-1, SilkRoad.robotTypeId("inexistente"));
+
+        silkRoad.placeRobot(id, 3);
+        assertTrue(silkRoad.ok());
+        silkRoad.removeRobot(3);
+        silkRoad.placeRobot(id, 7);
+        assertEquals(7, silkRoad.robots()[7][0]);
+        assertEquals(1, creados[0]);
+
+        silkRoad.placeRobot(99, 8);
+        assertFalse(silkRoad.ok());
+    }
+
+    /**
+     * Prueba que moveRobotsPlanned() reporte fallo si un robot no puede
+     * terminar su ruta, sin detener las rutas de los demás.
+     */
+    @Test
+    public void testPlanFallaSiUnaRutaNoTermina() {
+        int inmovil = SilkRoad.registerRobotType("inmovilCC5", visible -> new Robot(visible) {
+            @Override
+            protected boolean isMovementAllowed(int meters) {
+                return false;
+            }
+        });
+        silkRoad.placeRobot(inmovil, 10);
+        silkRoad.placeRobot(40);
+        silkRoad.placeStore(12, 30);
+        silkRoad.placeStore(43, 20);
+
+        silkRoad.moveRobotsPlanned();
+        assertFalse(silkRoad.ok());
+        assertEquals(10, silkRoad.robots()[10][0]);
+        assertEquals(43, silkRoad.robots()[43][0]);
+        assertEquals(17, silkRoad.profit());
+    }
+
+    /**
+     * Prueba que el plan por tipos respete al TenderRobot (toma la mitad) y al
+     * NeverbackRobot (no se devuelve), y deje fuera las FighterStore.
+     */
+    @Test
+    public void testPlanRespetaTiposDeRobot() {
+        silkRoad.placeRobot("tender", 10);
+        silkRoad.placeRobot("neverback", 45);
+        silkRoad.placeStore(14, 40);
+        silkRoad.placeStore(41, 20);
+        silkRoad.placeStore(49, 20);
+        silkRoad.placeStore("fighter", 20, 5);
+
+        silkRoad.moveRobotsPlanned();
+        assertTrue(silkRoad.ok());
+        // Tender: 40/2 - 4. Neverback: solo un lado, 20 - 4 (ir y volver daría 28)
+        assertEquals(32, silkRoad.profit());
+        assertEquals(14, silkRoad.robots()[14][0]);
+        assertEquals(5, silkRoad.stores()[20][1]);
+    }
+
+    /**
+     * Prueba que el orden planificado llegue a la FighterStore con tenges
+     * suficientes para que lo acepte.
+     */
+    @Test
+    public void testPlanFighterVisitaEnOrden() {
+        silkRoad.placeRobot(0);
+        silkRoad.placeStore("fighter", 2, 10);
+        silkRoad.placeStore(5, 20);
+
+        silkRoad.moveRobotPlanned(0, 1000);
+        assertTrue(silkRoad.ok());
+        // Primero la tienda normal (20 - 5), luego la fighter con 15 > 10 (10 - 3)
+        assertEquals(22, silkRoad.profit());
+        assertEquals(0, silkRoad.stores()[2][1]);
+        assertEquals(22, silkRoad.robots()[2][1]);
+    }
+
+    /**
+     * Prueba que el modelo publique sus cambios: estado inicial al suscribirse,
+     * robots movidos, tenges de tiendas, tiendas vaciadas y ganancia.
+     */
+    @Test
+    public void testEventosDelModelo() {
+        silkRoad.placeStore(5, 30);
+        java.util.List<String> eventos = new java.util.ArrayList<>();
+        silkRoad.addListener(new SilkRoadListener() {
+            @Override
+            public void robotMoved(int from, int to) {
+                eventos.add("robot " + from + ">" + to);
+            }
+
+            @Override
+            public void storeChanged(int location, int tenges) {
+                eventos.add("store " + location + "=" + tenges);
+            }
+
+            @Override
+            public void storeEmptied(int location) {
+                eventos.add("vacia " + location);
+            }
+        });
+        assertEquals("[store 5=30]", eventos.toString());
+
+        silkRoad.placeRobot(2);
+        eventos.clear();
+        silkRoad.moveRobot(2, 3);
+        assertEquals("[store 5=0, vacia 5, robot 2>5]", eventos.toString());
+
+        eventos.clear();
+        silkRoad.removeRobot(5);
+        silkRoad.removeStore(5);
+        assertEquals("[robot 5>-1, store 5=-1]", eventos.toString());
+    }
+
+    /**
+     * Prueba que la vista con zoom agregue los rangos al alejarse y muestre
+     * casilla por casilla al acercarse.
+     */
+    @Test
+    public void testViewportAgregaPorZoom() {
+        silkRoad.placeStore(10, 30);
+        silkRoad.placeStore(12, 20);
+        silkRoad.placeRobot(11);
+        RoadViewport viewport = new RoadViewport(silkRoad, 5, 1);
+
+        viewport.setCellsPerTile(10);
+        viewport.pan(-100);
+        viewport.render();
+        assertEquals(0, viewport.getFirstCell());
+        assertEquals(50, viewport.tileTenges(1)); // casillas 10..19
+        assertEquals(1, viewport.tileRobots(1));
+        assertEquals(0, viewport.tileTenges(0));
+
+        viewport.setCellsPerTile(1);
+        viewport.centerOn(11);
+        viewport.render();
+        assertEquals(9, viewport.getFirstCell());
+        assertEquals(30, viewport.tileTenges(1));
+        assertEquals(1, viewport.tileRobots(2));
+
+        silkRoad.moveRobot(11, 1); // recoge la tienda 12
+        viewport.render();
+        assertEquals(0, viewport.tileTenges(3));
+        assertEquals(1, viewport.tileRobots(3));
+        assertEquals(0, viewport.tileRobots(2));
+
+        // Intercambio: los eventos (12>16) y (16>12) llegan en cualquier orden
+        silkRoad.placeRobot(16);
+        silkRoad.moveRobots(new int[][] { { 12, 4 }, { 16, -4 } });
+        viewport.centerOn(14);
+        viewport.render();
+        assertEquals(12, viewport.getFirstCell());
+        assertEquals(1, viewport.tileRobots(0));
+        assertEquals(1, viewport.tileRobots(4));
+        viewport.close();
+    }
+
+    /**
+     * Prueba las consultas de ganancia por rango y los k mejores sin recorrer
+     * la ruta.
+     */
+    @Test
+    public void testAnaliticaDeGanancia() {
+        silkRoad.placeStore(5, 30);
+        silkRoad.placeStore(20, 50);
+        silkRoad.placeRobot(2);
+        silkRoad.placeRobot(15);
+        silkRoad.moveRobot(2, 3); // gana 27 en la casilla 5
+        silkRoad.moveRobot(15, 5); // gana 45 en la casilla 20
+
+        assertEquals(27, silkRoad.profitBetween(0, 10));
+        assertEquals(72, silkRoad.profitBetween(20, 0));
+        assertEquals(0, silkRoad.profitBetween(6, 19));
+        assertArrayEquals(new int[][] { { 20, 45 } }, silkRoad.topProfitCells(1));
+        assertArrayEquals(new int[][] { { 20, 45 }, { 5, 27 } }, silkRoad.richestRobots(5));
+
+        silkRoad.removeRobot(20);
+        assertArrayEquals(new int[][] { { 5, 27 } }, silkRoad.richestRobots(5));
+    }
+
+    /**
+     * Prueba que la exportación escriba las filas en orden de casilla y que
+     * la versión en trozos paralelos dé el mismo archivo.
+     */
+    @Test
+    public void testExportaEstadisticasEnOrden() throws Exception {
+        silkRoad.placeStore(5, 30);
+        silkRoad.placeStore("fighter", 20, 50);
+        silkRoad.placeRobot(2);
+        silkRoad.placeRobot("tender", 40);
+        silkRoad.moveRobot(2, 3);
+
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("stats", ".csv");
+        java.nio.file.Path parallel = java.nio.file.Files.createTempFile("stats", ".csv");
+        try {
+            new StatisticsExporter(silkRoad, StatisticsExporter.Format.CSV).export(file);
+            assertEquals(java.util.Arrays.asList(
+                    StatisticsExporter.CSV_HEADER,
+                    "road,50,,,,,27",
+                    "store,5,normal,0,,30,",
+                    "robot,5,normal,27,2,,",
+                    "profit,5,,,,,27",
+                    "store,20,fighter,50,,50,",
+                    "robot,40,tender,0,40,,"), java.nio.file.Files.readAllLines(file));
+
+            silkRoad.exportStatistics(parallel.toString(), false, 4);
+            assertTrue(silkRoad.ok());
+            assertArrayEquals(java.nio.file.Files.readAllBytes(file), java.nio.file.Files.readAllBytes(parallel));
+        } finally {
+            java.nio.file.Files.deleteIfExists(file);
+            java.nio.file.Files.deleteIfExists(parallel);
+        }
+    }
+
+    /**
+     * Prueba que guardar y cargar conserve el estado lógico y que la copia
+     * cargada se reinicie igual que la original.
+     */
+    @Test
+    public void testGuardaYCargaEstado() throws Exception {
+        silkRoad.placeStore(5, 30);
+        silkRoad.placeStore("fighter", 20, 50);
+        silkRoad.placeRobot(2);
+        silkRoad.placeRobot("tender", 15);
+        silkRoad.moveRobot(2, 3);
+        silkRoad.moveRobot(15, 5);
+
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("silkroad", ".bin");
+        try {
+            silkRoad.save(file);
+            assertTrue(silkRoad.ok());
+            SilkRoad copia = SilkRoad.load(file, true);
+
+            assertEquals(silkRoad.getLength(), copia.getLength());
+            assertEquals(silkRoad.profit(), copia.profit());
+            assertArrayEquals(silkRoad.stores(), copia.stores());
+            assertArrayEquals(silkRoad.robots(), copia.robots());
+            assertEquals(silkRoad.profitBetween(0, 50), copia.profitBetween(0, 50));
+
+            silkRoad.reboot();
+            copia.reboot();
+            assertArrayEquals(silkRoad.stores(), copia.stores());
+            assertArrayEquals(silkRoad.robots(), copia.robots());
+            assertEquals(0, copia.profit());
+        } finally {
+            java.nio.file.Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Prueba que un archivo con cantidades dañadas se rechace con IOException.
+     */
+    @Test
+    public void testCargaRechazaCantidadesDanadas() throws Exception {
+        silkRoad.placeStore(10, 30);
+        silkRoad.placeRobot(3);
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("silkroad", ".bin");
+        try {
+            silkRoad.save(file);
+            byte[] original = java.nio.file.Files.readAllBytes(file);
+            // Longitud enorme y cantidad de tipos de tienda negativa o enorme
+            int[][] danos = { { 8, Integer.MAX_VALUE }, { 28, -5 }, { 28, Integer.MAX_VALUE } };
+            for (int[] dano : danos) {
+                byte[] bytes = original.clone();
+                java.nio.ByteBuffer.wrap(bytes).putInt(dano[0], dano[1]);
+                java.nio.file.Files.write(file, bytes);
+                try {
+                    SilkRoad.load(file, true);
+                    fail("Se esperaba IOException para " + dano[1] + " en " + dano[0]);
+                } catch (java.io.IOException e) {
+                    // archivo rechazado
+                }
+            }
+        } finally {
+            java.nio.file.Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Prueba que una ruta cargada con dos robots del mismo origen se
+     * reinicie igual que la original.
+     */
+    @Test
+    public void testCargaConOrigenCompartido() throws Exception {
+        SilkRoad original = SilkRoad.headless(ROAD_LENGTH);
+        original.placeStore(6, 10);
+        original.placeRobot(3);
+        original.moveRobot(3, 3);
+        original.placeRobot(3);
+        original.moveRobot(3, 5);
+
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("silkroad", ".bin");
+        try {
+            original.save(file);
+            SilkRoad copia = SilkRoad.load(file, true);
+            original.reboot();
+            copia.reboot();
+            assertArrayEquals(original.robots(), copia.robots());
+            assertArrayEquals(original.stores(), copia.stores());
+            assertArrayEquals(new int[][] { { 3, 0 }, { 8, 0 } }, copia.richestRobots(5));
+        } finally {
+            java.nio.file.Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Prueba las consultas "qué pasaría si" sin cambiar el estado.
+     */
+    @Test
+    public void testGananciaMarginal() {
+        silkRoad.placeStore(10, 30);
+        silkRoad.placeStore("fighter", 30, 40);
+        silkRoad.placeRobot(4);
+        silkRoad.placeRobot("tender", 20);
+
+        assertEquals(0, silkRoad.whatIfPlaceRobot(1)); // el robot 4 ya toma la tienda 10
+        assertEquals(4, silkRoad.whatIfPlaceRobot(12)); // 28 frente a los 24 del robot 4
+        assertEquals(0, silkRoad.whatIfPlaceRobot(4)); // ya hay robot
+        assertEquals(-19, silkRoad.whatIfRemoveRobot(4)); // el tender tomaría 15 a distancia 10
+        assertEquals(-24, silkRoad.whatIfRemoveStore(10));
+        assertEquals(0, silkRoad.whatIfRemoveStore(30)); // la FighterStore rechaza a ambos
+        assertEquals(7, silkRoad.whatIfPlaceStore(22, 18)); // el tender toma 9 a distancia 2
+        assertEquals(0, silkRoad.whatIfPlaceStore(10, 50)); // ya hay tienda
+
+        assertEquals(0, silkRoad.profit());
+        assertEquals(30, silkRoad.stores()[10][1]);
+        assertEquals(0, silkRoad.robots()[4][1]);
+
+        // Un robot que compite por una tienda ya atendida no agrega nada
+        SilkRoad ruta = SilkRoad.headless(20);
+        ruta.placeStore(10, 30);
+        ruta.placeRobot(11);
+        assertEquals(0, ruta.whatIfPlaceRobot(9));
+        ruta.moveRobots();
+        int antes = ruta.profit();
+        ruta.reboot();
+        ruta.placeRobot(9);
+        ruta.moveRobots();
+        assertEquals(antes, ruta.profit());
+    }
+
+    /**
+     * Prueba que el servidor responda lo mismo que SilkRoadContest.solve, también
+     * con varias peticiones encadenadas y con un mensaje más grande que el buffer
+     * de lectura.
+     */
+    @Test
+    public void testServidorResuelveEnOrden() throws java.io.IOException {
+        int[][] dias = { { 4 }, { 1, 20 }, { 2, 15, 15 }, { 2, 40, 50 }, { 1, 50 } };
+        int[][] grande = new int[3001][];
+        grande[0] = new int[] { 3000 };
+        for (int i = 1; i <= 3000; i++) {
+            grande[i] = i % 2 == 1 ? new int[] { 1, (i * 7) % 500 } : new int[] { 2, (i * 13) % 500, i % 90 };
+        }
+
+        try (SilkRoadServer server = new SilkRoadServer(0)) {
+            server.start();
+            try (SilkRoadClient client = new SilkRoadClient(server.getPort())) {
+                assertArrayEquals(SilkRoadContest.solve(dias), client.solve(dias));
+
+                int[][][] lote = new int[8][][];
+                for (int k = 0; k < lote.length; k++) {
+                    lote[k] = new int[][] { { 2 }, { 1, k }, { 2, 10 + k, 20 + k } };
+                    client.send(lote[k]);
+                }
+                for (int k = 0; k < lote.length; k++) {
+                    assertArrayEquals(SilkRoadContest.solve(lote[k]), client.receive());
+                }
+
+                assertArrayEquals(SilkRoadContest.solve(grande), client.solve(grande)); // ~42 KB
+            }
+        }
+    }
+
+    /**
+     * Prueba que una petición fuera de límites (una ruta enorme) se rechace con
+     * error y no bloquee la respuesta de la siguiente en la misma conexión.
+     */
+    @Test(timeout = 20000)
+    public void testServidorRechazaRutaEnorme() throws java.io.IOException {
+        int[][] valido = { { 2 }, { 1, 3 }, { 2, 8, 40 } };
+        try (SilkRoadServer server = new SilkRoadServer(0)) {
+            server.start();
+            try (SilkRoadClient client = new SilkRoadClient(server.getPort())) {
+                client.send(new int[][] { { 1 }, { 1, 1500000000 } });
+                client.send(new int[][] { { Integer.MAX_VALUE }, { 1, 3 } });
+                client.send(valido);
+                for (int k = 0; k < 2; k++) {
+                    try {
+                        client.receive();
+                        fail("Se esperaba el estado de error");
+                    } catch (java.io.IOException e) {
+                        // estado de error del servidor
+                    }
+                }
+                assertArrayEquals(SilkRoadContest.solve(valido), client.receive());
+            }
+        }
+    }
+
+    /**
+     * Prueba que una petición mal formada reciba el estado de error sin cerrar
+     * la conexión.
+     */
+    @Test
+    public void testServidorRespondeErrorAPeticionMalFormada() throws java.io.IOException {
+        try (SilkRoadServer server = new SilkRoadServer(0)) {
+            server.start();
+            try (java.net.Socket socket = new java.net.Socket(java.net.InetAddress.getLoopbackAddress(),
+                    server.getPort())) {
+                java.io.DataOutputStream out = new java.io.DataOutputStream(socket.getOutputStream());
+                java.io.DataInputStream in = new java.io.DataInputStream(socket.getInputStream());
+                out.writeInt(8); // [id][filas] sin las filas anunciadas
+                out.writeInt(7);
+                out.writeInt(1000);
+                out.flush();
+
+                assertEquals(12, in.readInt());
+                assertEquals(7, in.readInt());
+                assertEquals(1, in.readInt()); // estado de error
+                assertEquals(0, in.readInt());
+
+                // La conexión sigue atendiendo: { {1}, {1, 3} }
+                for (int value : new int[] { 28, 8, 2, 1, 1, 2, 1, 3 }) {
+                    out.writeInt(value);
+                }
+                out.flush();
+                assertEquals(16, in.readInt());
+                assertEquals(8, in.readInt());
+                assertEquals(0, in.readInt());
+                assertEquals(1, in.readInt());
+                assertEquals(0, in.readInt()); // un robot sin tiendas
+            }
+        }
+    }
+
+    /**
+     * Prueba que la vista, creada fuera del hilo de Swing, dibuje allí los
+     * cambios acumulados del modelo.
+     */
+    @Test
+    public void testVistaDibujaEnHiloDeSwing() throws Exception {
+        SilkRoad modelo = SilkRoad.headless(20);
+        SilkRoadView vista = new SilkRoadView(modelo);
+        modelo.placeStore(5, 30);
+        modelo.placeRobot(2);
+        modelo.moveRobot(2, 3);
+        javax.swing.SwingUtilities.invokeAndWait(() -> {
+        }); // espera el dibujo pendiente
+        assertTrue(vista.frames() >= 1);
+        assertTrue(vista.frames() < vista.events());
+        vista.close();
+    }
+
+    /**
+     * Prueba que un movimiento grupal con una fila inválida no mueva a nadie.
+     */
+    @Test
+    public void testMoveRobotsGrupalTodoONada() {
+        silkRoad.placeRobot(2);
+        silkRoad.placeRobot(10);
+        silkRoad.placeStore(5, 20);
+
+        silkRoad.moveRobots(new int[][] { { 2, 3 }, { 7, 1 } }); // sin robot en 7
+        assertFalse(silkRoad.ok());
+        silkRoad.moveRobots(new int[][] { { 2, 3 }, { 2, 1 } }); // robot repetido
+        assertFalse(silkRoad.ok());
+        silkRoad.moveRobots(new int[][] { { 2, 3 }, { 10, ROAD_LENGTH } }); // fuera de la ruta
+        assertFalse(silkRoad.ok());
+
+        assertArrayEquals(new int[] { 2, 10 }, robotCells(silkRoad));
+        assertEquals(20, silkRoad.stores()[5][1]);
+        assertEquals(0, silkRoad.profit());
+    }
+
+    /**
+     * Prueba el desempate de destinos: gana el menor recorrido y, en empate, el
+     * de menor origen; los demás se quedan.
+     */
+    @Test
+    public void testMoveRobotsGrupalDesempate() {
+        silkRoad.placeRobot(4);
+        silkRoad.placeRobot(7);
+        silkRoad.placeRobot(12);
+
+        silkRoad.moveRobots(new int[][] { { 4, 4 }, { 12, -4 }, { 7, 1 } });
+        assertTrue(silkRoad.ok());
+        assertArrayEquals(new int[] { 4, 8, 12 }, robotCells(silkRoad)); // solo el 7 llega a 8
+
+        silkRoad.moveRobots(new int[][] { { 8, -2 }, { 4, 2 } });
+        assertTrue(silkRoad.ok());
+        assertArrayEquals(new int[] { 6, 8, 12 }, robotCells(silkRoad)); // gana el origen 4
+    }
+
+    /**
+     * Prueba que un robot que se queda bloquee a quien va a su casilla, también
+     * en cadena.
+     */
+    @Test
+    public void testMoveRobotsGrupalBloqueadoPorRobotQuieto() {
+        silkRoad.placeRobot(1);
+        silkRoad.placeRobot(3);
+        silkRoad.placeRobot(5);
+
+        silkRoad.moveRobots(new int[][] { { 1, 2 }, { 3, 2 }, { 5, 0 } });
+        assertTrue(silkRoad.ok());
+        assertArrayEquals(new int[] { 1, 3, 5 }, robotCells(silkRoad));
+
+        silkRoad.moveRobots(new int[][] { { 1, 2 }, { 3, 2 }, { 5, 1 } }); // ahora todos avanzan
+        assertArrayEquals(new int[] { 3, 5, 6 }, robotCells(silkRoad));
+    }
+
+    /**
+     * @return casillas con robot, en orden
+     */
+    private static int[] robotCells(SilkRoad road) {
+        int[][] robots = road.richestRobots(road.getLength() + 1);
+        int[] cells = new int[robots.length];
+        for (int i = 0; i < robots.length; i++) {
+            cells[i] = robots[i][0];
+        }
+        java.util.Arrays.sort(cells);
+        return cells;
+    }
+
+    /**
+     * Prueba que las pausas avancen el reloj lógico del grabador sin dormir y
+     * que los cuadros sin cambios se copien.
+     */
+    @Test(timeout = 30000)
+    public void testGrabadorRelojLogico() throws Exception {
+        java.nio.file.Path carpeta = java.nio.file.Files.createTempDirectory("frames");
+        try {
+            FrameRecorder grabador = new FrameRecorder(carpeta.toFile(), 10, 4);
+            grabador.start();
+            Canvas.getCanvas().wait(60000); // un minuto lógico
+            assertEquals(60000, grabador.getClock());
+            assertEquals(601, grabador.stop()); // cuadro inicial + uno cada 100 ms
+            assertEquals(601, carpeta.toFile().list().length);
+        } finally {
+            borrarCarpeta(carpeta);
+        }
+    }
+
+    /**
+     * Prueba que varios codificadores en paralelo escriban cada cuadro con su
+     * propio contenido y en su propio archivo.
+     */
+    @Test(timeout = 30000)
+    public void testGrabadorOrdenConVariosCodificadores() throws Exception {
+        grabarYVerificar(4, 8, 40);
+    }
+
+    /**
+     * Prueba que con la cola más pequeña la simulación espere al codificador
+     * sin perder ni desordenar cuadros.
+     */
+    @Test(timeout = 30000)
+    public void testGrabadorColaAcotada() throws Exception {
+        grabarYVerificar(3, 1, 100);
+    }
+
+    /**
+     * Graba un rectángulo que crece 2 px por cuadro y comprueba el ancho de
+     * cada PNG.
+     */
+    private static void grabarYVerificar(int codificadores, int cola, int cuadros) throws Exception {
+        java.nio.file.Path carpeta = java.nio.file.Files.createTempDirectory("frames");
+        Rectangle marca = new Rectangle();
+        try {
+            marca.changeColor("magenta");
+            marca.setPosition(10, 10);
+            marca.changeSize(10, 5);
+            marca.makeVisible();
+
+            FrameRecorder grabador = new FrameRecorder(carpeta.toFile(), 10, cola, codificadores);
+            grabador.start();
+            Canvas canvas = Canvas.getCanvas();
+            for (int i = 1; i < cuadros; i++) {
+                canvas.startBatch(); // las pausas propias de la figura no cuentan
+                marca.changeSize(10, 5 + 2 * i);
+                canvas.endBatch();
+                canvas.wait(100);
+            }
+            assertEquals(cuadros, grabador.stop());
+
+            for (int i = 0; i < cuadros; i++) {
+                java.awt.image.BufferedImage imagen = javax.imageio.ImageIO
+                        .read(carpeta.resolve(String.format("frame_%05d.png", i)).toFile());
+                int color = imagen.getRGB(10, 15);
+                int ancho = 5 + 2 * i;
+                assertEquals("cuadro " + i, color, imagen.getRGB(10 + ancho - 1, 15));
+                assertNotEquals("cuadro " + i, color, imagen.getRGB(10 + ancho + 1, 15));
+            }
+        } finally {
+            marca.makeInvisible();
+            borrarCarpeta(carpeta);
+        }
+    }
+
+    private static void borrarCarpeta(java.nio.file.Path carpeta) throws java.io.IOException {
+        java.io.File[] archivos = carpeta.toFile().listFiles();
+        if (archivos != null) {
+            for (java.io.File archivo : archivos) {
+                java.nio.file.Files.deleteIfExists(archivo.toPath());
+            }
+        }
+        java.nio.file.Files.deleteIfExists(carpeta);
+    }
+
+    /**
+     * Prueba que la captura sin ventana tenga el tamaño de la escena y que los
+     * mosaicos la cubran completa.
+     */
+    @Test
+    public void testCapturaYMosaicosSinVentana() throws Exception {
+        java.nio.file.Path carpeta = java.nio.file.Files.createTempDirectory("snapshot");
+        Rectangle esquina = new Rectangle();
+        Rectangle marca = new Rectangle();
+        try {
+            esquina.setPosition(0, 0);
+            esquina.makeVisible();
+            marca.changeColor("magenta");
+            marca.setPosition(1200, 900); // la escena ocupa varios mosaicos
+            marca.changeSize(40, 60);
+            marca.makeVisible();
+            java.awt.Rectangle escena = Canvas.getCanvas().getSceneBounds();
+
+            java.io.File archivo = carpeta.resolve("ruta.png").toFile();
+            silkRoad.saveSnapshot(archivo.getPath());
+            assertTrue(silkRoad.ok());
+            java.awt.image.BufferedImage imagen = javax.imageio.ImageIO.read(archivo);
+            assertEquals(escena.width, imagen.getWidth());
+            assertEquals(escena.height, imagen.getHeight());
+
+            java.io.File mosaicos = carpeta.resolve("mosaicos").toFile();
+            silkRoad.saveSnapshotTiles(mosaicos.getPath(), 256);
+            assertTrue(silkRoad.ok());
+            int columnas = (escena.width + 255) / 256;
+            int filas = (escena.height + 255) / 256;
+            assertTrue(columnas > 1 && filas > 1);
+            assertEquals(filas * columnas, mosaicos.list().length);
+            int ancho = 0;
+            for (int c = 0; c < columnas; c++) {
+                ancho += javax.imageio.ImageIO.read(new java.io.File(mosaicos, "snapshot_0_" + c + ".png")).getWidth();
+            }
+            int alto = 0;
+            for (int f = 0; f < filas; f++) {
+                alto += javax.imageio.ImageIO.read(new java.io.File(mosaicos, "snapshot_" + f + "_0.png")).getHeight();
+            }
+            assertEquals(escena.width, ancho);
+            assertEquals(escena.height, alto);
+
+            // El mosaico que contiene la marca la pinta igual que la captura
+            int x = 1210 - escena.x;
+            int y = 910 - escena.y;
+            java.awt.image.BufferedImage mosaico = javax.imageio.ImageIO
+                    .read(new java.io.File(mosaicos, "snapshot_" + y / 256 + "_" + x / 256 + ".png"));
+            assertNotEquals(imagen.getRGB(x - 20, y), imagen.getRGB(x, y)); // marca sobre el fondo
+            assertEquals(imagen.getRGB(x, y), mosaico.getRGB(x % 256, y % 256));
+        } finally {
+            esquina.makeInvisible();
+            marca.makeInvisible();
+            borrarCarpeta(carpeta.resolve("mosaicos"));
+            borrarCarpeta(carpeta);
+        }
+    }
+
+    /**
+     * Prueba que los 24 nombres de la paleta den los mismos RGB que la
+     * traducción por nombre de antes, que un nombre desconocido dé negro y
+     * que el lienzo sin ventana pinte cada color así.
+     */
+    @Test
+    public void testPaletaConservaColores() {
+        String[] nombres = { "black", "red", "blue", "yellow", "green", "magenta", "white", "purple",
+                "orange", "pink", "cyan", "brown", "lightgray", "indigo", "gold", "salmon", "beige",
+                "ivory", "sunsetorange", "desertsand", "reddirt", "sage", "terracottared", "amber" };
+        int[] rgb = { 0x000000, 0xFF0000, 0x0000FF, 0xFFFF00, 0x00FF00, 0xFF00FF, 0xFFFFFF, 0x800080,
+                0xFFC800, 0xFFAFAF, 0x00FFFF, 0x8B4513, 0xC0C0C0, 0x4B0082, 0xFFD700, 0xFA8072, 0xF5F5DC,
+                0xFFFFF0, 0xFF6138, 0xEDC9AF, 0xE95B21, 0xBCB889, 0xE2725B, 0xFFBF00 };
+        assertEquals(nombres.length, shapes.Palette.size());
+        for (int i = 0; i < nombres.length; i++) {
+            int id = shapes.Palette.idOf(nombres[i]);
+            assertEquals(nombres[i], rgb[i], shapes.Palette.colorOf(id).getRGB() & 0xFFFFFF);
+            assertEquals(id, shapes.Palette.idOf(nombres[i].toUpperCase()));
+        }
+        assertEquals(shapes.Palette.UNKNOWN, shapes.Palette.idOf("chartreuse"));
+        assertEquals(shapes.Palette.UNKNOWN, shapes.Palette.idOf(null));
+        assertEquals(0, shapes.Palette.colorOf(shapes.Palette.idOf("chartreuse")).getRGB() & 0xFFFFFF);
+
+        Canvas canvas = Canvas.getCanvas();
+        Rectangle muestra = new Rectangle();
+        java.awt.Rectangle zona = new java.awt.Rectangle(5000, 5000, 10, 10);
+        canvas.startBatch();
+        try {
+            muestra.setPosition(zona.x, zona.y);
+            muestra.changeSize(zona.width, zona.height);
+            muestra.makeVisible();
+            for (int i = 0; i <= nombres.length; i++) {
+                muestra.changeColor(i < nombres.length ? nombres[i] : "chartreuse");
+                int esperado = i < nombres.length ? rgb[i] : 0;
+                assertEquals("color " + i, esperado, pintarZona(zona).getRGB(5, 5) & 0xFFFFFF);
+            }
+        } finally {
+            muestra.makeInvisible();
+            canvas.endBatch();
+        }
+    }
+
+    /**
+     * Prueba que un robot dibujado como grupo (con sprite y figura a figura)
+     * quede igual, píxel a píxel, que sus partes dibujadas por separado.
+     */
+    @Test
+    public void testRobotAgrupadoPintaIgualQueSusPartes() {
+        class RobotVisible extends Robot {
+            RobotVisible() {
+                super(false);
+            }
+
+            shapes.Group cuerpo() {
+                return body;
+            }
+        }
+        Canvas canvas = Canvas.getCanvas();
+        RobotVisible robot = new RobotVisible();
+        java.awt.Rectangle zona = new java.awt.Rectangle(4990, 4990, 40, 40);
+        canvas.startBatch();
+        try {
+            robot.placeTo(5000, 5000);
+            shapes.Group cuerpo = robot.cuerpo();
+            java.awt.image.BufferedImage conSprite = pintarZona(zona);
+
+            String clave = cuerpo.getSpriteKey();
+            cuerpo.setSpriteKey(null); // hijas una a una, por índice
+            cuerpo.redraw();
+            java.awt.image.BufferedImage porHijas = pintarZona(zona);
+            cuerpo.setSpriteKey(clave);
+
+            robot.makeInvisible();
+            for (shapes.Shape parte : cuerpo.getChildren()) {
+                parte.moveHorizontal(cuerpo.getXPosition());
+                parte.moveVertical(cuerpo.getYPosition());
+                parte.makeVisible(); // cada parte es una entrada del lienzo
+            }
+            java.awt.image.BufferedImage sueltas = pintarZona(zona);
+            for (shapes.Shape parte : cuerpo.getChildren()) {
+                parte.makeInvisible();
+                parte.moveHorizontal(-cuerpo.getXPosition());
+                parte.moveVertical(-cuerpo.getYPosition());
+            }
+
+            assertNotEquals(sueltas.getRGB(0, 0), sueltas.getRGB(15, 15)); // el robot está en la zona
+            for (int y = 0; y < zona.height; y++) {
+                for (int x = 0; x < zona.width; x++) {
+                    assertEquals(x + "," + y, sueltas.getRGB(x, y), conSprite.getRGB(x, y));
+                    assertEquals(x + "," + y, sueltas.getRGB(x, y), porHijas.getRGB(x, y));
+                }
+            }
+        } finally {
+            robot.makeInvisible();
+            canvas.endBatch();
+        }
+    }
+
+    /**
+     * @param zona área del lienzo
+     * @return la zona pintada por el lienzo sin ventana
+     */
+    private static java.awt.image.BufferedImage pintarZona(java.awt.Rectangle zona) {
+        java.awt.image.BufferedImage imagen = new java.awt.image.BufferedImage(zona.width, zona.height,
+                java.awt.image.BufferedImage.TYPE_INT_RGB);
+        java.awt.Graphics2D g = imagen.createGraphics();
+        g.translate(-zona.x, -zona.y);
+        Canvas.getCanvas().paintScene(g, zona);
+        g.dispose();
+        return imagen;
+    }
+}